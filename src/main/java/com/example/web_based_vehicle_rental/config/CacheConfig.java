@@ -1,14 +1,16 @@
 package com.example.web_based_vehicle_rental.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
+import java.util.Collections;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Cache configuration using Caffeine
@@ -18,36 +20,52 @@ import java.util.concurrent.TimeUnit;
 @EnableCaching
 public class CacheConfig {
 
+    public static final String VEHICLES = "vehicles";
+    public static final String VEHICLE_CATALOG = "vehicleCatalog";
+    public static final String AVAILABLE_VEHICLES = "availableVehicles";
+    public static final String REVIEW_STATISTICS = "reviewStatistics";
+    public static final String USER_RESERVATIONS = "userReservations";
+
+    @Value("${cache.spec.vehicles}")
+    private String vehiclesSpec;
+
+    @Value("${cache.spec.vehicle-catalog}")
+    private String vehicleCatalogSpec;
+
+    @Value("${cache.spec.available-vehicles}")
+    private String availableVehiclesSpec;
+
+    @Value("${cache.spec.review-statistics}")
+    private String reviewStatisticsSpec;
+
+    @Value("${cache.spec.user-reservations}")
+    private String userReservationsSpec;
+
     /**
-     * Configure Caffeine cache manager with multiple caches
+     * Configure Caffeine cache manager with one size/TTL spec per cache
      */
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "vehicles", // Individual vehicle cache
-                "availableVehicles", // Available vehicles list
-                "reviewStatistics", // Review stats per vehicle
-                "userReservations" // User's reservations
-        );
-
-        cacheManager.setCaffeine(caffeineCacheBuilder());
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(VEHICLES, build(vehiclesSpec)); // Individual vehicle cache
+        cacheManager.registerCustomCache(VEHICLE_CATALOG, build(vehicleCatalogSpec)); // Catalog card lists
+        cacheManager.registerCustomCache(AVAILABLE_VEHICLES, build(availableVehiclesSpec)); // Available vehicles list
+        cacheManager.registerCustomCache(REVIEW_STATISTICS, build(reviewStatisticsSpec)); // Review stats per vehicle
+        cacheManager.registerCustomCache(USER_RESERVATIONS, build(userReservationsSpec)); // User's reservations
+        // Only the caches above exist; an unknown name is a programming error
+        cacheManager.setCacheNames(Collections.emptyList());
         return cacheManager;
     }
 
     /**
-     * Default Caffeine cache configuration
-     * - Maximum 1000 entries per cache
-     * - Expire after 5 minutes of write
-     * - Expire after 10 minutes of access
+     * Build a cache from a Caffeine spec string (e.g. "maximumSize=500,expireAfterWrite=10m"),
+     * always recording statistics so hit ratios show up in actuator
      */
     @NonNull
-    private Caffeine<Object, Object> caffeineCacheBuilder() {
+    private Cache<Object, Object> build(String spec) {
         return Objects.requireNonNull(
-                Caffeine.newBuilder()
-                        .maximumSize(1000)
-                        .expireAfterWrite(5, TimeUnit.MINUTES)
-                        .expireAfterAccess(10, TimeUnit.MINUTES)
+                Caffeine.from(spec)
                         .recordStats() // Enable cache statistics
-        );
+                        .build());
     }
 }
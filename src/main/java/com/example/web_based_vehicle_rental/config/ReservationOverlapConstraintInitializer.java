@@ -0,0 +1,73 @@
+package com.example.web_based_vehicle_rental.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Installs a database-level guarantee that two CONFIRMED reservations of the
+ * same vehicle never overlap.
+ *
+ * On PostgreSQL this is a {@code daterange} exclusion constraint (needs the
+ * btree_gist extension). MySQL has no equivalent, so there the per-vehicle
+ * row lock taken by {@code ReservationService.createReservation} is the only
+ * protection. Failures are logged rather than fatal, e.g. when existing data
+ * already overlaps or the database user cannot create extensions.
+ */
+@Component
+public class ReservationOverlapConstraintInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationOverlapConstraintInitializer.class);
+
+    private static final String CONSTRAINT_NAME = "reservation_no_overlap";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.overlap-constraint.enabled:true}")
+    private boolean enabled;
+
+    public ReservationOverlapConstraintInitializer(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void installConstraint() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            String product;
+            try (Connection connection = dataSource.getConnection()) {
+                product = connection.getMetaData().getDatabaseProductName();
+            }
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                logger.info("{} has no range exclusion constraints, relying on vehicle row locks", product);
+                return;
+            }
+
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, CONSTRAINT_NAME);
+            if (existing != null && existing > 0) {
+                return;
+            }
+
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute("ALTER TABLE reservation ADD CONSTRAINT " + CONSTRAINT_NAME
+                    + " EXCLUDE USING gist (vehicle_id WITH =, daterange(start_date, end_date, '[]') WITH &&)"
+                    + " WHERE (status = 'CONFIRMED')");
+            logger.info("Installed reservation overlap exclusion constraint");
+        } catch (Exception e) {
+            logger.warn("Could not install reservation overlap constraint, relying on vehicle row locks: {}",
+                    e.getMessage());
+        }
+    }
+}
@@ -45,12 +45,14 @@ public class SecurityConfig {
                                                                 "/js/**", "/images/**", "/uploads/**",
                                                                 "/vehicles", "/api/public/**",
                                                                 "/browse", "/api/reservations/search",
-                                                                "/payment/success", "/payment/cancel", "/terms",
+                                                                "/payment/success", "/payment/cancel",
+                                                                "/payment/webhook", "/terms",
                                                                 "/about", "/verify-email", "/forgot-password",
                                                                 "/reset-password", "/resend-verification",
                                                                 "/registration_success", "/api/reviews/vehicle/**")
                                                 .permitAll()
-                                                .requestMatchers("/admin/**").hasRole("ADMIN")
+                                                .requestMatchers("/actuator/health").permitAll()
+                                                .requestMatchers("/admin/**", "/actuator/**").hasRole("ADMIN")
                                                 .anyRequest().authenticated())
                                 .formLogin(form -> form
                                                 .loginPage("/login")
@@ -62,7 +64,7 @@ public class SecurityConfig {
                                                 .logoutSuccessUrl("/login?logout")
                                                 .permitAll())
                                 .csrf(csrf -> csrf.ignoringRequestMatchers("/api/reservations/**", "/api/support/**",
-                                                "/api/reviews/**"));
+                                                "/api/reviews/**", "/payment/webhook"));
                 return http.build();
         }
 }
\ No newline at end of file
@@ -1,13 +1,18 @@
 package com.example.web_based_vehicle_rental.controller;
 
+import com.example.web_based_vehicle_rental.model.PricingRule;
 import com.example.web_based_vehicle_rental.model.User;
 import com.example.web_based_vehicle_rental.model.Vehicle;
 import com.example.web_based_vehicle_rental.service.AdminService;
+import com.example.web_based_vehicle_rental.service.FleetOccupancyService;
+import com.example.web_based_vehicle_rental.service.PricingRuleService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,9 +23,14 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final FleetOccupancyService fleetOccupancyService;
+    private final PricingRuleService pricingRuleService;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, FleetOccupancyService fleetOccupancyService,
+            PricingRuleService pricingRuleService) {
         this.adminService = adminService;
+        this.fleetOccupancyService = fleetOccupancyService;
+        this.pricingRuleService = pricingRuleService;
     }
 
     // User Management Endpoints
@@ -144,6 +154,19 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getOverdueReservations());
     }
 
+    @GetMapping("/reports/occupancy")
+    public ResponseEntity<?> getFleetOccupancy(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "days", defaultValue = "30") int days,
+            @RequestParam(value = "type", required = false) String type) {
+        try {
+            return ResponseEntity.ok(fleetOccupancyService.getOccupancy(from != null ? from : LocalDate.now(), days,
+                    type));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // Reservation Management Endpoints
 
     @GetMapping("/reservations")
@@ -167,6 +190,41 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    // Pricing Rule Endpoints
+
+    @GetMapping("/pricing-rules")
+    public ResponseEntity<List<PricingRule>> getPricingRules() {
+        return ResponseEntity.ok(pricingRuleService.getAllRules());
+    }
+
+    @PostMapping("/pricing-rules")
+    public ResponseEntity<?> createPricingRule(@RequestBody PricingRule rule) {
+        try {
+            return ResponseEntity.ok(pricingRuleService.createRule(rule));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/pricing-rules/{id}")
+    public ResponseEntity<?> updatePricingRule(@PathVariable Long id, @RequestBody PricingRule rule) {
+        try {
+            return ResponseEntity.ok(pricingRuleService.updateRule(id, rule));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/pricing-rules/{id}")
+    public ResponseEntity<?> deletePricingRule(@PathVariable Long id) {
+        try {
+            pricingRuleService.deleteRule(id);
+            return ResponseEntity.ok("Pricing rule deleted successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Vehicle Image Management Endpoints
 
     @PostMapping("/vehicles/{id}/images")
@@ -1,6 +1,7 @@
 package com.example.web_based_vehicle_rental.controller;
 
 import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.service.PricingEngine;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,9 +14,12 @@ import java.time.temporal.ChronoUnit;
 public class BrowseViewController {
 
     private final com.example.web_based_vehicle_rental.repository.VehicleRepository vehicleRepository;
+    private final PricingEngine pricingEngine;
 
-    public BrowseViewController(com.example.web_based_vehicle_rental.repository.VehicleRepository vehicleRepository) {
+    public BrowseViewController(com.example.web_based_vehicle_rental.repository.VehicleRepository vehicleRepository,
+            PricingEngine pricingEngine) {
         this.vehicleRepository = vehicleRepository;
+        this.pricingEngine = pricingEngine;
     }
 
     @GetMapping("/browse")
@@ -34,7 +38,7 @@ public class BrowseViewController {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
         long days = ChronoUnit.DAYS.between(start, end) + 1;
-        double totalPrice = vehicle.getDailyPrice() * days;
+        double totalPrice = pricingEngine.quote(vehicle, start, end);
 
         model.addAttribute("vehicle", vehicle);
         model.addAttribute("startDate", startDate);
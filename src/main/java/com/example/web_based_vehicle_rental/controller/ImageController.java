@@ -0,0 +1,265 @@
+package com.example.web_based_vehicle_rental.controller;
+
+import com.example.web_based_vehicle_rental.service.BlobStorage;
+import com.example.web_based_vehicle_rental.service.ImageStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves uploaded vehicle images under /images/ and support screenshots under
+ * /uploads/. When the {@link BlobStorage} keeps them off this machine the
+ * browser is redirected to the storage's own URL instead, so the bytes never
+ * pass through the application.
+ *
+ * Every response carries an ETag and Last-Modified and answers conditional
+ * requests with 304; a single byte range is served as 206. Content-addressed
+ * images are cached by browsers for a year without revalidation.
+ *
+ * Small files (thumbnails and cards, the bulk of requests) are answered from
+ * a byte-bounded in-memory cache whose admission policy keeps the most
+ * requested ones. Larger files are handed to Tomcat's sendfile, which copies
+ * them to the socket with {@code FileChannel.transferTo} after this handler
+ * returns, or streamed with {@code transferTo} where sendfile is unavailable.
+ */
+@Controller
+public class ImageController {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Originals named by their digest and the renditions made from them
+    private static final String CONTENT_ADDRESSED_PREFIX = ImageStore.URL_PREFIX + ImageStore.CONTENT_DIRECTORY + "/";
+    private static final CacheControl CONTENT_ADDRESSED = CacheControl.maxAge(Duration.ofDays(365)).cachePublic()
+            .immutable();
+    // Older uploads have unique names too, but nothing guarantees their bytes never change
+    private static final CacheControl UPLOADED = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+    private static final CacheControl SCREENSHOT = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+    // Well inside the lifetime of a presigned URL
+    private static final CacheControl REDIRECT = CacheControl.maxAge(Duration.ofMinutes(5));
+    private static final Pattern BYTE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private final BlobStorage blobStorage;
+    private final long maxCachedFileBytes;
+    private final Cache<Path, CachedImage> hotImages;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public ImageController(BlobStorage blobStorage,
+            @Value("${images.hot-cache.max-bytes:33554432}") long hotCacheMaxBytes,
+            @Value("${images.hot-cache.max-file-bytes:262144}") long maxCachedFileBytes) {
+        this.blobStorage = blobStorage;
+        this.maxCachedFileBytes = maxCachedFileBytes;
+        this.hotImages = Caffeine.newBuilder()
+                .maximumWeight(hotCacheMaxBytes)
+                .<Path, CachedImage>weigher((file, image) -> image.bytes().length)
+                .build();
+    }
+
+    @RequestMapping(value = { "/images/**", "/uploads/**" }, method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String url = urlPathHelper.getPathWithinApplication(request);
+        String key;
+        Path file;
+        try {
+            key = BlobStorage.checkKey(url.substring(1));
+            file = blobStorage.localFile(key);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!isPublished(key)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (file == null) {
+            URI direct = blobStorage.directUrl(key);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REDIRECT.getHeaderValue());
+            response.sendRedirect(direct.toString());
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String eTag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControlFor(url).getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long length = size;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request.getHeader(HttpHeaders.IF_RANGE), eTag, lastModified)) {
+            long[] bounds = parseRange(range, size);
+            if (bounds != null && bounds.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                length = bounds[1] - bounds[0] + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+            }
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(length);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        send(request, response, file, size, lastModified, start, length);
+    }
+
+    private void send(HttpServletRequest request, HttpServletResponse response, Path file, long size,
+            long lastModified, long start, long length) throws IOException {
+        if (size <= maxCachedFileBytes) {
+            CachedImage hot = hotImages.getIfPresent(file);
+            if (hot == null || hot.size() != size || hot.lastModified() != lastModified) {
+                byte[] bytes = Files.readAllBytes(file);
+                hot = new CachedImage(size, lastModified, bytes);
+                if (bytes.length == size) { // otherwise it changed after it was examined; do not keep it
+                    hotImages.put(file, hot);
+                }
+            }
+            if (hot.bytes().length >= start + length) {
+                response.getOutputStream().write(hot.bytes(), (int) start, (int) length);
+                return;
+            }
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break; // the file shrank; the client sees a short body
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static CacheControl cacheControlFor(String url) {
+        if (url.startsWith(CONTENT_ADDRESSED_PREFIX)) {
+            return CONTENT_ADDRESSED;
+        }
+        return url.startsWith(ImageStore.URL_PREFIX) ? UPLOADED : SCREENSHOT;
+    }
+
+    /**
+     * Files still being written (hidden temporary names) are not served
+     */
+    private static boolean isPublished(String key) {
+        for (String segment : key.split("/")) {
+            if (segment.startsWith(".")) {
+                return false;
+            }
+        }
+        return !key.endsWith(".tmp");
+    }
+
+    /**
+     * A Range is honoured unless If-Range names a different version of the file
+     */
+    static boolean rangeApplies(String ifRange, String eTag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            // HTTP dates have whole seconds
+            return parseHttpDate(ifRange) == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The first and last byte of a single range, an empty array when it cannot be satisfied, or null
+     * for a header to ignore (several ranges or malformed) so the whole file is sent
+     */
+    static long[] parseRange(String header, long size) {
+        Matcher matcher = BYTE_RANGE.matcher(header.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        try {
+            if (matcher.group(1).isEmpty()) {
+                long suffix = Long.parseLong(matcher.group(2));
+                return suffix == 0 || size == 0 ? new long[0] : new long[] { Math.max(0, size - suffix), size - 1 };
+            }
+            long first = Long.parseLong(matcher.group(1));
+            long last = matcher.group(2).isEmpty() ? Long.MAX_VALUE : Long.parseLong(matcher.group(2));
+            if (last < first) {
+                return null;
+            }
+            return first >= size ? new long[0] : new long[] { first, Math.min(last, size - 1) };
+        } catch (NumberFormatException e) {
+            return null; // more digits than a long holds
+        }
+    }
+
+    private static long parseHttpDate(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_RANGE, value);
+        return headers.getFirstDate(HttpHeaders.IF_RANGE);
+    }
+
+    private record CachedImage(long size, long lastModified, byte[] bytes) {
+    }
+}
@@ -1,26 +1,33 @@
 package com.example.web_based_vehicle_rental.controller;
 
-import com.example.web_based_vehicle_rental.model.Payment;
 import com.example.web_based_vehicle_rental.model.Reservation;
-import com.example.web_based_vehicle_rental.model.ReservationStatus;
-import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.service.ReservationService;
 import com.example.web_based_vehicle_rental.service.StripeService;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.exception.StripeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Controller
 @RequestMapping("/payment")
 public class PaymentController {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
+
+    private final ReservationService reservationService;
     private final StripeService stripeService;
-    private final ReservationRepository reservationRepository;
 
     @Autowired
-    public PaymentController(StripeService stripeService, ReservationRepository reservationRepository) {
+    public PaymentController(ReservationService reservationService, StripeService stripeService) {
+        this.reservationService = reservationService;
         this.stripeService = stripeService;
-        this.reservationRepository = reservationRepository;
     }
 
     // Handle successful payment callback from Stripe
@@ -28,18 +35,14 @@ public class PaymentController {
     @GetMapping("/success")
     public String paymentSuccess(@RequestParam("session_id") String sessionId, Model model) {
         try {
-            // Verify the payment with Stripe
-            Payment payment = stripeService.verifyPayment(sessionId);
-
-            // Update reservation status to CONFIRMED
-            Reservation reservation = payment.getReservation();
-            reservation.setStatus(ReservationStatus.CONFIRMED);
-            reservation.setPayment(payment);
-            reservationRepository.save(reservation);
+            // Verify the payment with Stripe and book the held vehicles (one reservation each)
+            List<Reservation> reservations = reservationService.confirmCheckout(sessionId);
 
             // Add details to model for display
-            model.addAttribute("reservation", reservation);
-            model.addAttribute("payment", payment);
+            model.addAttribute("reservation", reservations.get(0));
+            model.addAttribute("payment", reservations.get(0).getPayment());
+            model.addAttribute("vehicleCount", reservations.size());
+            model.addAttribute("amountPaid", reservations.stream().mapToDouble(Reservation::getTotalPrice).sum());
             model.addAttribute("success", true);
 
             return "payment_success";
@@ -49,6 +52,39 @@ public class PaymentController {
         }
     }
 
+    // Book a paid checkout reported by Stripe, for customers who never reach the success page.
+    // Confirming is idempotent, so it does not matter which of the two arrives first. Failures that
+    // retrying cannot fix are acknowledged; anything else answers 500 so Stripe delivers it again.
+
+    @PostMapping("/webhook")
+    @ResponseBody
+    public ResponseEntity<Void> stripeWebhook(@RequestBody String payload,
+            @RequestHeader("Stripe-Signature") String signature) {
+        String sessionId;
+        try {
+            sessionId = stripeService.completedSessionId(payload, signature);
+        } catch (SignatureVerificationException e) {
+            logger.warn("Rejected a Stripe webhook with an invalid signature");
+            return ResponseEntity.badRequest().build();
+        } catch (StripeException e) {
+            logger.error("Failed to read a Stripe webhook", e);
+            return ResponseEntity.badRequest().build();
+        }
+        if (sessionId == null) {
+            return ResponseEntity.ok().build();
+        }
+        try {
+            reservationService.confirmCheckout(sessionId);
+        } catch (IllegalStateException e) {
+            // Not paid yet (an async payment reports again), or refunded because the dates were taken
+            logger.info("Checkout session {} not booked from the webhook: {}", sessionId, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Failed to book checkout session {} from the webhook", sessionId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
     // Handle cancelled payment
 
     @GetMapping("/cancel")
@@ -1,15 +1,30 @@
 package com.example.web_based_vehicle_rental.controller;
 
+import com.example.web_based_vehicle_rental.dto.VehicleSuggestion;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
 import com.example.web_based_vehicle_rental.model.Vehicle;
-import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.service.AdminService;
+import com.example.web_based_vehicle_rental.service.CatalogSnapshot;
+import com.example.web_based_vehicle_rental.service.CatalogStreams;
+import com.example.web_based_vehicle_rental.service.CatalogVersion;
+import com.example.web_based_vehicle_rental.service.VehicleAutocomplete;
+import com.example.web_based_vehicle_rental.service.VehicleCatalogService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @Controller
@@ -24,29 +39,101 @@ public class PublicVehicleViewController {
 @RestController
 class PublicVehicleApiController {
 
-    private final VehicleRepository vehicleRepository;
+    // Any cache may keep the catalog but must revalidate it; unchanged catalogs cost a 304
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+    private static final int MAX_SUGGESTIONS = 20;
 
-    public PublicVehicleApiController(VehicleRepository vehicleRepository) {
-        this.vehicleRepository = vehicleRepository;
+    private final AdminService adminService;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshot catalogSnapshot;
+    private final VehicleAutocomplete vehicleAutocomplete;
+    private final CatalogStreams catalogStreams;
+
+    public PublicVehicleApiController(AdminService adminService, VehicleCatalogService vehicleCatalogService,
+            CatalogVersion catalogVersion, CatalogSnapshot catalogSnapshot, VehicleAutocomplete vehicleAutocomplete,
+            CatalogStreams catalogStreams) {
+        this.adminService = adminService;
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshot = catalogSnapshot;
+        this.vehicleAutocomplete = vehicleAutocomplete;
+        this.catalogStreams = catalogStreams;
     }
 
     @GetMapping("/api/public/vehicles")
-    @Transactional(readOnly = true)
-    public List<Vehicle> getAllVehiclesPublic() {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        // Force initialization of images while session is open
-        vehicles.forEach(v -> v.getImages().size());
-        return vehicles;
+    public ResponseEntity<?> getAllVehiclesPublic(WebRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+        if (snapshot == null) {
+            catalogSnapshot.requestRebuild();
+            return catalogFromService(request);
+        }
+        // Answered from the snapshot alone: its tag, its bytes, no loading or serialization. Each encoding
+        // has its own strong tag, so a cache never takes one for the other
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String eTag = gzip ? snapshot.gzippedETag() : snapshot.eTag();
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CATALOG_CACHE_CONTROL).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzippedJson());
+        }
+        return response.body(snapshot.json());
+    }
+
+    @GetMapping(value = "/api/public/vehicles", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllVehiclesPublic(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        if (!catalogStreams.tryWrite(response.getOutputStream())) {
+            // The JSON catalog is served from memory; only streams are limited
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many catalog streams, try again shortly");
+        }
+    }
+
+    @GetMapping("/api/public/vehicles/suggestions")
+    public List<VehicleSuggestion> suggestVehicles(@RequestParam("q") String prefix,
+            @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return vehicleAutocomplete.suggest(prefix.stripLeading(), Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
     }
 
     @GetMapping("/api/public/vehicles/{id}")
-    @Transactional(readOnly = true)
     public ResponseEntity<Vehicle> getVehicleByIdPublic(@PathVariable @NonNull Long id) {
-        return vehicleRepository.findById(id)
-                .map(vehicle -> {
-                    vehicle.getImages().size(); // initialize images
-                    return ResponseEntity.ok(vehicle);
-                })
+        return adminService.getVehicleById(id)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    // Until the first snapshot is built
+    private ResponseEntity<List<VehicleSummary>> catalogFromService(WebRequest request) {
+        long version = catalogVersion.current();
+        String eTag = catalogVersion.eTag(version);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CATALOG_CACHE_CONTROL).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(vehicleCatalogService.getCatalog(version));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
@@ -1,10 +1,13 @@
 package com.example.web_based_vehicle_rental.controller;
 
-import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.dto.CheckoutSession;
+import com.example.web_based_vehicle_rental.dto.VehicleSearchPage;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
 import com.example.web_based_vehicle_rental.model.User;
-import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.service.CheckoutHold;
 import com.example.web_based_vehicle_rental.service.ReservationService;
 import com.example.web_based_vehicle_rental.repository.UserRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleSortField;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -15,11 +18,15 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/reservations")
 public class ReservationController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_ALTERNATIVES = 10;
+
     private final ReservationService reservationService;
     private final UserRepository userRepository;
 
@@ -30,14 +37,50 @@ public class ReservationController {
 
     @GetMapping("/search")
     @Transactional(readOnly = true)
-    public ResponseEntity<List<Vehicle>> searchVehicles(
+    public ResponseEntity<?> searchVehicles(
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "q", required = false) String query,
             @RequestParam(value = "type", required = false) String type,
             @RequestParam(value = "minPrice", required = false) Double minPrice,
-            @RequestParam(value = "maxPrice", required = false) Double maxPrice) {
-        return ResponseEntity.ok(
-                reservationService.searchAvailableVehiclesWithFilters(startDate, endDate, type, minPrice, maxPrice));
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "order", required = false) String order,
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "size", defaultValue = "12") int size) {
+        try {
+            boolean textSearch = query != null && !query.isBlank();
+            // Text searches rank best match first unless another order is asked for
+            VehicleSortField sortField = sort == null && textSearch
+                    ? VehicleSortField.RELEVANCE
+                    : VehicleSortField.fromParam(sort);
+            boolean descending = order != null
+                    ? "desc".equalsIgnoreCase(order)
+                    : sortField == VehicleSortField.RELEVANCE;
+            int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+            VehicleSearchPage<VehicleSummary> page = textSearch
+                    ? reservationService.searchVehiclesByText(startDate, endDate, query, type, minPrice, maxPrice,
+                            sortField, descending, pageToken, pageSize)
+                    : reservationService.searchAvailableVehiclesPage(startDate, endDate, type, minPrice, maxPrice,
+                            sortField, descending, pageToken, pageSize);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/alternatives")
+    public ResponseEntity<?> suggestAlternatives(
+            @RequestParam("vehicleId") Long vehicleId,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "count", defaultValue = "3") int count) {
+        try {
+            return ResponseEntity.ok(reservationService.suggestAlternatives(vehicleId, startDate, endDate,
+                    Math.min(Math.max(count, 1), MAX_ALTERNATIVES)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PostMapping("/create-checkout-session")
@@ -52,13 +95,37 @@ public class ReservationController {
             LocalDate startDate = LocalDate.parse(bookingRequest.get("startDate").toString());
             LocalDate endDate = LocalDate.parse(bookingRequest.get("endDate").toString());
 
-            // Create a temporary reservation for checkout
-            Reservation reservation = reservationService.createReservation(user, vehicleId, startDate, endDate);
+            // Hold the vehicle while the customer pays; it is booked once the payment succeeds
+            List<CheckoutHold> holds = reservationService.placeCheckoutHolds(user, List.of(vehicleId), startDate,
+                    endDate);
+            CheckoutSession checkout = reservationService.openCheckout(holds);
 
-            // Create Stripe checkout session
-            String checkoutUrl = reservationService.createPaymentCheckout(reservation);
+            return ResponseEntity.ok(Map.of("checkoutUrl", checkout.getCheckoutUrl(),
+                    "holdExpiresAt", checkout.getHoldExpiresAt()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/batch-checkout-session")
+    public ResponseEntity<?> createBatchCheckoutSession(@RequestBody Map<String, Object> bookingRequest) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User user = userRepository.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            Object rawIds = bookingRequest.get("vehicleIds");
+            if (!(rawIds instanceof List<?> ids)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "vehicleIds must be a list"));
+            }
+            List<Long> vehicleIds = ids.stream()
+                    .map(id -> id != null ? Long.valueOf(id.toString()) : null)
+                    .collect(Collectors.toList());
+            LocalDate startDate = LocalDate.parse(bookingRequest.get("startDate").toString());
+            LocalDate endDate = LocalDate.parse(bookingRequest.get("endDate").toString());
 
-            return ResponseEntity.ok(Map.of("checkoutUrl", checkoutUrl));
+            List<CheckoutHold> holds = reservationService.placeCheckoutHolds(user, vehicleIds, startDate, endDate);
+            return ResponseEntity.ok(reservationService.openCheckout(holds));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -19,16 +19,16 @@ public class ReservationViewController {
     public String showUserDashboard(Model model) {
         try {
             String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            java.util.List<com.example.web_based_vehicle_rental.model.Reservation> allReservations = userService
+            java.util.List<com.example.web_based_vehicle_rental.dto.ReservationSummary> allReservations = userService
                     .getUserReservations(username);
 
             java.time.LocalDate today = java.time.LocalDate.now();
 
-            java.util.List<com.example.web_based_vehicle_rental.model.Reservation> upcoming = new java.util.ArrayList<>();
-            java.util.List<com.example.web_based_vehicle_rental.model.Reservation> active = new java.util.ArrayList<>();
-            java.util.List<com.example.web_based_vehicle_rental.model.Reservation> past = new java.util.ArrayList<>();
+            java.util.List<com.example.web_based_vehicle_rental.dto.ReservationSummary> upcoming = new java.util.ArrayList<>();
+            java.util.List<com.example.web_based_vehicle_rental.dto.ReservationSummary> active = new java.util.ArrayList<>();
+            java.util.List<com.example.web_based_vehicle_rental.dto.ReservationSummary> past = new java.util.ArrayList<>();
 
-            for (com.example.web_based_vehicle_rental.model.Reservation r : allReservations) {
+            for (com.example.web_based_vehicle_rental.dto.ReservationSummary r : allReservations) {
                 if (r.getStatus() == com.example.web_based_vehicle_rental.model.ReservationStatus.CANCELLED) {
                     past.add(r);
                 } else if (r.getEndDate() != null && r.getEndDate().isBefore(today)) {
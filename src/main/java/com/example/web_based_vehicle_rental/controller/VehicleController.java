@@ -1,41 +1,73 @@
 package com.example.web_based_vehicle_rental.controller;
 
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
 import com.example.web_based_vehicle_rental.model.Vehicle;
-import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.service.AdminService;
+import com.example.web_based_vehicle_rental.service.CatalogStreams;
+import com.example.web_based_vehicle_rental.service.CatalogVersion;
+import com.example.web_based_vehicle_rental.service.VehicleCatalogService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/vehicles")
 public class VehicleController {
 
-    private final VehicleRepository vehicleRepository;
+    // Any cache may keep the catalog but must revalidate it; unchanged catalogs cost a 304
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
 
-    public VehicleController(VehicleRepository vehicleRepository) {
-        this.vehicleRepository = vehicleRepository;
+    private final AdminService adminService;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogStreams catalogStreams;
+
+    public VehicleController(AdminService adminService, VehicleCatalogService vehicleCatalogService,
+            CatalogVersion catalogVersion, CatalogStreams catalogStreams) {
+        this.adminService = adminService;
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.catalogVersion = catalogVersion;
+        this.catalogStreams = catalogStreams;
     }
 
     @GetMapping("")
-    @Transactional(readOnly = true)
-    public List<Vehicle> getAllVehicles() {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        // Force initialization of images while session is open
-        vehicles.forEach(v -> v.getImages().size());
-        return vehicles;
+    public ResponseEntity<List<VehicleSummary>> getAllVehicles(WebRequest request) {
+        // Revalidation is answered from the version counter alone, before the catalog is loaded
+        long version = catalogVersion.current();
+        String eTag = catalogVersion.eTag(version);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CATALOG_CACHE_CONTROL).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(vehicleCatalogService.getCatalog(version));
+    }
+
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllVehicles(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        // Shares the public stream limit: each stream holds a pooled connection while it is read
+        if (!catalogStreams.tryWrite(response.getOutputStream())) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many catalog streams, try again shortly");
+        }
     }
 
     @GetMapping("/{id}")
-    @Transactional(readOnly = true)
     public ResponseEntity<Vehicle> getVehicleById(@PathVariable @NonNull Long id) {
-        return vehicleRepository.findById(id)
-                .map(vehicle -> {
-                    vehicle.getImages().size(); // initialize images
-                    return ResponseEntity.ok(vehicle);
-                })
+        return adminService.getVehicleById(id)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Suggestions for a booking whose dates are taken: free windows of the same
+ * length for the same vehicle, nearest first on each side of the requested
+ * dates, and other vehicles of the same type that are free for those dates.
+ */
+public class BookingAlternatives {
+
+    private final Long vehicleId;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final List<DateWindow> earlier;
+    private final List<DateWindow> later;
+    private final List<VehicleSummary> similarVehicles;
+
+    public BookingAlternatives(Long vehicleId, LocalDate startDate, LocalDate endDate, List<DateWindow> earlier,
+            List<DateWindow> later, List<VehicleSummary> similarVehicles) {
+        this.vehicleId = vehicleId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.earlier = earlier;
+        this.later = later;
+        this.similarVehicles = similarVehicles;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<DateWindow> getEarlier() {
+        return earlier;
+    }
+
+    public List<DateWindow> getLater() {
+        return later;
+    }
+
+    public List<VehicleSummary> getSimilarVehicles() {
+        return similarVehicles;
+    }
+
+    public static class DateWindow {
+
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+
+        public DateWindow(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+    }
+}
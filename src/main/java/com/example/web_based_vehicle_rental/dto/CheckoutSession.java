@@ -0,0 +1,39 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A checkout in progress: the vehicles held for it, the single Stripe
+ * checkout session that pays for all of them, and when the hold lapses.
+ */
+public class CheckoutSession {
+
+    private final List<Long> vehicleIds;
+    private final double totalPrice;
+    private final String checkoutUrl;
+    private final Instant holdExpiresAt;
+
+    public CheckoutSession(List<Long> vehicleIds, double totalPrice, String checkoutUrl, Instant holdExpiresAt) {
+        this.vehicleIds = vehicleIds;
+        this.totalPrice = totalPrice;
+        this.checkoutUrl = checkoutUrl;
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public List<Long> getVehicleIds() {
+        return vehicleIds;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public String getCheckoutUrl() {
+        return checkoutUrl;
+    }
+
+    public Instant getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-day fleet occupancy over [from, to]. Each series holds one entry per
+ * day, index 0 being {@code from}: vehicles booked by CONFIRMED reservations
+ * and vehicles still free out of the type's bookable fleet.
+ */
+public class FleetOccupancy {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final List<Series> types;
+    private final Series total;
+
+    public FleetOccupancy(LocalDate from, LocalDate to, List<Series> types, Series total) {
+        this.from = from;
+        this.to = to;
+        this.types = types;
+        this.total = total;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public List<Series> getTypes() {
+        return types;
+    }
+
+    public Series getTotal() {
+        return total;
+    }
+
+    public static class Series {
+
+        private final String type;
+        private final long fleetSize;
+        private final int[] booked;
+        private final int[] free;
+
+        public Series(String type, long fleetSize, int[] booked, int[] free) {
+            this.type = type;
+            this.fleetSize = fleetSize;
+            this.booked = booked;
+            this.free = free;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getFleetSize() {
+            return fleetSize;
+        }
+
+        public int[] getBooked() {
+            return booked;
+        }
+
+        public int[] getFree() {
+            return free;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable view of a reservation with what the user dashboard renders,
+ * built by a JPQL constructor expression. Safe to cache and share between
+ * requests, unlike the entity and its vehicle, user and payment graph.
+ */
+public class ReservationSummary {
+
+    private final Long id;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Double totalPrice;
+    private final ReservationStatus status;
+    private final VehicleCard vehicle;
+
+    public ReservationSummary(Long id, LocalDate startDate, LocalDate endDate, Double totalPrice,
+            ReservationStatus status, Long vehicleId, String brand, String model, String type, String imageUrl) {
+        this.id = id;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.totalPrice = totalPrice;
+        this.status = status;
+        this.vehicle = vehicleId != null ? new VehicleCard(brand, model, type, imageUrl) : null;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public Double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * The reserved vehicle, or null if it no longer exists
+     */
+    public VehicleCard getVehicle() {
+        return vehicle;
+    }
+
+    public static final class VehicleCard {
+
+        private final String brand;
+        private final String model;
+        private final String type;
+        private final String imageUrl;
+
+        VehicleCard(String brand, String model, String type, String imageUrl) {
+            this.brand = brand;
+            this.model = model;
+            this.type = type;
+            this.imageUrl = imageUrl;
+        }
+
+        public String getBrand() {
+            return brand;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts over the vehicles available for a date range: vehicles per
+ * type, a price histogram of fixed-width buckets (empty buckets omitted) and
+ * the range of model years. Both year bounds are null when nothing is free.
+ */
+public class SearchFacets {
+
+    private final long total;
+    private final Map<String, Long> types;
+    private final List<PriceBucket> priceHistogram;
+    private final Integer minYear;
+    private final Integer maxYear;
+
+    public SearchFacets(long total, Map<String, Long> types, List<PriceBucket> priceHistogram, Integer minYear,
+            Integer maxYear) {
+        this.total = total;
+        this.types = types;
+        this.priceHistogram = priceHistogram;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<String, Long> getTypes() {
+        return types;
+    }
+
+    public List<PriceBucket> getPriceHistogram() {
+        return priceHistogram;
+    }
+
+    public Integer getMinYear() {
+        return minYear;
+    }
+
+    public Integer getMaxYear() {
+        return maxYear;
+    }
+
+    /**
+     * Vehicles priced in [from, to)
+     */
+    public static class PriceBucket {
+
+        private final double from;
+        private final double to;
+        private final long count;
+
+        public PriceBucket(double from, double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public double getFrom() {
+            return from;
+        }
+
+        public double getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import java.util.List;
+
+/**
+ * One page of an availability search.
+ *
+ * {@code nextPageToken} is null once the results are exhausted.
+ * {@code totalEstimate} is only computed for the first page (null afterwards):
+ * it is the number of vehicles matching the filters scaled by the share found
+ * free while filling the page, and exact when everything fit on one page.
+ * {@code facets} likewise only accompanies the first page.
+ */
+public class VehicleSearchPage<T> {
+
+    private final List<T> items;
+    private final String nextPageToken;
+    private final Long totalEstimate;
+    private final SearchFacets facets;
+
+    public VehicleSearchPage(List<T> items, String nextPageToken, Long totalEstimate) {
+        this(items, nextPageToken, totalEstimate, null);
+    }
+
+    public VehicleSearchPage(List<T> items, String nextPageToken, Long totalEstimate, SearchFacets facets) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+        this.totalEstimate = totalEstimate;
+        this.facets = facets;
+    }
+
+    public VehicleSearchPage<T> withFacets(SearchFacets facets) {
+        return new VehicleSearchPage<>(items, nextPageToken, totalEstimate, facets);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public Long getTotalEstimate() {
+        return totalEstimate;
+    }
+
+    public SearchFacets getFacets() {
+        return facets;
+    }
+}
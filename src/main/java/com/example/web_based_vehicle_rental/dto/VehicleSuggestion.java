@@ -0,0 +1,34 @@
+package com.example.web_based_vehicle_rental.dto;
+
+/**
+ * One autocomplete suggestion: a brand ("Toyota") or a brand and model
+ * ("Toyota Prius"), with the number of rentable vehicles it covers.
+ */
+public class VehicleSuggestion {
+
+    public enum Kind {
+        BRAND, MODEL
+    }
+
+    private final String text;
+    private final Kind kind;
+    private final int count;
+
+    public VehicleSuggestion(String text, Kind kind, int count) {
+        this.text = text;
+        this.kind = kind;
+        this.count = count;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.web_based_vehicle_rental.dto;
+
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Read-side view of a vehicle with only the fields the catalog and search
+ * cards render. Built directly by JPQL/Criteria constructor expressions, so
+ * no entity or image collection is ever loaded for it.
+ */
+public class VehicleSummary {
+
+    private final Long id;
+    private final String brand;
+    private final String model;
+    private final int year;
+    private final String type;
+    private final Double dailyPrice;
+    private final VehicleStatus status;
+    private String primaryImageUrl;
+    // The primary image resized for cards, once the image pipeline has made it
+    private String cardImageUrl;
+
+    // Only on search results: the price for the searched dates and its average per day
+    private Double quotedPrice;
+    private Double effectiveDailyPrice;
+    // Only on text search results: how well the vehicle matches the query, from 0 to 1
+    private Double relevance;
+
+    public VehicleSummary(Long id, String brand, String model, int year, String type, Double dailyPrice,
+            VehicleStatus status, String imageUrl) {
+        this.id = id;
+        this.brand = brand;
+        this.model = model;
+        this.year = year;
+        this.type = type;
+        this.dailyPrice = dailyPrice;
+        this.status = status;
+        this.primaryImageUrl = imageUrl; // replaced by the primary gallery image when there is one
+    }
+
+    public VehicleSummary(Long id, String brand, String model, int year, String type, Double dailyPrice,
+            VehicleStatus status, String imageUrl, String cardImageUrl) {
+        this(id, brand, model, year, type, dailyPrice, status, imageUrl);
+        this.cardImageUrl = cardImageUrl;
+    }
+
+    /**
+     * Copy carrying the quote for a search's dates. Cached summaries are shared between searches,
+     * so they are copied rather than modified.
+     */
+    public VehicleSummary withQuote(double quotedPrice, long days) {
+        VehicleSummary quoted = new VehicleSummary(id, brand, model, year, type, dailyPrice, status,
+                primaryImageUrl, cardImageUrl);
+        quoted.relevance = relevance;
+        quoted.quotedPrice = quotedPrice;
+        quoted.effectiveDailyPrice = Math.round(quotedPrice / days * 100) / 100.0;
+        return quoted;
+    }
+
+    /**
+     * Copy carrying a text search relevance, leaving the indexed summary untouched
+     */
+    public VehicleSummary withRelevance(double relevance) {
+        VehicleSummary ranked = new VehicleSummary(id, brand, model, year, type, dailyPrice, status,
+                primaryImageUrl, cardImageUrl);
+        ranked.relevance = relevance;
+        return ranked;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Double getDailyPrice() {
+        return dailyPrice;
+    }
+
+    public VehicleStatus getStatus() {
+        return status;
+    }
+
+    public String getPrimaryImageUrl() {
+        return primaryImageUrl;
+    }
+
+    public void setPrimaryImageUrl(String primaryImageUrl) {
+        this.primaryImageUrl = primaryImageUrl;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getCardImageUrl() {
+        return cardImageUrl;
+    }
+
+    public void setCardImageUrl(String cardImageUrl) {
+        this.cardImageUrl = cardImageUrl;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Double getQuotedPrice() {
+        return quotedPrice;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Double getEffectiveDailyPrice() {
+        return effectiveDailyPrice;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Double getRelevance() {
+        return relevance;
+    }
+}
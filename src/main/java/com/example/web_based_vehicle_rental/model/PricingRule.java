@@ -0,0 +1,122 @@
+package com.example.web_based_vehicle_rental.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * A price adjustment: the daily price is multiplied by {@code multiplier} on the days (or, for
+ * LONG_RENTAL, the rentals) the rule covers. A null vehicle type applies to every type.
+ */
+@Entity
+public class PricingRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotEmpty(message = "Name cannot be empty")
+    private String name;
+
+    @NotNull(message = "Kind cannot be null")
+    @Enumerated(EnumType.STRING)
+    private PricingRuleKind kind;
+
+    private String vehicleType;
+
+    @NotNull(message = "Multiplier cannot be null")
+    private Double multiplier;
+
+    // SEASONAL only
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    // LONG_RENTAL only
+    private Integer minDays;
+
+    private boolean active = true;
+
+    public PricingRule() {
+    }
+
+    public PricingRule(String name, PricingRuleKind kind, String vehicleType, Double multiplier) {
+        this.name = name;
+        this.kind = kind;
+        this.vehicleType = vehicleType;
+        this.multiplier = multiplier;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public PricingRuleKind getKind() {
+        return kind;
+    }
+
+    public void setKind(PricingRuleKind kind) {
+        this.kind = kind;
+    }
+
+    public String getVehicleType() {
+        return vehicleType;
+    }
+
+    public void setVehicleType(String vehicleType) {
+        this.vehicleType = vehicleType;
+    }
+
+    public Double getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(Double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public Integer getMinDays() {
+        return minDays;
+    }
+
+    public void setMinDays(Integer minDays) {
+        this.minDays = minDays;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+}
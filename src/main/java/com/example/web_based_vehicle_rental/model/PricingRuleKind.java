@@ -0,0 +1,7 @@
+package com.example.web_based_vehicle_rental.model;
+
+public enum PricingRuleKind {
+    WEEKEND,     // Saturdays and Sundays
+    SEASONAL,    // Every day from startDate to endDate
+    LONG_RENTAL  // The whole rental, when it lasts at least minDays
+}
@@ -0,0 +1,96 @@
+package com.example.web_based_vehicle_rental.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One file in the content-addressed image store, named by the SHA-256 of its
+ * bytes. {@code refCount} is the number of uploads that produced it; the file
+ * is deleted when the last of them is released. {@code storedAt} is the time
+ * of the latest of those uploads.
+ *
+ * A new row is always inserted, never merged, so a second instance filing the
+ * same content at the same moment fails on the key instead of overwriting the
+ * count.
+ */
+@Entity
+@Table(name = "stored_images")
+public class StoredImage implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    @Column(nullable = false)
+    private String url;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime storedAt;
+
+    @Transient
+    private boolean isNew;
+
+    public StoredImage() {
+    }
+
+    public StoredImage(String digest, String url, long size) {
+        this.digest = digest;
+        this.url = url;
+        this.size = size;
+        this.refCount = 1;
+        this.storedAt = LocalDateTime.now();
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return digest;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getStoredAt() {
+        return storedAt;
+    }
+
+    public void setStoredAt(LocalDateTime storedAt) {
+        this.storedAt = storedAt;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,8 +17,14 @@ import java.util.List;
         @Index(name = "idx_vehicle_price", columnList = "daily_price"),
         @Index(name = "idx_vehicle_status_type", columnList = "status, type")
 })
+@NamedEntityGraph(name = Vehicle.WITH_IMAGES, attributeNodes = @NamedAttributeNode("images"))
 public class Vehicle {
 
+    /**
+     * Entity graph that loads the gallery with the vehicle, for the detail views that show it
+     */
+    public static final String WITH_IMAGES = "Vehicle.images";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -47,7 +54,10 @@ public class Vehicle {
     @Min(value = 0, message = "Price must be positive")
     private Double dailyPrice;
 
-    @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Lazy so reservations, invoices and searches do not drag the gallery along; when a list of
+    // vehicles does need it, the galleries of up to 50 of them load in one statement
+    @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JsonManagedReference
     private List<VehicleImage> images = new ArrayList<>();
 
@@ -172,4 +182,21 @@ public class Vehicle {
         }
         return imageUrl; // Fallback to old imageUrl field
     }
+
+    // Thumbnail rendition of the primary gallery image, for lists that show vehicles small
+    @com.fasterxml.jackson.annotation.JsonProperty("thumbnailUrl")
+    public String getThumbnailUrl() {
+        try {
+            if (images != null && !images.isEmpty()) {
+                return images.stream()
+                        .filter(VehicleImage::getIsPrimary)
+                        .findFirst()
+                        .map(VehicleImage::getThumbnailUrl)
+                        .orElse(null);
+            }
+        } catch (Exception e) {
+            // Handle lazy loading exception gracefully
+        }
+        return null;
+    }
 }
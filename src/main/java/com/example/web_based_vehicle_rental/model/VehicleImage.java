@@ -26,6 +26,13 @@ public class VehicleImage {
     @Column(nullable = false)
     private LocalDateTime uploadedAt;
 
+    // Smaller copies written by ImageRenditionPipeline after upload; null until it has run
+    private String thumbnailUrl;
+
+    private String cardUrl;
+
+    private String detailUrl;
+
     public VehicleImage() {
         this.uploadedAt = LocalDateTime.now();
         this.isPrimary = false;
@@ -78,4 +85,28 @@ public class VehicleImage {
     public void setUploadedAt(LocalDateTime uploadedAt) {
         this.uploadedAt = uploadedAt;
     }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getCardUrl() {
+        return cardUrl;
+    }
+
+    public void setCardUrl(String cardUrl) {
+        this.cardUrl = cardUrl;
+    }
+
+    public String getDetailUrl() {
+        return detailUrl;
+    }
+
+    public void setDetailUrl(String detailUrl) {
+        this.detailUrl = detailUrl;
+    }
 }
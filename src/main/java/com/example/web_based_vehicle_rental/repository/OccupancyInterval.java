@@ -0,0 +1,18 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Booked date range of a reservation together with its vehicle type, for
+ * fleet occupancy reports.
+ */
+public interface OccupancyInterval {
+
+    Long getReservationId();
+
+    String getVehicleType();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+}
@@ -14,6 +14,9 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     Optional<Payment> findByStripeSessionId(String stripeSessionId);
 
+    // A batch booking shares one checkout session across one payment per reservation
+    List<Payment> findAllByStripeSessionId(String stripeSessionId);
+
     Optional<Payment> findByReservationId(Long reservationId);
 
     List<Payment> findByStatus(PaymentStatus status);
@@ -0,0 +1,13 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.model.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+
+    List<PricingRule> findByActiveTrue();
+}
@@ -0,0 +1,16 @@
+package com.example.web_based_vehicle_rental.repository;
+
+/**
+ * Projection of a vehicle's primary gallery image URL
+ */
+public interface PrimaryImageUrl {
+
+    Long getVehicleId();
+
+    String getImageUrl();
+
+    /**
+     * The catalog card rendition, or null until the image pipeline has made it
+     */
+    String getCardUrl();
+}
@@ -0,0 +1,18 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight projection of a reservation's booked date range, used to build
+ * in-memory availability structures without loading full entities.
+ */
+public interface ReservationInterval {
+
+    Long getId();
+
+    Long getVehicleId();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+}
@@ -7,9 +7,13 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, ReservationRepositoryCustom {
     List<Reservation> findByUserId(Long userId);
 
+    @org.springframework.data.jpa.repository.Query("SELECT new com.example.web_based_vehicle_rental.dto.ReservationSummary(r.id, r.startDate, r.endDate, r.totalPrice, r.status, v.id, v.brand, v.model, v.type, v.imageUrl) FROM Reservation r LEFT JOIN r.vehicle v WHERE r.user.id = :userId ORDER BY r.id")
+    List<com.example.web_based_vehicle_rental.dto.ReservationSummary> findSummariesByUserId(
+            @org.springframework.data.repository.query.Param("userId") Long userId);
+
     @org.springframework.data.jpa.repository.Query("SELECT YEAR(r.startDate), MONTH(r.startDate), SUM(r.totalPrice) FROM Reservation r WHERE r.status = com.example.web_based_vehicle_rental.model.ReservationStatus.CONFIRMED OR r.status = com.example.web_based_vehicle_rental.model.ReservationStatus.COMPLETED GROUP BY YEAR(r.startDate), MONTH(r.startDate) ORDER BY YEAR(r.startDate) DESC, MONTH(r.startDate) DESC")
     List<Object[]> findIncomeByMonth();
 
@@ -21,8 +25,45 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
             @org.springframework.data.repository.query.Param("today") java.time.LocalDate today,
             @org.springframework.data.repository.query.Param("statuses") List<com.example.web_based_vehicle_rental.model.ReservationStatus> statuses);
 
-    @org.springframework.data.jpa.repository.Query("SELECT r FROM Reservation r WHERE r.endDate < :today AND r.status = :status")
+    // The completion job logs each renter and vehicle, so they come back in the same statement, as does
+    // the payment, which Hibernate would otherwise look up once per reservation
+    @org.springframework.data.jpa.repository.Query("SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.vehicle LEFT JOIN FETCH r.payment WHERE r.endDate < :today AND r.status = :status")
     List<Reservation> findExpiredReservationsByStatus(
             @org.springframework.data.repository.query.Param("today") java.time.LocalDate today,
             @org.springframework.data.repository.query.Param("status") com.example.web_based_vehicle_rental.model.ReservationStatus status);
+
+    @org.springframework.data.jpa.repository.Query("SELECT r.id FROM Reservation r WHERE r.vehicle.id = :vehicleId AND r.status = com.example.web_based_vehicle_rental.model.ReservationStatus.CONFIRMED AND r.startDate <= :endDate AND r.endDate >= :startDate")
+    List<Long> findConflictingReservationIds(
+            @org.springframework.data.repository.query.Param("vehicleId") Long vehicleId,
+            @org.springframework.data.repository.query.Param("startDate") java.time.LocalDate startDate,
+            @org.springframework.data.repository.query.Param("endDate") java.time.LocalDate endDate);
+
+    @org.springframework.data.jpa.repository.Query("SELECT DISTINCT r.vehicle.id FROM Reservation r WHERE r.vehicle.id IN :vehicleIds AND r.status = com.example.web_based_vehicle_rental.model.ReservationStatus.CONFIRMED AND r.startDate <= :endDate AND r.endDate >= :startDate")
+    List<Long> findBookedVehicleIds(
+            @org.springframework.data.repository.query.Param("vehicleIds") java.util.Collection<Long> vehicleIds,
+            @org.springframework.data.repository.query.Param("startDate") java.time.LocalDate startDate,
+            @org.springframework.data.repository.query.Param("endDate") java.time.LocalDate endDate);
+
+    // Booked vehicles, leaving out reservations paid by one checkout session (so confirming it twice is no conflict)
+    @org.springframework.data.jpa.repository.Query("SELECT DISTINCT r.vehicle.id FROM Reservation r WHERE r.vehicle.id IN :vehicleIds AND r.status = com.example.web_based_vehicle_rental.model.ReservationStatus.CONFIRMED AND r.startDate <= :endDate AND r.endDate >= :startDate AND NOT EXISTS (SELECT p.id FROM Payment p WHERE p.reservation = r AND p.stripeSessionId = :sessionId)")
+    List<Long> findBookedVehicleIdsExceptSession(
+            @org.springframework.data.repository.query.Param("vehicleIds") java.util.Collection<Long> vehicleIds,
+            @org.springframework.data.repository.query.Param("startDate") java.time.LocalDate startDate,
+            @org.springframework.data.repository.query.Param("endDate") java.time.LocalDate endDate,
+            @org.springframework.data.repository.query.Param("sessionId") String sessionId);
+
+    @org.springframework.data.jpa.repository.Query("SELECT r.id AS id, r.vehicle.id AS vehicleId, r.startDate AS startDate, r.endDate AS endDate FROM Reservation r WHERE r.status = :status")
+    List<ReservationInterval> findIntervalsByStatus(
+            @org.springframework.data.repository.query.Param("status") com.example.web_based_vehicle_rental.model.ReservationStatus status);
+
+    @org.springframework.data.jpa.repository.Query("SELECT r.id AS id, r.vehicle.id AS vehicleId, r.startDate AS startDate, r.endDate AS endDate FROM Reservation r WHERE r.vehicle.id = :vehicleId AND r.status = :status ORDER BY r.startDate")
+    List<ReservationInterval> findIntervalsByVehicleAndStatus(
+            @org.springframework.data.repository.query.Param("vehicleId") Long vehicleId,
+            @org.springframework.data.repository.query.Param("status") com.example.web_based_vehicle_rental.model.ReservationStatus status);
+
+    @org.springframework.data.jpa.repository.Query("SELECT r.id AS reservationId, r.vehicle.type AS vehicleType, r.startDate AS startDate, r.endDate AS endDate FROM Reservation r WHERE r.status = com.example.web_based_vehicle_rental.model.ReservationStatus.CONFIRMED AND r.startDate <= :to AND r.endDate >= :from AND (:type IS NULL OR r.vehicle.type = :type)")
+    List<OccupancyInterval> findConfirmedIntervalsInWindow(
+            @org.springframework.data.repository.query.Param("from") java.time.LocalDate from,
+            @org.springframework.data.repository.query.Param("to") java.time.LocalDate to,
+            @org.springframework.data.repository.query.Param("type") String type);
 }
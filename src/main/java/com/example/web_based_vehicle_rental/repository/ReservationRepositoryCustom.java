@@ -0,0 +1,17 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.model.Reservation;
+
+import java.util.List;
+
+/**
+ * Reservation writes that bypass the persistence context.
+ */
+public interface ReservationRepositoryCustom {
+
+    /**
+     * Insert new reservations as one JDBC batch in the current transaction and return their
+     * generated ids in input order. The entities themselves are not attached or updated.
+     */
+    List<Long> insertAll(List<Reservation> reservations);
+}
@@ -0,0 +1,64 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.model.Reservation;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link ReservationRepositoryCustom}. Reservation ids
+ * are IDENTITY columns, which Hibernate never batches, so bulk inserts go
+ * through JdbcTemplate on the transaction's connection instead.
+ */
+public class ReservationRepositoryImpl implements ReservationRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO reservation "
+            + "(user_id, vehicle_id, start_date, end_date, total_price, status) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> insertAll(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reservation reservation = reservations.get(i);
+                        ps.setLong(1, reservation.getUser().getId());
+                        ps.setLong(2, reservation.getVehicle().getId());
+                        ps.setDate(3, Date.valueOf(reservation.getStartDate()));
+                        ps.setDate(4, Date.valueOf(reservation.getEndDate()));
+                        ps.setDouble(5, reservation.getTotalPrice());
+                        ps.setString(6, reservation.getStatus().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reservations.size();
+                    }
+                }, keys);
+
+        List<Long> ids = new ArrayList<>(reservations.size());
+        for (Map<String, Object> row : keys.getKeyList()) {
+            // MySQL reports the key as GENERATED_KEY, PostgreSQL under the column name
+            ids.add(((Number) row.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+}
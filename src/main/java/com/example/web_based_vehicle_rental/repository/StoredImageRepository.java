@@ -0,0 +1,48 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.model.StoredImage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    /**
+     * Fetch a stored image with a write lock, held until the transaction ends, so that reference count
+     * changes from every instance sharing the database are serialized
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StoredImage s WHERE s.digest = :digest")
+    Optional<StoredImage> findByIdForUpdate(@Param("digest") String digest);
+
+    /**
+     * The URL of every image uploaded since the given time, read through a JDBC cursor. Must be consumed
+     * inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = VehicleRepository.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT s.url FROM StoredImage s WHERE s.storedAt >= :since")
+    Stream<String> streamUrlsStoredSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Every image last uploaded before the given time, read through a JDBC cursor. Must be consumed inside
+     * a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = VehicleRepository.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT s FROM StoredImage s WHERE s.storedAt < :before")
+    Stream<StoredImage> streamStoredBefore(@Param("before") LocalDateTime before);
+}
@@ -3,10 +3,15 @@ package com.example.web_based_vehicle_rental.repository;
 import com.example.web_based_vehicle_rental.model.SupportRequest;
 import com.example.web_based_vehicle_rental.model.SupportStatus;
 import com.example.web_based_vehicle_rental.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface SupportRequestRepository extends JpaRepository<SupportRequest, Long> {
@@ -25,4 +30,11 @@ public interface SupportRequestRepository extends JpaRepository<SupportRequest,
 
     // Count all open requests (for admin dashboard)
     long countByStatus(SupportStatus status);
+
+    // Every screenshot URL through a JDBC cursor (for the upload collector); consume inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = VehicleRepository.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT r.screenshotUrl FROM SupportRequest r WHERE r.screenshotUrl IS NOT NULL")
+    Stream<String> streamAllScreenshotUrls();
 }
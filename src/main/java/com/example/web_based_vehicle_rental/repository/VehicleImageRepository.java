@@ -1,11 +1,20 @@
 package com.example.web_based_vehicle_rental.repository;
 
 import com.example.web_based_vehicle_rental.model.VehicleImage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VehicleImageRepository extends JpaRepository<VehicleImage, Long> {
@@ -15,4 +24,32 @@ public interface VehicleImageRepository extends JpaRepository<VehicleImage, Long
     Optional<VehicleImage> findByVehicleIdAndIsPrimary(Long vehicleId, Boolean isPrimary);
 
     void deleteByVehicleId(Long vehicleId);
+
+    @Query("SELECT i.vehicle.id AS vehicleId, i.imageUrl AS imageUrl, i.cardUrl AS cardUrl " +
+            "FROM VehicleImage i WHERE i.isPrimary = true")
+    List<PrimaryImageUrl> findAllPrimaryImageUrls();
+
+    @Query("SELECT i.vehicle.id AS vehicleId, i.imageUrl AS imageUrl, i.cardUrl AS cardUrl FROM VehicleImage i " +
+            "WHERE i.isPrimary = true AND i.vehicle.id IN :vehicleIds")
+    List<PrimaryImageUrl> findPrimaryImageUrls(@Param("vehicleIds") Collection<Long> vehicleIds);
+
+    /**
+     * Every gallery image's URL, read through a JDBC cursor. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = VehicleRepository.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT i.imageUrl FROM VehicleImage i")
+    Stream<String> streamAllImageUrls();
+
+    /**
+     * Record the renditions of one of a vehicle's gallery images; returns 0 if the image is gone
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE VehicleImage i SET i.thumbnailUrl = :thumbnailUrl, i.cardUrl = :cardUrl, " +
+            "i.detailUrl = :detailUrl WHERE i.vehicle.id = :vehicleId AND i.imageUrl = :imageUrl")
+    int updateRenditions(@Param("vehicleId") Long vehicleId, @Param("imageUrl") String imageUrl,
+            @Param("thumbnailUrl") String thumbnailUrl, @Param("cardUrl") String cardUrl,
+            @Param("detailUrl") String detailUrl);
 }
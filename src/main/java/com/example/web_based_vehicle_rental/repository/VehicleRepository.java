@@ -1,16 +1,96 @@
 package com.example.web_based_vehicle_rental.repository;
 
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
 import com.example.web_based_vehicle_rental.model.Vehicle;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+public interface VehicleRepository extends JpaRepository<Vehicle, Long>, VehicleRepositoryCustom {
+
+    /**
+     * Rows fetched per round trip when streaming; MySQL needs useCursorFetch=true on the URL to honour it
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    @Query("SELECT new com.example.web_based_vehicle_rental.dto.VehicleSummary(" +
+            "v.id, v.brand, v.model, v.year, v.type, v.dailyPrice, v.status, v.imageUrl) " +
+            "FROM Vehicle v ORDER BY v.id")
+    List<VehicleSummary> findAllSummaries();
+
+    @Query("SELECT new com.example.web_based_vehicle_rental.dto.VehicleSummary(" +
+            "v.id, v.brand, v.model, v.year, v.type, v.dailyPrice, v.status, v.imageUrl) " +
+            "FROM Vehicle v WHERE v.id IN :ids ORDER BY v.id")
+    List<VehicleSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Every vehicle as a summary carrying its primary gallery image, read through a JDBC cursor.
+     * Ordered by vehicle then image id; a vehicle with several primary images appears once per image,
+     * so callers keep the first row of each id. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT new com.example.web_based_vehicle_rental.dto.VehicleSummary(" +
+            "v.id, v.brand, v.model, v.year, v.type, v.dailyPrice, v.status, COALESCE(i.imageUrl, v.imageUrl), " +
+            "i.cardUrl) " +
+            "FROM Vehicle v LEFT JOIN VehicleImage i ON i.vehicle = v AND i.isPrimary = true " +
+            "ORDER BY v.id, i.id")
+    Stream<VehicleSummary> streamAllSummaries();
+
+    /**
+     * Every vehicle's own image URL, read through a JDBC cursor. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT v.imageUrl FROM Vehicle v WHERE v.imageUrl IS NOT NULL")
+    Stream<String> streamAllImageUrls();
+
+    /**
+     * Bookable fleet size per type as [type, count] rows; vehicles in maintenance are excluded
+     */
+    @Query("SELECT v.type, COUNT(v) FROM Vehicle v " +
+            "WHERE v.status <> com.example.web_based_vehicle_rental.model.VehicleStatus.MAINTENANCE " +
+            "AND (:type IS NULL OR v.type = :type) GROUP BY v.type")
+    List<Object[]> countFleetByType(@Param("type") String type);
+
+    /**
+     * Loads the vehicle together with its gallery in one statement
+     */
+    @EntityGraph(Vehicle.WITH_IMAGES)
+    @Query("SELECT v FROM Vehicle v WHERE v.id = :id")
+    Optional<Vehicle> findWithImagesById(@Param("id") Long id);
+
+    /**
+     * Loads the vehicle with a row lock (SELECT ... FOR UPDATE) held until the
+     * transaction ends, serializing bookings of the same vehicle only.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Vehicle v WHERE v.id = :id")
+    Optional<Vehicle> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Row-locks several vehicles in one statement. Ordered by id so concurrent batches always lock
+     * in the same order and cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Vehicle v WHERE v.id IN :ids ORDER BY v.id")
+    List<Vehicle> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT v FROM Vehicle v WHERE v.status = 'AVAILABLE' AND v.id NOT IN " +
             "(SELECT r.vehicle.id FROM Reservation r WHERE r.status = 'CONFIRMED' AND " +
@@ -30,4 +110,33 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
             @Param("type") String type,
             @Param("minPrice") Double minPrice,
             @Param("maxPrice") Double maxPrice);
+
+    @Query("SELECT v FROM Vehicle v WHERE v.status = 'AVAILABLE' " +
+            "AND (:type IS NULL OR v.type = :type) " +
+            "AND (:minPrice IS NULL OR v.dailyPrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR v.dailyPrice <= :maxPrice)")
+    List<Vehicle> findRentableVehiclesWithFilters(
+            @Param("type") String type,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice);
+
+    /**
+     * Available vehicles grouped by (type, daily price) as [type, dailyPrice, count, minYear, maxYear] rows,
+     * for building search facets in one aggregate query
+     */
+    @Query("SELECT v.type, v.dailyPrice, COUNT(v), MIN(v.year), MAX(v.year) FROM Vehicle v " +
+            "WHERE v.status = 'AVAILABLE' " +
+            "AND (:type IS NULL OR v.type = :type) " +
+            "AND (:minPrice IS NULL OR v.dailyPrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR v.dailyPrice <= :maxPrice) " +
+            "AND v.id NOT IN " +
+            "(SELECT r.vehicle.id FROM Reservation r WHERE r.status = 'CONFIRMED' AND " +
+            "((r.startDate <= :endDate AND r.endDate >= :startDate))) " +
+            "GROUP BY v.type, v.dailyPrice")
+    List<Object[]> aggregateAvailableVehicles(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("type") String type,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice);
 }
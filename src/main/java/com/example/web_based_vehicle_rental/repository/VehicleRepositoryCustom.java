@@ -0,0 +1,24 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+
+import java.util.List;
+
+/**
+ * Keyset (seek) queries over rentable vehicles that Spring Data cannot derive.
+ */
+public interface VehicleRepositoryCustom {
+
+    /**
+     * Next {@code limit} AVAILABLE vehicles matching the filters, ordered by
+     * {@code sort} then id, strictly after the position ({@code afterKey},
+     * {@code afterId}). A null position starts from the beginning.
+     */
+    List<VehicleSummary> findRentableVehiclesAfter(String type, Double minPrice, Double maxPrice,
+            VehicleSortField sort, boolean descending, String afterKey, Long afterId, int limit);
+
+    /**
+     * Number of AVAILABLE vehicles matching the filters, ignoring dates
+     */
+    long countRentableVehicles(String type, Double minPrice, Double maxPrice);
+}
@@ -0,0 +1,101 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria-based implementation of {@link VehicleRepositoryCustom}. The
+ * status/type and price predicates line up with idx_vehicle_status_type and
+ * idx_vehicle_price, and the seek predicate replaces OFFSET so deep pages cost
+ * the same as the first one.
+ */
+public class VehicleRepositoryImpl implements VehicleRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<VehicleSummary> findRentableVehiclesAfter(String type, Double minPrice, Double maxPrice,
+            VehicleSortField sort, boolean descending, String afterKey, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<VehicleSummary> query = cb.createQuery(VehicleSummary.class);
+        Root<Vehicle> vehicle = query.from(Vehicle.class);
+        query.select(cb.construct(VehicleSummary.class, vehicle.get("id"), vehicle.get("brand"),
+                vehicle.get("model"), vehicle.get("year"), vehicle.get("type"), vehicle.get("dailyPrice"),
+                vehicle.get("status"), vehicle.get("imageUrl")));
+
+        List<Predicate> predicates = rentableFilters(cb, vehicle, type, minPrice, maxPrice);
+        if (afterId != null) {
+            predicates.add(seekPredicate(cb, vehicle, sort, descending, afterKey, afterId));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        Path<Long> id = vehicle.get("id");
+        if (sort == VehicleSortField.ID) {
+            query.orderBy(descending ? cb.desc(id) : cb.asc(id));
+        } else {
+            Path<?> key = vehicle.get(sort.getAttribute());
+            query.orderBy(descending ? cb.desc(key) : cb.asc(key), descending ? cb.desc(id) : cb.asc(id));
+        }
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countRentableVehicles(String type, Double minPrice, Double maxPrice) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Vehicle> vehicle = query.from(Vehicle.class);
+        query.select(cb.count(vehicle))
+                .where(rentableFilters(cb, vehicle, type, minPrice, maxPrice).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Predicate> rentableFilters(CriteriaBuilder cb, Root<Vehicle> vehicle, String type,
+            Double minPrice, Double maxPrice) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(vehicle.get("status"), VehicleStatus.AVAILABLE));
+        if (type != null) {
+            predicates.add(cb.equal(vehicle.get("type"), type));
+        }
+        if (minPrice != null) {
+            predicates.add(cb.greaterThanOrEqualTo(vehicle.get("dailyPrice"), minPrice));
+        }
+        if (maxPrice != null) {
+            predicates.add(cb.lessThanOrEqualTo(vehicle.get("dailyPrice"), maxPrice));
+        }
+        return predicates;
+    }
+
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<Vehicle> vehicle, VehicleSortField sort,
+            boolean descending, String afterKey, Long afterId) {
+        Path<Long> id = vehicle.get("id");
+        switch (sort) {
+            case DAILY_PRICE:
+                return after(cb, vehicle.get("dailyPrice"), Double.valueOf(afterKey), id, afterId, descending);
+            case YEAR:
+                return after(cb, vehicle.get("year"), Integer.valueOf(afterKey), id, afterId, descending);
+            default:
+                return descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId);
+        }
+    }
+
+    // (key, id) > (afterKey, afterId), or < when descending
+    private <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Path<T> key, T afterKey,
+            Path<Long> id, Long afterId, boolean descending) {
+        Predicate beyondKey = descending ? cb.lessThan(key, afterKey) : cb.greaterThan(key, afterKey);
+        Predicate beyondId = descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId);
+        return cb.or(beyondKey, cb.and(cb.equal(key, afterKey), beyondId));
+    }
+}
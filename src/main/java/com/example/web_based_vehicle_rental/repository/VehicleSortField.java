@@ -0,0 +1,105 @@
+package com.example.web_based_vehicle_rental.repository;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+
+import java.util.Comparator;
+
+/**
+ * Columns the vehicle search can be ordered by. Each is paired with the
+ * vehicle id as a tie-breaker so keyset pagination has a unique position.
+ */
+public enum VehicleSortField {
+    DAILY_PRICE("dailyPrice"),
+    YEAR("year"),
+    ID("id"),
+    // Text search only: ranks by VehicleSummary.getRelevance(), never pushed down to SQL
+    RELEVANCE("relevance");
+
+    private final String attribute;
+
+    VehicleSortField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Resolve a request parameter ("dailyPrice", "price", "year", "id", "relevance"), defaulting to price
+     */
+    public static VehicleSortField fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return DAILY_PRICE;
+        }
+        for (VehicleSortField field : values()) {
+            if (field.attribute.equalsIgnoreCase(param) || field.name().equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        if ("price".equalsIgnoreCase(param)) {
+            return DAILY_PRICE;
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + param);
+    }
+
+    /**
+     * In-memory ordering equivalent to the SQL ORDER BY (key, then id)
+     */
+    public Comparator<VehicleSummary> comparator(boolean descending) {
+        Comparator<VehicleSummary> byKey;
+        switch (this) {
+            case DAILY_PRICE:
+                byKey = Comparator.comparing(VehicleSummary::getDailyPrice);
+                break;
+            case YEAR:
+                byKey = Comparator.comparingInt(VehicleSummary::getYear);
+                break;
+            case RELEVANCE:
+                byKey = Comparator.comparing(VehicleSummary::getRelevance);
+                break;
+            default:
+                byKey = (a, b) -> 0;
+        }
+        Comparator<VehicleSummary> ordering = byKey.thenComparing(VehicleSummary::getId);
+        return descending ? ordering.reversed() : ordering;
+    }
+
+    /**
+     * Whether a vehicle sorts strictly after the page-token position (key, id)
+     */
+    public boolean isAfter(VehicleSummary vehicle, String afterKey, Long afterId, boolean descending) {
+        int byKey;
+        switch (this) {
+            case DAILY_PRICE:
+                byKey = Double.compare(vehicle.getDailyPrice(), Double.parseDouble(afterKey));
+                break;
+            case YEAR:
+                byKey = Integer.compare(vehicle.getYear(), Integer.parseInt(afterKey));
+                break;
+            case RELEVANCE:
+                byKey = Double.compare(vehicle.getRelevance(), Double.parseDouble(afterKey));
+                break;
+            default:
+                byKey = 0;
+        }
+        int comparison = byKey != 0 ? byKey : Long.compare(vehicle.getId(), afterId);
+        return descending ? comparison < 0 : comparison > 0;
+    }
+
+    /**
+     * The sort key of a vehicle, as written into a page token
+     */
+    public String keyOf(VehicleSummary vehicle) {
+        switch (this) {
+            case DAILY_PRICE:
+                return String.valueOf(vehicle.getDailyPrice());
+            case YEAR:
+                return String.valueOf(vehicle.getYear());
+            case RELEVANCE:
+                return String.valueOf(vehicle.getRelevance());
+            default:
+                return String.valueOf(vehicle.getId());
+        }
+    }
+}
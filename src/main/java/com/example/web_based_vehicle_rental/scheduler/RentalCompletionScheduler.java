@@ -3,8 +3,10 @@ package com.example.web_based_vehicle_rental.scheduler;
 import com.example.web_based_vehicle_rental.model.Reservation;
 import com.example.web_based_vehicle_rental.model.ReservationStatus;
 import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.service.ReservationChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -24,9 +26,12 @@ public class RentalCompletionScheduler {
     private static final Logger logger = LoggerFactory.getLogger(RentalCompletionScheduler.class);
 
     private final ReservationRepository reservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RentalCompletionScheduler(ReservationRepository reservationRepository) {
+    public RentalCompletionScheduler(ReservationRepository reservationRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.reservationRepository = reservationRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -61,6 +66,8 @@ public class RentalCompletionScheduler {
                     // Update status to COMPLETED
                     reservation.setStatus(ReservationStatus.COMPLETED);
                     reservationRepository.save(reservation);
+                    eventPublisher.publishEvent(
+                            ReservationChangedEvent.statusChanged(reservation, ReservationStatus.CONFIRMED));
 
                     completedCount++;
                     logger.info("Completed rental ID: {} for user: {} (Vehicle: {} {} - ended on {})",
@@ -96,6 +103,8 @@ public class RentalCompletionScheduler {
         for (Reservation reservation : expiredReservations) {
             reservation.setStatus(ReservationStatus.COMPLETED);
             reservationRepository.save(reservation);
+            eventPublisher.publishEvent(
+                    ReservationChangedEvent.statusChanged(reservation, ReservationStatus.CONFIRMED));
             count++;
         }
 
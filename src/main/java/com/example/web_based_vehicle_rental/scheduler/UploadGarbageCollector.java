@@ -0,0 +1,197 @@
+package com.example.web_based_vehicle_rental.scheduler;
+
+import com.example.web_based_vehicle_rental.model.StoredImage;
+import com.example.web_based_vehicle_rental.repository.StoredImageRepository;
+import com.example.web_based_vehicle_rental.repository.SupportRequestRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleImageRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.service.BlobStorage;
+import com.example.web_based_vehicle_rental.service.ImageRendition;
+import com.example.web_based_vehicle_rental.service.ImageRenditionPipeline;
+import com.example.web_based_vehicle_rental.service.ImageStore;
+import com.example.web_based_vehicle_rental.service.SupportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Mark-and-sweep collector for uploaded files nothing refers to any more:
+ * photos uploaded from admin forms that were never saved, images of deleted
+ * vehicles and galleries from before content-addressed storage, renditions
+ * of those, screenshots of support requests that were never saved, and
+ * temporary files left by interrupted writes.
+ *
+ * The mark phase streams every URL the database refers to (gallery images,
+ * vehicle images and support screenshots) into a {@link UrlHashSet}, along
+ * with stored images uploaded within the grace period. Stored images
+ * uploaded before it that nothing refers to are orphaned whatever their
+ * reference count, and {@link ImageStore#discard} deletes each row with its
+ * files. The sweep then lists the upload prefixes and deletes each file that
+ * is not in the set and was last modified before the grace period. A file is
+ * always written before the row that refers to it, so the grace period
+ * covers uploads still being saved.
+ */
+@Component
+public class UploadGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadGarbageCollector.class);
+
+    static final List<String> SWEPT_PREFIXES = List.of(ImageStore.URL_PREFIX.substring(1),
+            SupportService.SCREENSHOT_PREFIX);
+
+    private final VehicleImageRepository vehicleImageRepository;
+    private final VehicleRepository vehicleRepository;
+    private final SupportRequestRepository supportRequestRepository;
+    private final StoredImageRepository storedImageRepository;
+    private final ImageStore imageStore;
+    private final BlobStorage blobStorage;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration gracePeriod;
+
+    public UploadGarbageCollector(VehicleImageRepository vehicleImageRepository, VehicleRepository vehicleRepository,
+            SupportRequestRepository supportRequestRepository, StoredImageRepository storedImageRepository,
+            ImageStore imageStore, BlobStorage blobStorage, PlatformTransactionManager transactionManager,
+            @Value("${uploads.gc.grace-period:P1D}") Duration gracePeriod) {
+        this.vehicleImageRepository = vehicleImageRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.supportRequestRepository = supportRequestRepository;
+        this.storedImageRepository = storedImageRepository;
+        this.imageStore = imageStore;
+        this.blobStorage = blobStorage;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.gracePeriod = gracePeriod;
+    }
+
+    @Scheduled(cron = "${uploads.gc.cron:0 30 3 * * *}")
+    public void collectOrphanedUploads() {
+        try {
+            collect();
+        } catch (Exception e) {
+            logger.error("Orphaned upload collection failed", e);
+        }
+    }
+
+    /**
+     * Run one mark and sweep
+     */
+    public Result collect() throws IOException {
+        long started = System.nanoTime();
+        // Taken before marking, so anything referenced only by rows written during the mark is young
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        LocalDateTime uploadedBefore = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        UrlHashSet referenced = new UrlHashSet();
+        List<StoredImage> unreferenced = mark(referenced, uploadedBefore);
+        if (referenced.size() == 0) {
+            // An empty or wrong database would otherwise empty the whole storage
+            logger.warn("No uploads are referenced, not sweeping");
+            return new Result(0, 0, 0, 0);
+        }
+
+        Sweep sweep = new Sweep(referenced, cutoff);
+        for (StoredImage stored : unreferenced) {
+            sweep.discard(stored, uploadedBefore);
+        }
+        for (String prefix : SWEPT_PREFIXES) {
+            blobStorage.list(prefix, sweep::visit);
+        }
+        Result result = new Result(referenced.size(), sweep.scanned, sweep.deleted, sweep.bytesReclaimed);
+        logger.info("Collected {} orphaned upload(s) of {} scanned, reclaiming {} bytes ({} referenced URLs, {} ms)",
+                result.deleted(), result.scanned(), result.bytesReclaimed(), result.referencedUrls(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        return result;
+    }
+
+    /**
+     * Mark every referenced URL and return the stored images uploaded before {@code uploadedBefore}
+     * that none of them is
+     */
+    private List<StoredImage> mark(UrlHashSet referenced, LocalDateTime uploadedBefore) {
+        List<StoredImage> unreferenced = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            markAll(vehicleImageRepository::streamAllImageUrls, referenced);
+            markAll(vehicleRepository::streamAllImageUrls, referenced);
+            markAll(supportRequestRepository::streamAllScreenshotUrls, referenced);
+            // Recent uploads may be on an admin form that has not been saved yet
+            markAll(() -> storedImageRepository.streamUrlsStoredSince(uploadedBefore), referenced);
+            try (Stream<StoredImage> stored = storedImageRepository.streamStoredBefore(uploadedBefore)) {
+                stored.filter(image -> !referenced.contains(image.getUrl())).forEach(unreferenced::add);
+            }
+        });
+        return unreferenced;
+    }
+
+    private static void markAll(Supplier<Stream<String>> urls, UrlHashSet referenced) {
+        try (Stream<String> stream = urls.get()) {
+            stream.forEach(url -> mark(url, referenced));
+        }
+    }
+
+    private static void mark(String url, UrlHashSet referenced) {
+        referenced.add(url);
+        if (url.startsWith(ImageStore.URL_PREFIX)) {
+            // Renditions live and die with their original
+            for (ImageRendition rendition : ImageRendition.values()) {
+                referenced.add(ImageRenditionPipeline.renditionUrl(url, rendition));
+            }
+        }
+    }
+
+    private class Sweep {
+
+        private final UrlHashSet referenced;
+        private final Instant cutoff;
+        private long scanned;
+        private long deleted;
+        private long bytesReclaimed;
+
+        Sweep(UrlHashSet referenced, Instant cutoff) {
+            this.referenced = referenced;
+            this.cutoff = cutoff;
+        }
+
+        void discard(StoredImage stored, LocalDateTime uploadedBefore) {
+            scanned++;
+            if (imageStore.discard(stored.getUrl(), uploadedBefore)) {
+                deleted++;
+                bytesReclaimed += stored.getSize();
+                logger.debug("Deleted orphaned stored image {} ({} bytes)", stored.getUrl(), stored.getSize());
+            } else {
+                // Uploaded again since the mark: keep its files for the sweep too
+                mark(stored.getUrl(), referenced);
+            }
+        }
+
+        void visit(BlobStorage.BlobInfo blob) {
+            scanned++;
+            if (referenced.contains("/" + blob.key()) || blob.lastModified().isAfter(cutoff)) {
+                return;
+            }
+            try {
+                blobStorage.delete(blob.key());
+                deleted++;
+                bytesReclaimed += blob.size();
+                logger.debug("Deleted orphaned upload {} ({} bytes)", blob.key(), blob.size());
+            } catch (IOException e) {
+                logger.warn("Could not delete orphaned upload {}", blob.key(), e);
+            }
+        }
+    }
+
+    public record Result(long referencedUrls, long scanned, long deleted, long bytesReclaimed) {
+    }
+}
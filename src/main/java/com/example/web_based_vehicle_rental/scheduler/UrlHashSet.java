@@ -0,0 +1,83 @@
+package com.example.web_based_vehicle_rental.scheduler;
+
+/**
+ * A set of URLs kept as 64-bit hashes in one open-addressing long[], about
+ * 16 bytes per URL instead of the ~100 a HashSet of Strings costs.
+ *
+ * Two URLs with the same hash are indistinguishable, so {@link #contains}
+ * can say yes for a URL never added (about once in 10^19 per pair). The
+ * collector only uses that to keep a file, never to delete one.
+ */
+final class UrlHashSet {
+
+    private static final long EMPTY = 0;
+
+    private long[] slots = new long[1024];
+    private int size;
+
+    void add(String url) {
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+        if (insert(slots, hash(url))) {
+            size++;
+        }
+    }
+
+    boolean contains(String url) {
+        long hash = hash(url);
+        int mask = slots.length - 1;
+        for (int i = index(hash, mask); slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (slots[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] grown = new long[slots.length * 2];
+        for (long hash : slots) {
+            if (hash != EMPTY) {
+                insert(grown, hash);
+            }
+        }
+        slots = grown;
+    }
+
+    private static boolean insert(long[] slots, long hash) {
+        int mask = slots.length - 1;
+        int i = index(hash, mask);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == hash) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = hash;
+        return true;
+    }
+
+    private static int index(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, then a splitmix64 finalizer to spread the bits; never EMPTY
+     */
+    static long hash(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash == EMPTY ? 1 : hash;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.web_based_vehicle_rental.service;
 
+import com.example.web_based_vehicle_rental.config.CacheConfig;
 import com.example.web_based_vehicle_rental.model.User;
 import com.example.web_based_vehicle_rental.model.Vehicle;
 import com.example.web_based_vehicle_rental.repository.UserRepository;
@@ -11,6 +12,9 @@ import com.example.web_based_vehicle_rental.model.Reservation;
 import com.example.web_based_vehicle_rental.model.ReservationStatus;
 import java.time.LocalDate;
 import java.util.Arrays;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -25,16 +29,23 @@ public class AdminService {
     private final ReservationRepository reservationRepository;
     private final PaymentRepository paymentRepository;
     private final com.example.web_based_vehicle_rental.repository.VehicleImageRepository vehicleImageRepository;
+    private final CatalogVersion catalogVersion;
+    private final ImageRenditionPipeline imageRenditionPipeline;
+    private final ImageStore imageStore;
 
     public AdminService(UserRepository userRepository, VehicleRepository vehicleRepository,
             ReservationRepository reservationRepository,
             PaymentRepository paymentRepository,
-            com.example.web_based_vehicle_rental.repository.VehicleImageRepository vehicleImageRepository) {
+            com.example.web_based_vehicle_rental.repository.VehicleImageRepository vehicleImageRepository,
+            CatalogVersion catalogVersion, ImageRenditionPipeline imageRenditionPipeline, ImageStore imageStore) {
         this.userRepository = userRepository;
         this.vehicleRepository = vehicleRepository;
         this.reservationRepository = reservationRepository;
         this.paymentRepository = paymentRepository;
         this.vehicleImageRepository = vehicleImageRepository;
+        this.catalogVersion = catalogVersion;
+        this.imageRenditionPipeline = imageRenditionPipeline;
+        this.imageStore = imageStore;
     }
 
     // User Management
@@ -58,12 +69,21 @@ public class AdminService {
     }
 
     // Vehicle Management
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.VEHICLE_CATALOG, allEntries = true),
+            @CacheEvict(value = CacheConfig.AVAILABLE_VEHICLES, allEntries = true) })
     public Vehicle addVehicle(Vehicle vehicle) {
         if (vehicle == null)
             throw new IllegalArgumentException("Vehicle cannot be null");
-        return vehicleRepository.save(vehicle);
+        Vehicle saved = vehicleRepository.save(vehicle);
+        catalogVersion.bump(saved.getId());
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.VEHICLES, key = "#id"),
+            @CacheEvict(value = CacheConfig.VEHICLE_CATALOG, allEntries = true),
+            @CacheEvict(value = CacheConfig.AVAILABLE_VEHICLES, allEntries = true) })
     public Vehicle updateVehicle(Long id, Vehicle vehicleDetails) {
         if (id == null)
             throw new IllegalArgumentException("Vehicle ID cannot be null");
@@ -77,42 +97,72 @@ public class AdminService {
         vehicle.setStatus(vehicleDetails.getStatus());
         vehicle.setType(vehicleDetails.getType());
         vehicle.setDailyPrice(vehicleDetails.getDailyPrice());
+        String replacedImageUrl = null;
         if (vehicleDetails.getImageUrl() != null) {
+            replacedImageUrl = vehicle.getImageUrl();
             vehicle.setImageUrl(vehicleDetails.getImageUrl());
         }
 
-        return vehicleRepository.save(vehicle);
+        Vehicle saved = vehicleRepository.save(vehicle);
+        catalogVersion.bump(id);
+        releaseReplacedImageUrl(saved, replacedImageUrl);
+        return saved;
     }
 
+    /**
+     * Store an uploaded photo (once per distinct content) and return its URL. Each call takes a
+     * reference on the stored file, given back when the vehicle or gallery image using it goes away.
+     */
     public String saveVehicleImage(org.springframework.web.multipart.MultipartFile file) throws java.io.IOException {
-        String uploadDir = "C:/Users/pamid/vehicle-rental-images/vehicles/";
-        java.nio.file.Path uploadPath = java.nio.file.Paths.get(uploadDir);
-        if (!java.nio.file.Files.exists(uploadPath)) {
-            java.nio.file.Files.createDirectories(uploadPath);
+        return imageStore.store(file);
+    }
+
+    /**
+     * Give back the upload a vehicle's own imageUrl held, unless it was a copy of one of its gallery
+     * images (set as primary), whose reference the gallery image keeps
+     */
+    private void releaseReplacedImageUrl(Vehicle vehicle, String replacedImageUrl) {
+        if (replacedImageUrl == null || replacedImageUrl.equals(vehicle.getImageUrl())) {
+            return;
+        }
+        boolean inGallery = vehicleImageRepository.findByVehicleId(vehicle.getId()).stream()
+                .anyMatch(image -> replacedImageUrl.equals(image.getImageUrl()));
+        if (!inGallery) {
+            imageStore.release(replacedImageUrl);
         }
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        java.nio.file.Path filePath = uploadPath.resolve(fileName);
-        java.nio.file.Files.copy(file.getInputStream(), filePath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-        return "/images/vehicles/" + fileName;
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.VEHICLES, key = "#id"),
+            @CacheEvict(value = CacheConfig.VEHICLE_CATALOG, allEntries = true),
+            @CacheEvict(value = CacheConfig.AVAILABLE_VEHICLES, allEntries = true) })
     public void deleteVehicle(Long id) {
         if (id == null)
             throw new IllegalArgumentException("Vehicle ID cannot be null");
-        if (!vehicleRepository.existsById(id)) {
-            throw new IllegalArgumentException("Vehicle not found with ID: " + id);
-        }
+        Vehicle vehicle = vehicleRepository.findWithImagesById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Vehicle not found with ID: " + id));
+        List<String> galleryUrls = vehicle.getImages().stream()
+                .map(com.example.web_based_vehicle_rental.model.VehicleImage::getImageUrl)
+                .collect(java.util.stream.Collectors.toList());
         vehicleRepository.deleteById(id);
+        catalogVersion.bump(id);
+
+        galleryUrls.forEach(imageStore::release);
+        if (vehicle.getImageUrl() != null && !galleryUrls.contains(vehicle.getImageUrl())) {
+            imageStore.release(vehicle.getImageUrl());
+        }
     }
 
     public List<Vehicle> getAllVehicles() {
         return vehicleRepository.findAll();
     }
 
+    @Cacheable(value = CacheConfig.VEHICLES, key = "#id", unless = "#result == null")
     public Optional<Vehicle> getVehicleById(Long id) {
         if (id == null)
             throw new IllegalArgumentException("Vehicle ID cannot be null");
-        return vehicleRepository.findById(id);
+        // Cached past the session, so the gallery the detail views show must be loaded here
+        return vehicleRepository.findWithImagesById(id);
     }
 
     // Reports
@@ -155,12 +205,16 @@ public class AdminService {
     }
 
     // Vehicle Image Management
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.VEHICLES, key = "#vehicleId"),
+            @CacheEvict(value = CacheConfig.VEHICLE_CATALOG, allEntries = true),
+            @CacheEvict(value = CacheConfig.AVAILABLE_VEHICLES, allEntries = true) })
     public com.example.web_based_vehicle_rental.model.VehicleImage addVehicleImage(Long vehicleId, String imageUrl,
             Boolean isPrimary) {
         if (vehicleId == null)
             throw new IllegalArgumentException("Vehicle ID cannot be null");
 
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+        Vehicle vehicle = vehicleRepository.findWithImagesById(vehicleId)
                 .orElseThrow(() -> new RuntimeException("Vehicle not found"));
 
         // If this is set as primary, unset all other primary images for this vehicle
@@ -173,21 +227,30 @@ public class AdminService {
         vehicle.addImage(image);
 
         // Update vehicle's imageUrl field if this is the primary image
+        String replacedImageUrl = null;
         if (isPrimary != null && isPrimary) {
+            replacedImageUrl = vehicle.getImageUrl();
             vehicle.setImageUrl(imageUrl);
         }
 
         vehicleRepository.save(vehicle);
+        catalogVersion.bump(vehicleId);
+        releaseReplacedImageUrl(vehicle, replacedImageUrl);
+        imageRenditionPipeline.submit(vehicleId, imageUrl);
         return image;
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.VEHICLES, key = "#vehicleId"),
+            @CacheEvict(value = CacheConfig.VEHICLE_CATALOG, allEntries = true),
+            @CacheEvict(value = CacheConfig.AVAILABLE_VEHICLES, allEntries = true) })
     public void deleteVehicleImage(Long vehicleId, Long imageId) {
         if (vehicleId == null)
             throw new IllegalArgumentException("Vehicle ID cannot be null");
         if (imageId == null)
             throw new IllegalArgumentException("Image ID cannot be null");
 
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+        Vehicle vehicle = vehicleRepository.findWithImagesById(vehicleId)
                 .orElseThrow(() -> new RuntimeException("Vehicle not found"));
 
         com.example.web_based_vehicle_rental.model.VehicleImage imageToRemove = vehicle.getImages().stream()
@@ -198,15 +261,24 @@ public class AdminService {
         vehicle.removeImage(imageToRemove);
         vehicleImageRepository.delete(Objects.requireNonNull(imageToRemove));
         vehicleRepository.save(vehicle);
+        catalogVersion.bump(vehicleId);
+        // Still referenced while it is the vehicle's own imageUrl (it was the primary image)
+        if (!imageToRemove.getImageUrl().equals(vehicle.getImageUrl())) {
+            imageStore.release(imageToRemove.getImageUrl());
+        }
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.VEHICLES, key = "#vehicleId"),
+            @CacheEvict(value = CacheConfig.VEHICLE_CATALOG, allEntries = true),
+            @CacheEvict(value = CacheConfig.AVAILABLE_VEHICLES, allEntries = true) })
     public void setPrimaryImage(Long vehicleId, Long imageId) {
         if (vehicleId == null)
             throw new IllegalArgumentException("Vehicle ID cannot be null");
         if (imageId == null)
             throw new IllegalArgumentException("Image ID cannot be null");
 
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+        Vehicle vehicle = vehicleRepository.findWithImagesById(vehicleId)
                 .orElseThrow(() -> new RuntimeException("Vehicle not found"));
 
         // Unset all primary images
@@ -219,8 +291,11 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("Image not found"));
 
         primaryImage.setIsPrimary(true);
+        String replacedImageUrl = vehicle.getImageUrl();
         vehicle.setImageUrl(primaryImage.getImageUrl()); // Update backward compatibility field
 
         vehicleRepository.save(vehicle);
+        catalogVersion.bump(vehicleId);
+        releaseReplacedImageUrl(vehicle, replacedImageUrl);
     }
 }
@@ -0,0 +1,77 @@
+package com.example.web_based_vehicle_rental.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Where uploaded files (vehicle images, support screenshots) are kept.
+ *
+ * A blob's key is its public URL path without the leading slash, e.g.
+ * {@code images/cas/ab/ab12....jpg} for {@code /images/cas/ab/ab12....jpg}, so
+ * URLs stored in the database name the same blob on every backend. Keys are
+ * validated by {@link #checkKey}.
+ */
+public interface BlobStorage {
+
+    /**
+     * Store a finished file under a key, replacing whatever was there. The file may be moved rather
+     * than copied, so callers must not use it afterwards.
+     */
+    void put(String key, Path file, String contentType) throws IOException;
+
+    /**
+     * Store a stream of unknown length under a key without holding all of it in memory
+     */
+    void put(String key, InputStream in, String contentType) throws IOException;
+
+    /**
+     * @throws java.nio.file.NoSuchFileException when there is no blob under the key
+     */
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Remove a blob; a key with nothing under it is not an error
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Visit every blob whose key starts with a prefix ending in "/" ("images/"). Blobs may be deleted
+     * by the visitor or by others while the listing runs.
+     */
+    void list(String prefix, Consumer<BlobInfo> visitor) throws IOException;
+
+    /**
+     * The file on this machine holding a blob, or null when blobs are kept elsewhere
+     */
+    Path localFile(String key);
+
+    /**
+     * A URL browsers can fetch the blob from without its bytes passing through this application, or
+     * null when the application serves it itself
+     */
+    URI directUrl(String key);
+
+    record BlobInfo(String key, long size, Instant lastModified) {
+    }
+
+    /**
+     * Refuse keys that could name something outside the storage
+     */
+    static String checkKey(String key) {
+        if (key == null || key.isEmpty() || key.startsWith("/") || key.endsWith("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("Not a blob key: " + key);
+        }
+        for (String segment : key.split("/")) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Not a blob key: " + key);
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.web_based_vehicle_rental.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, start-sorted set of booked date ranges for a single vehicle.
+ *
+ * Dates are stored as epoch days and ranges are inclusive on both ends, the
+ * same semantics as the overlap check in {@code VehicleRepository}. A prefix
+ * maximum of end dates lets an overlap query run in O(log n) even when legacy
+ * data contains ranges that overlap each other. Updates return a new instance
+ * so readers never need a lock.
+ */
+public final class BookedIntervals {
+
+    public static final BookedIntervals EMPTY = new BookedIntervals(new long[0], new long[0], new long[0]);
+
+    private final long[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private BookedIntervals(long[] ids, long[] starts, long[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    /**
+     * Whether any booked range intersects [start, end]
+     */
+    public boolean overlaps(long start, long end) {
+        int last = lastStartAtOrBefore(end);
+        return last >= 0 && maxEnds[last] >= start;
+    }
+
+    /**
+     * Earliest day on or after {@code from} starting a free run of {@code length} days.
+     * Each conflict jumps past the furthest end booked before the window closes, so
+     * the scan touches each blocking range once.
+     */
+    public long nextFreeStart(long from, long length) {
+        long start = from;
+        while (true) {
+            int last = lastStartAtOrBefore(start + length - 1);
+            if (last < 0 || maxEnds[last] < start) {
+                return start;
+            }
+            start = maxEnds[last] + 1;
+        }
+    }
+
+    /**
+     * Latest day on or before {@code before} starting a free run of {@code length} days.
+     * Each conflict moves the window to end just before the earliest range it hits.
+     */
+    public long previousFreeStart(long before, long length) {
+        long start = before;
+        while (true) {
+            long end = start + length - 1;
+            long earliestConflict = Long.MAX_VALUE;
+            // maxEnds is a prefix maximum, so once it drops below start no earlier range can reach the window
+            for (int i = lastStartAtOrBefore(end); i >= 0 && maxEnds[i] >= start; i--) {
+                if (ends[i] >= start) {
+                    earliestConflict = Math.min(earliestConflict, starts[i]);
+                }
+            }
+            if (earliestConflict == Long.MAX_VALUE) {
+                return start;
+            }
+            start = earliestConflict - length;
+        }
+    }
+
+    /**
+     * Returns a copy containing the given range, replacing any range with the same id
+     */
+    public BookedIntervals with(long id, long start, long end) {
+        BookedIntervals base = without(id);
+        int n = base.ids.length;
+        int pos = base.lastStartAtOrBefore(start) + 1;
+
+        long[] newIds = new long[n + 1];
+        long[] newStarts = new long[n + 1];
+        long[] newEnds = new long[n + 1];
+        System.arraycopy(base.ids, 0, newIds, 0, pos);
+        System.arraycopy(base.starts, 0, newStarts, 0, pos);
+        System.arraycopy(base.ends, 0, newEnds, 0, pos);
+        newIds[pos] = id;
+        newStarts[pos] = start;
+        newEnds[pos] = end;
+        System.arraycopy(base.ids, pos, newIds, pos + 1, n - pos);
+        System.arraycopy(base.starts, pos, newStarts, pos + 1, n - pos);
+        System.arraycopy(base.ends, pos, newEnds, pos + 1, n - pos);
+        return new BookedIntervals(newIds, newStarts, newEnds);
+    }
+
+    /**
+     * Returns a copy without the range with the given id (or this instance if absent)
+     */
+    public BookedIntervals without(long id) {
+        int index = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return this;
+        }
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        return new BookedIntervals(remove(ids, index), remove(starts, index), remove(ends, index));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    private int lastStartAtOrBefore(long value) {
+        int low = 0;
+        int high = starts.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private static long[] remove(long[] source, int index) {
+        long[] copy = Arrays.copyOf(source, source.length - 1);
+        System.arraycopy(source, index + 1, copy, index, source.length - index - 1);
+        return copy;
+    }
+}
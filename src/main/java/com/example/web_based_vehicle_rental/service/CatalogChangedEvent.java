@@ -0,0 +1,8 @@
+package com.example.web_based_vehicle_rental.service;
+
+/**
+ * Published by {@link CatalogVersion} after a vehicle or image change, once the catalog cache is clear.
+ * {@code vehicleId} is the vehicle that was added, changed or deleted.
+ */
+public record CatalogChangedEvent(long version, Long vehicleId) {
+}
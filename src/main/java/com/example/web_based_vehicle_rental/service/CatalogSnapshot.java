@@ -0,0 +1,108 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The public catalog as ready-to-send JSON, plain and gzipped, so anonymous
+ * catalog requests cost a buffer copy instead of loading and serializing
+ * every vehicle.
+ *
+ * Built when the application is ready and rebuilt in the background after
+ * every {@link CatalogChangedEvent}; changes arriving during a rebuild queue
+ * one more. Until the rebuild lands, the previous snapshot keeps being served
+ * under its own version's ETag, so a tag always describes the bytes it comes
+ * with.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    /**
+     * One serialized catalog and the version it was built from
+     */
+    public record Snapshot(long version, String eTag, byte[] json, byte[] gzippedJson) {
+
+        /**
+         * Strong tag of the gzipped bytes, which are a different representation from the plain ones
+         */
+        public String gzippedETag() {
+            return eTag.substring(0, eTag.length() - 1) + "-gz\"";
+        }
+    }
+
+    private final VehicleCatalogService vehicleCatalogService;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+
+    private final Object rebuildLock = new Object();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private volatile Snapshot current;
+
+    public CatalogSnapshot(VehicleCatalogService vehicleCatalogService, CatalogVersion catalogVersion,
+            ObjectMapper objectMapper) {
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The latest snapshot, or null before the first one is built
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, CatalogChangedEvent.class })
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    /**
+     * Serialize the catalog as it is now. Runs one at a time; the version is read before the catalog
+     * is loaded from the database (not the cache, which may still hold an older list), so a snapshot
+     * is never tagged newer than its contents.
+     */
+    public void rebuild() {
+        rebuildQueued.set(false); // changes from here on need another rebuild
+        synchronized (rebuildLock) {
+            try {
+                long version = catalogVersion.current();
+                Snapshot previous = current;
+                if (previous != null && previous.version() == version) {
+                    return;
+                }
+                byte[] json = objectMapper.writeValueAsBytes(vehicleCatalogService.loadCatalog());
+                current = new Snapshot(version, catalogVersion.eTag(version), json, gzip(json));
+                logger.debug("Catalog snapshot {} built: {} bytes, {} gzipped", version, json.length,
+                        current.gzippedJson().length);
+            } catch (Exception e) {
+                logger.error("Failed to build the catalog snapshot, keeping the previous one", e);
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
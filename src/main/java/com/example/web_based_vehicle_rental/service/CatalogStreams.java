@@ -0,0 +1,46 @@
+package com.example.web_based_vehicle_rental.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+
+/**
+ * One limit on NDJSON catalog streams for every endpoint that serves them.
+ *
+ * Each stream holds a pooled connection and a database cursor until the
+ * client has read it all (up to catalog.stream.timeout-seconds), so at most
+ * catalog.stream.max-concurrent run at once and the rest are turned away
+ * before a connection is taken.
+ */
+@Component
+public class CatalogStreams {
+
+    private final VehicleCatalogService vehicleCatalogService;
+    private final Semaphore permits;
+
+    public CatalogStreams(VehicleCatalogService vehicleCatalogService,
+            @Value("${catalog.stream.max-concurrent:3}") int maxConcurrent) {
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Write the catalog as NDJSON if fewer than the limit are being written.
+     *
+     * @return false, having written nothing, when the limit is reached
+     */
+    public boolean tryWrite(OutputStream out) throws IOException {
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            vehicleCatalogService.writeCatalogNdjson(out);
+            return true;
+        } finally {
+            permits.release();
+        }
+    }
+}
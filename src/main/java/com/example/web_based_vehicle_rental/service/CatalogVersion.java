@@ -0,0 +1,63 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the public vehicle catalog, moved on by every AdminService
+ * change to vehicles or their images (the only writers of catalog data).
+ *
+ * Catalog endpoints tag responses with {@link #eTag()} and answer a matching
+ * {@code If-None-Match} with 304 straight from this counter, without loading
+ * the catalog. Tags include a per-process prefix so a restart can never make
+ * an old tag match a different catalog.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String instancePrefix = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CatalogVersion(CacheManager cacheManager, ApplicationEventPublisher eventPublisher) {
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Strong entity tag for the current catalog
+     */
+    public String eTag() {
+        return eTag(version.get());
+    }
+
+    /**
+     * Strong entity tag for the catalog as of {@code version}
+     */
+    public String eTag(long version) {
+        return "\"catalog-" + instancePrefix + "-" + version + "\"";
+    }
+
+    /**
+     * Record a committed catalog change. The cached catalog is keyed by the version read before it
+     * was loaded, so the new tag only ever comes with a list loaded after this change; clearing the
+     * cache just frees the older lists.
+     */
+    public void bump(Long vehicleId) {
+        Cache catalog = cacheManager.getCache(CacheConfig.VEHICLE_CATALOG);
+        if (catalog != null) {
+            catalog.clear();
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(version.incrementAndGet(), vehicleId));
+    }
+}
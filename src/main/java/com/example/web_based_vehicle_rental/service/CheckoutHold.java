@@ -0,0 +1,21 @@
+package com.example.web_based_vehicle_rental.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One vehicle held for a user's checkout. It blocks the dates for other users until it expires or the
+ * payment turns it into a reservation; {@code sessionId} is null until the Stripe session is opened.
+ */
+public record CheckoutHold(long id, Long userId, Long vehicleId, String vehicleName, LocalDate startDate,
+        LocalDate endDate, double totalPrice, Instant expiresAt, String sessionId) {
+
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        return !startDate.isAfter(end) && !endDate.isBefore(start);
+    }
+
+    CheckoutHold withSession(String sessionId) {
+        return new CheckoutHold(id, userId, vehicleId, vehicleName, startDate, endDate, totalPrice, expiresAt,
+                sessionId);
+    }
+}
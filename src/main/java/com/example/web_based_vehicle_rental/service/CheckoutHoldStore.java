@@ -0,0 +1,161 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Checkout holds, kept in memory only.
+ *
+ * A hold lives for {@code booking.hold.ttl} from when it is placed; attaching
+ * the Stripe session does not extend it. Expired holds are never returned,
+ * so their dates free up on their own without anything touching the
+ * database. Lookups scan the live holds, which stay few (one per vehicle in
+ * an unfinished checkout), and new holds are refused once
+ * {@code booking.hold.max-holds} are live, or once the user placing one has
+ * {@code booking.hold.max-per-user} of their own.
+ */
+@Component
+public class CheckoutHoldStore {
+
+    private final Cache<Long, CheckoutHold> holds;
+    private final Duration ttl;
+    private final long maxHolds;
+    private final int maxHoldsPerUser;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Autowired
+    public CheckoutHoldStore(@Value("${booking.hold.ttl:30m}") Duration ttl,
+            @Value("${booking.hold.max-holds:10000}") long maxHolds,
+            @Value("${booking.hold.max-per-user:50}") int maxHoldsPerUser) {
+        this(ttl, maxHolds, maxHoldsPerUser, Ticker.systemTicker());
+    }
+
+    CheckoutHoldStore(Duration ttl, long maxHolds, int maxHoldsPerUser, Ticker ticker) {
+        this.ttl = ttl;
+        this.maxHolds = maxHolds;
+        this.maxHoldsPerUser = maxHoldsPerUser;
+        this.holds = Caffeine.newBuilder()
+                .maximumSize(maxHolds)
+                .ticker(ticker)
+                .expireAfter(new Expiry<Long, CheckoutHold>() {
+                    @Override
+                    public long expireAfterCreate(Long id, CheckoutHold hold, long currentTime) {
+                        return ttl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, CheckoutHold hold, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, CheckoutHold hold, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Place a hold. Callers check availability first, under the vehicle's row lock.
+     */
+    public CheckoutHold hold(Long userId, Long vehicleId, String vehicleName, LocalDate startDate,
+            LocalDate endDate, double totalPrice) {
+        if (holds.estimatedSize() >= maxHolds) {
+            holds.cleanUp(); // drop expired holds before deciding we are full
+            if (holds.estimatedSize() >= maxHolds) {
+                throw new IllegalStateException("Too many checkouts in progress, please try again shortly");
+            }
+        }
+        if (heldBy(userId).size() >= maxHoldsPerUser) {
+            throw new IllegalStateException("You have too many vehicles held in unfinished checkouts; "
+                    + "complete one or wait for it to lapse");
+        }
+        CheckoutHold hold = new CheckoutHold(nextId.incrementAndGet(), userId, vehicleId, vehicleName, startDate,
+                endDate, totalPrice, Instant.now().plus(ttl), null);
+        holds.put(hold.id(), hold);
+        return hold;
+    }
+
+    /**
+     * Record the Stripe session paying for the holds, without extending them
+     */
+    public void attachSession(Collection<CheckoutHold> held, String sessionId) {
+        held.forEach(hold -> holds.asMap().computeIfPresent(hold.id(),
+                (id, current) -> current.withSession(sessionId)));
+    }
+
+    /**
+     * The live holds paid for by a Stripe session
+     */
+    public List<CheckoutHold> forSession(String sessionId) {
+        return holds.asMap().values().stream()
+                .filter(hold -> sessionId.equals(hold.sessionId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The live holds placed by one user
+     */
+    public List<CheckoutHold> heldBy(Long userId) {
+        return holds.asMap().values().stream()
+                .filter(hold -> hold.userId().equals(userId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The live holds on one vehicle
+     */
+    public List<CheckoutHold> holdsOn(Long vehicleId) {
+        return holds.asMap().values().stream()
+                .filter(hold -> hold.vehicleId().equals(vehicleId))
+                .collect(Collectors.toList());
+    }
+
+    public boolean isHeld(Long vehicleId, LocalDate startDate, LocalDate endDate) {
+        return holds.asMap().values().stream()
+                .anyMatch(hold -> hold.vehicleId().equals(vehicleId) && hold.overlaps(startDate, endDate));
+    }
+
+    /**
+     * Vehicles with a live hold intersecting [startDate, endDate]
+     */
+    public Set<Long> heldVehicleIds(LocalDate startDate, LocalDate endDate) {
+        return heldVehicleIds(startDate, endDate, hold -> false);
+    }
+
+    /**
+     * Vehicles with a live hold intersecting [startDate, endDate], not counting holds matching {@code ignored}
+     */
+    public Set<Long> heldVehicleIds(LocalDate startDate, LocalDate endDate, Predicate<CheckoutHold> ignored) {
+        Set<Long> held = new HashSet<>();
+        for (CheckoutHold hold : holds.asMap().values()) {
+            if (hold.overlaps(startDate, endDate) && !ignored.test(hold)) {
+                held.add(hold.vehicleId());
+            }
+        }
+        return held;
+    }
+
+    public void release(Collection<CheckoutHold> released) {
+        holds.invalidateAll(released.stream().map(CheckoutHold::id).collect(Collectors.toList()));
+    }
+}
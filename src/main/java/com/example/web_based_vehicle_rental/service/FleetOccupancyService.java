@@ -0,0 +1,98 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.FleetOccupancy;
+import com.example.web_based_vehicle_rental.repository.OccupancyInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fleet occupancy report for the admin dashboard.
+ *
+ * Rather than one availability query per day, the CONFIRMED reservations
+ * overlapping the window are read once and swept with a difference array per
+ * vehicle type (+1 on the first booked day, -1 after the last), then
+ * prefix-summed into per-day booked counts: O(reservations + types * days).
+ */
+@Service
+public class FleetOccupancyService {
+
+    public static final int MIN_DAYS = 30;
+    public static final int MAX_DAYS = 365;
+
+    private final ReservationRepository reservationRepository;
+    private final VehicleRepository vehicleRepository;
+
+    public FleetOccupancyService(ReservationRepository reservationRepository,
+            VehicleRepository vehicleRepository) {
+        this.reservationRepository = reservationRepository;
+        this.vehicleRepository = vehicleRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public FleetOccupancy getOccupancy(LocalDate from, int days, String type) {
+        if (from == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        if (days < MIN_DAYS || days > MAX_DAYS) {
+            throw new IllegalArgumentException("Days must be between " + MIN_DAYS + " and " + MAX_DAYS);
+        }
+        if (type != null && type.trim().isEmpty()) {
+            type = null;
+        }
+        LocalDate to = from.plusDays(days - 1);
+
+        Map<String, Long> fleetByType = new TreeMap<>();
+        for (Object[] row : vehicleRepository.countFleetByType(type)) {
+            fleetByType.put((String) row[0], (Long) row[1]);
+        }
+
+        Map<String, int[]> deltasByType = new TreeMap<>();
+        fleetByType.keySet().forEach(t -> deltasByType.put(t, new int[days + 1]));
+        for (OccupancyInterval interval : reservationRepository.findConfirmedIntervalsInWindow(from, to, type)) {
+            int first = (int) Math.max(0, ChronoUnit.DAYS.between(from, interval.getStartDate()));
+            int last = (int) Math.min(days - 1, ChronoUnit.DAYS.between(from, interval.getEndDate()));
+            int[] deltas = deltasByType.computeIfAbsent(interval.getVehicleType(), t -> new int[days + 1]);
+            deltas[first]++;
+            deltas[last + 1]--;
+        }
+
+        List<FleetOccupancy.Series> series = new ArrayList<>(deltasByType.size());
+        int[] totalBooked = new int[days];
+        long totalFleet = 0;
+        for (Map.Entry<String, int[]> entry : deltasByType.entrySet()) {
+            long fleetSize = fleetByType.getOrDefault(entry.getKey(), 0L);
+            int[] deltas = entry.getValue();
+            int[] booked = new int[days];
+            int running = 0;
+            for (int day = 0; day < days; day++) {
+                running += deltas[day];
+                booked[day] = running;
+                totalBooked[day] += running;
+            }
+            series.add(new FleetOccupancy.Series(entry.getKey(), fleetSize, booked, free(fleetSize, booked)));
+            totalFleet += fleetSize;
+        }
+
+        FleetOccupancy.Series total = new FleetOccupancy.Series(null, totalFleet, totalBooked,
+                free(totalFleet, totalBooked));
+        return new FleetOccupancy(from, to, series, total);
+    }
+
+    // Vehicles taken out for maintenance can still carry bookings, so never report negative free capacity
+    private static int[] free(long fleetSize, int[] booked) {
+        int[] free = new int[booked.length];
+        for (int day = 0; day < booked.length; day++) {
+            free[day] = (int) Math.max(0, fleetSize - booked[day]);
+        }
+        return free;
+    }
+}
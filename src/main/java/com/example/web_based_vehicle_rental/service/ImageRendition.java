@@ -0,0 +1,38 @@
+package com.example.web_based_vehicle_rental.service;
+
+/**
+ * Sizes an uploaded vehicle photo is re-encoded to, each fitted inside a box
+ * of twice the CSS pixels it is shown at (for high-density screens) and never
+ * upscaled.
+ */
+public enum ImageRendition {
+
+    /** List and table thumbnails, shown at 90x60 */
+    THUMBNAIL("thumb", 240, 160),
+    /** Catalog and search cards, shown about 320 wide and 200 high */
+    CARD("card", 640, 400),
+    /** The detail view carousel, shown up to 800 wide and 400 high */
+    DETAIL("detail", 1600, 1000);
+
+    private final String directory;
+    private final int maxWidth;
+    private final int maxHeight;
+
+    ImageRendition(String directory, int maxWidth, int maxHeight) {
+        this.directory = directory;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+}
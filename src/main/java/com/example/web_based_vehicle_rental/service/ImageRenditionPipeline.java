@@ -0,0 +1,256 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.repository.VehicleImageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-encodes uploaded gallery images into the {@link ImageRendition} sizes in
+ * the background and records the results on their {@code VehicleImage} rows,
+ * so pages stop downloading the full upload for a 90x60 thumbnail.
+ *
+ * Renditions are JPEGs stored under {@code renditions/<size>/} next to the
+ * original. Originals are content-addressed, so a rendition already stored
+ * is reused rather than rendered again. Decoding a photo takes far more
+ * memory than its upload size, so the work runs on a small fixed pool with a
+ * bounded queue; when the queue is full the upload is left as it is and pages
+ * keep serving the original.
+ */
+@Component
+public class ImageRenditionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageRenditionPipeline.class);
+
+    static final String RENDITIONS_DIRECTORY = "renditions";
+    static final float JPEG_QUALITY = 0.82f;
+    // A decoded pixel takes 4 bytes whatever the file size, so a small file declaring huge
+    // dimensions is refused from its header before it can take the heap (25 MP is about 100 MB)
+    static final long MAX_SOURCE_PIXELS = 25_000_000L;
+
+    private final VehicleImageRepository vehicleImageRepository;
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+    private final BlobStorage blobStorage;
+    private final ThreadPoolExecutor executor;
+
+    public ImageRenditionPipeline(VehicleImageRepository vehicleImageRepository, CatalogVersion catalogVersion,
+            CacheManager cacheManager, BlobStorage blobStorage,
+            @Value("${images.renditions.threads:2}") int threads,
+            @Value("${images.renditions.queue-capacity:64}") int queueCapacity) {
+        this.vehicleImageRepository = vehicleImageRepository;
+        this.catalogVersion = catalogVersion;
+        this.cacheManager = cacheManager;
+        this.blobStorage = blobStorage;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-renditions-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue the renditions of a vehicle's newly added gallery image.
+     *
+     * @return false when the queue is full and the image will only be served at full size
+     */
+    public boolean submit(Long vehicleId, String imageUrl) {
+        try {
+            executor.execute(() -> process(vehicleId, imageUrl));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Image rendition queue is full, serving {} at full size", imageUrl);
+            return false;
+        }
+    }
+
+    /**
+     * Render one image and record its renditions, then let every catalog view pick them up
+     */
+    void process(Long vehicleId, String imageUrl) {
+        try {
+            Map<ImageRendition, String> renditions = render(imageUrl);
+            if (renditions.isEmpty()) {
+                return;
+            }
+            int updated = vehicleImageRepository.updateRenditions(vehicleId, imageUrl,
+                    renditions.get(ImageRendition.THUMBNAIL), renditions.get(ImageRendition.CARD),
+                    renditions.get(ImageRendition.DETAIL));
+            if (updated == 0) {
+                return; // the image was removed while it was being rendered
+            }
+            evict(CacheConfig.VEHICLES, vehicleId);
+            evict(CacheConfig.AVAILABLE_VEHICLES, null);
+            catalogVersion.bump(vehicleId);
+            logger.debug("Recorded {} rendition(s) of {}", renditions.size(), imageUrl);
+        } catch (Exception e) {
+            logger.error("Failed to render {}, serving it at full size", imageUrl, e);
+        }
+    }
+
+    /**
+     * Write every rendition of an uploaded image and return their URLs; empty when the file is not
+     * an image ImageIO can decode or has more than {@value #MAX_SOURCE_PIXELS} pixels
+     */
+    Map<ImageRendition, String> render(String imageUrl) throws IOException {
+        BufferedImage source;
+        try (InputStream in = blobStorage.open(ImageStore.keyOf(imageUrl))) {
+            source = decode(in, imageUrl);
+        }
+        if (source == null) {
+            return Map.of();
+        }
+
+        Map<ImageRendition, String> urls = new EnumMap<>(ImageRendition.class);
+        for (ImageRendition rendition : ImageRendition.values()) {
+            String url = renditionUrl(imageUrl, rendition);
+            String key = ImageStore.keyOf(url);
+            if (blobStorage.exists(key)) {
+                urls.put(rendition, url); // the same photo, uploaded for another vehicle
+                continue;
+            }
+            Path written = Files.createTempFile("rendition", ".jpg");
+            try {
+                writeJpeg(scaleToFit(source, rendition.getMaxWidth(), rendition.getMaxHeight()), written);
+                // Readers see either no rendition or a complete one
+                blobStorage.put(key, written, "image/jpeg");
+            } finally {
+                Files.deleteIfExists(written);
+            }
+            urls.put(rendition, url);
+        }
+        return urls;
+    }
+
+    /**
+     * Decode the first image of a file after checking the dimensions its header declares, or return
+     * null if it cannot or may not be decoded
+     */
+    private static BufferedImage decode(InputStream in, String imageUrl) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.warn("Cannot decode {}, leaving it without renditions", imageUrl);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    logger.warn("{} declares {}x{} pixels, too large to decode; leaving it without renditions",
+                            imageUrl, width, height);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Where a rendition of an original is stored. The original's name is kept whole so "car.png" and
+     * "car.jpg" do not share renditions.
+     */
+    public static String renditionUrl(String imageUrl, ImageRendition rendition) {
+        int slash = imageUrl.lastIndexOf('/');
+        return imageUrl.substring(0, slash + 1) + RENDITIONS_DIRECTORY + "/" + rendition.getDirectory() + "/"
+                + imageUrl.substring(slash + 1) + ".jpg";
+    }
+
+    /**
+     * Shrink an image to fit the box, keeping its aspect ratio, on a white background (JPEG has no
+     * transparency). Halves at most per pass: a single bilinear pass to a much smaller size skips
+     * most source pixels and aliases badly.
+     */
+    static BufferedImage scaleToFit(BufferedImage source, int maxWidth, int maxHeight) {
+        double scale = Math.min(1.0, Math.min(maxWidth / (double) source.getWidth(),
+                maxHeight / (double) source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private void evict(String cacheName, Long key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.StoredImage;
+import com.example.web_based_vehicle_rental.repository.StoredImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for uploaded vehicle photos.
+ *
+ * An upload is hashed (SHA-256) while it is streamed to a temporary file and
+ * then filed under its digest, {@code /images/cas/ab/abcd....jpg}, so the same
+ * photo uploaded for a whole fleet of identical vehicles is kept once. Each
+ * upload takes a reference on the file and {@link #release} gives it back; the
+ * file and its renditions are deleted with the last reference. A URL names
+ * one content forever, so the files are served as immutable. The bytes live
+ * in {@link BlobStorage} under the URL's key.
+ *
+ * The count lives in the {@code stored_images} row and is only changed under
+ * its row lock, so any number of instances can share one database and one
+ * storage. The blob is written and deleted while that lock is held.
+ *
+ * A reference is taken at upload time, before any vehicle points at the URL,
+ * so uploads from forms that are never saved keep their reference; the
+ * upload collector {@link #discard}s those once they are old enough.
+ */
+@Component
+public class ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStore.class);
+
+    public static final String URL_PREFIX = "/images/";
+    public static final String CONTENT_DIRECTORY = "cas";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern CONTENT_URL = Pattern
+            .compile("^" + URL_PREFIX + CONTENT_DIRECTORY + "/[0-9a-f]{2}/([0-9a-f]{64})(\\.[a-z0-9]{1,5})?$");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}$");
+    private static final int MAX_REGISTER_ATTEMPTS = 3;
+
+    private final StoredImageRepository storedImageRepository;
+    private final BlobStorage blobStorage;
+    private final TransactionTemplate referenceTransaction;
+
+    public ImageStore(StoredImageRepository storedImageRepository, BlobStorage blobStorage,
+            PlatformTransactionManager transactionManager) {
+        this.storedImageRepository = storedImageRepository;
+        this.blobStorage = blobStorage;
+        // Its own transaction: a lost insert race must not mark a caller's transaction rollback-only
+        this.referenceTransaction = new TransactionTemplate(transactionManager);
+        this.referenceTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        }
+    }
+
+    /**
+     * Store an upload and take a reference on it.
+     *
+     * @return the URL of the stored content, the same for every upload of the same bytes
+     */
+    public String store(InputStream in, String originalFilename) throws IOException {
+        // Staged locally: the digest, and so the key, is only known once every byte has been read
+        Path temp = Files.createTempFile("upload", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            long size = 0;
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                    FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    sha256.update(buffer.array(), 0, buffer.limit());
+                    size += buffer.limit();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            return register(HexFormat.of().formatHex(sha256.digest()), extensionOf(originalFilename), temp, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private String register(String digest, String extension, Path temp, long size) throws IOException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return referenceTransaction.execute(status -> takeReference(digest, extension, temp, size));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (DataIntegrityViolationException e) {
+                // Another instance filed the same content first: take a reference on its row instead
+                if (attempt == MAX_REGISTER_ATTEMPTS) {
+                    throw new IllegalStateException("Could not store image " + digest, e);
+                }
+                logger.debug("Stored image {} was inserted concurrently, retrying", digest);
+            }
+        }
+    }
+
+    private String takeReference(String digest, String extension, Path temp, long size) {
+        try {
+            Optional<StoredImage> existing = storedImageRepository.findByIdForUpdate(digest);
+            if (existing.isPresent()) {
+                StoredImage stored = existing.get();
+                if (!blobStorage.exists(keyOf(stored.getUrl()))) {
+                    logger.warn("Stored image {} was missing from storage, restoring it from a new upload", digest);
+                    blobStorage.put(keyOf(stored.getUrl()), temp, contentTypeOf(stored.getUrl()));
+                }
+                stored.setRefCount(stored.getRefCount() + 1);
+                stored.setStoredAt(LocalDateTime.now());
+                storedImageRepository.save(stored);
+                return stored.getUrl();
+            }
+
+            String url = URL_PREFIX + CONTENT_DIRECTORY + "/" + digest.substring(0, 2) + "/" + digest + extension;
+            // Row first: a concurrent insert of the same digest waits on its key until this commits or rolls back
+            storedImageRepository.saveAndFlush(new StoredImage(digest, url, size));
+            // Same digest, same bytes: replacing a leftover blob from an interrupted upload is harmless
+            blobStorage.put(keyOf(url), temp, contentTypeOf(url));
+            return url;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Give back a reference taken by {@link #store}; the last one deletes the file and its renditions.
+     * URLs from before the store existed are left alone.
+     */
+    public void release(String url) {
+        String digest = digestOf(url);
+        if (digest == null) {
+            return;
+        }
+        referenceTransaction.executeWithoutResult(status -> {
+            StoredImage stored = storedImageRepository.findByIdForUpdate(digest).orElse(null);
+            if (stored == null) {
+                return;
+            }
+            if (stored.getRefCount() > 1) {
+                stored.setRefCount(stored.getRefCount() - 1);
+                storedImageRepository.save(stored);
+                return;
+            }
+            storedImageRepository.delete(stored);
+            deleteFiles(stored.getUrl());
+        });
+    }
+
+    /**
+     * Delete a stored image nothing points at, whatever its reference count, unless it was uploaded
+     * again at or after {@code uploadedBefore}
+     *
+     * @return whether the image and its files were deleted
+     */
+    public boolean discard(String url, LocalDateTime uploadedBefore) {
+        String digest = digestOf(url);
+        if (digest == null) {
+            return false;
+        }
+        return Boolean.TRUE.equals(referenceTransaction.execute(status -> {
+            StoredImage stored = storedImageRepository.findByIdForUpdate(digest).orElse(null);
+            if (stored == null || !stored.getStoredAt().isBefore(uploadedBefore)) {
+                return false;
+            }
+            storedImageRepository.delete(stored);
+            deleteFiles(stored.getUrl());
+            return true;
+        }));
+    }
+
+    private void deleteFiles(String url) {
+        try {
+            for (ImageRendition rendition : ImageRendition.values()) {
+                blobStorage.delete(keyOf(ImageRenditionPipeline.renditionUrl(url, rendition)));
+            }
+            blobStorage.delete(keyOf(url));
+        } catch (IOException e) {
+            logger.warn("Could not delete released image {}", url, e);
+        }
+    }
+
+    /**
+     * The storage key of an image URL, refusing anything but an uploaded image
+     */
+    public static String keyOf(String imageUrl) {
+        if (imageUrl == null || !imageUrl.startsWith(URL_PREFIX)) {
+            throw new IllegalArgumentException("Not an uploaded image: " + imageUrl);
+        }
+        return BlobStorage.checkKey(imageUrl.substring(1));
+    }
+
+    /**
+     * The SHA-256 a content-addressed URL names, or null for any other URL
+     */
+    public static String digestOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = CONTENT_URL.matcher(url);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        Matcher matcher = EXTENSION.matcher(filename.toLowerCase(Locale.ROOT));
+        return matcher.find() ? matcher.group() : "";
+    }
+
+    private static String contentTypeOf(String url) {
+        return MediaTypeFactory.getMediaType(url).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
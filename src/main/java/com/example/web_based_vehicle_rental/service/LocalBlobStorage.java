@@ -0,0 +1,142 @@
+package com.example.web_based_vehicle_rental.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Blobs as files on local disk. The first segment of a key picks the
+ * directory, {@code images/...} under the image upload directory and
+ * {@code uploads/...} under the uploads directory, so files written before
+ * the storage abstraction keep their URLs.
+ *
+ * Files are written under a hidden temporary name and renamed into place, so
+ * a reader never sees a partial file. Local disk does not survive a machine
+ * being replaced; use {@link S3BlobStorage} where that matters.
+ */
+public class LocalBlobStorage implements BlobStorage {
+
+    private final Map<String, Path> roots = new LinkedHashMap<>();
+
+    public LocalBlobStorage(String imageDir, String uploadsDir) {
+        roots.put("images", Paths.get(imageDir).toAbsolutePath().normalize());
+        roots.put("uploads", Paths.get(uploadsDir).toAbsolutePath().normalize());
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        Path target = localFile(key);
+        Path temp = tempFor(target);
+        try {
+            // A rename when both are on one file system, a copy otherwise
+            Files.move(file, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, String contentType) throws IOException {
+        Path target = localFile(key);
+        Path temp = tempFor(target);
+        try {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(localFile(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(localFile(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(localFile(key));
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> visitor) throws IOException {
+        if (!prefix.endsWith("/")) {
+            throw new IllegalArgumentException("A prefix ends with /: " + prefix);
+        }
+        String directory = BlobStorage.checkKey(prefix.substring(0, prefix.length() - 1));
+        Path start = directory.indexOf('/') < 0 ? roots.get(directory) : localFile(directory);
+        if (start == null) {
+            throw new IllegalArgumentException("No storage directory for " + prefix);
+        }
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    StringBuilder key = new StringBuilder(prefix);
+                    for (Path name : start.relativize(file)) {
+                        key.append(key.length() > prefix.length() ? "/" : "").append(name);
+                    }
+                    visitor.accept(new BlobInfo(key.toString(), attributes.size(),
+                            attributes.lastModifiedTime().toInstant()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (e instanceof NoSuchFileException) {
+                    return FileVisitResult.CONTINUE; // deleted while the walk was running
+                }
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public Path localFile(String key) {
+        BlobStorage.checkKey(key);
+        int slash = key.indexOf('/');
+        Path root = slash < 0 ? null : roots.get(key.substring(0, slash));
+        if (root == null) {
+            throw new IllegalArgumentException("No storage directory for " + key);
+        }
+        return root.resolve(key.substring(slash + 1));
+    }
+
+    @Override
+    public URI directUrl(String key) {
+        return null;
+    }
+
+    /**
+     * The directory blobs under a key prefix ("images", "uploads") are kept in
+     */
+    public Path getRoot(String prefix) {
+        return roots.get(prefix);
+    }
+
+    private static Path tempFor(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        // Hidden, so never served while it is being written
+        return Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+    }
+}
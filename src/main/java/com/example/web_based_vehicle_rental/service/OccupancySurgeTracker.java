@@ -0,0 +1,247 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.repository.OccupancyInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Dynamic pricing: per vehicle type and day, the number of CONFIRMED
+ * reservations, and the surge multiplier that occupancy earns.
+ *
+ * Counters are loaded when the application is ready, kept current from
+ * {@link ReservationChangedEvent}s (bookings add a day range, cancellations
+ * and completions remove it) and fully reloaded every
+ * {@code pricing.dynamic.refresh-interval}, which also picks up fleet size
+ * changes and drops past days. Events arriving during a reload may or may not
+ * be in what it read, so each reservation they touch is reset to its latest
+ * state rather than replayed. Only days that earn a surge are kept in the
+ * per-type maps quotes read, so a quote touches just those days.
+ *
+ * Surge tiers are {@code occupancy:multiplier} pairs, e.g. {@code 0.8:1.2}
+ * for 20% more once 80% of a type's fleet is booked on a day; the highest
+ * tier reached applies. Disabled unless {@code pricing.dynamic.enabled}.
+ */
+@Component
+public class OccupancySurgeTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancySurgeTracker.class);
+
+    // How far ahead reservations are loaded; anything booked later still arrives through events
+    private static final int LOADED_YEARS = 5;
+
+    private final ReservationRepository reservationRepository;
+    private final VehicleRepository vehicleRepository;
+    private final boolean enabled;
+    private final double[] tierOccupancy;
+    private final double[] tierMultiplier;
+
+    private final Object updateLock = new Object();
+    // Guarded by updateLock
+    private Counters counters = new Counters(Long.MAX_VALUE, Map.of());
+    private List<ReservationChangedEvent> pendingDuringRebuild;
+    // Read without locking by quotes: type -> day -> surge multiplier, only days above 1.0
+    private volatile Map<String, ConcurrentSkipListMap<Long, Double>> surgeByType = Map.of();
+
+    public OccupancySurgeTracker(ReservationRepository reservationRepository, VehicleRepository vehicleRepository,
+            @Value("${pricing.dynamic.enabled:false}") boolean enabled,
+            @Value("${pricing.dynamic.surge-tiers:0.7:1.1,0.85:1.25,0.95:1.5}") String surgeTiers) {
+        this.reservationRepository = reservationRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.enabled = enabled;
+
+        String[] tiers = surgeTiers.split(",");
+        this.tierOccupancy = new double[tiers.length];
+        this.tierMultiplier = new double[tiers.length];
+        for (int i = 0; i < tiers.length; i++) {
+            String[] parts = tiers[i].trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Surge tiers must be occupancy:multiplier pairs: " + surgeTiers);
+            }
+            tierOccupancy[i] = Double.parseDouble(parts[0]);
+            tierMultiplier[i] = Double.parseDouble(parts[1]);
+            if (i > 0 && tierOccupancy[i] <= tierOccupancy[i - 1]) {
+                throw new IllegalArgumentException("Surge tiers must be in increasing occupancy: " + surgeTiers);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Days in [fromDay, toDay] (epoch days) on which the type is surging, with their multipliers
+     */
+    public NavigableMap<Long, Double> surgeDays(String vehicleType, long fromDay, long toDay) {
+        ConcurrentSkipListMap<Long, Double> surges = vehicleType != null ? surgeByType.get(vehicleType) : null;
+        return surges != null ? surges.subMap(fromDay, true, toDay, true) : Collections.emptyNavigableMap();
+    }
+
+    /**
+     * Reload all counters and fleet sizes from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pricing.dynamic.refresh-interval:PT1H}",
+            initialDelayString = "${pricing.dynamic.refresh-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (updateLock) {
+            if (pendingDuringRebuild != null) {
+                return; // a rebuild is already running
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        try {
+            LocalDate today = LocalDate.now();
+            Map<String, Long> fleetByType = new HashMap<>();
+            for (Object[] row : vehicleRepository.countFleetByType(null)) {
+                fleetByType.put((String) row[0], (Long) row[1]);
+            }
+            Counters rebuilt = new Counters(today.toEpochDay(), fleetByType);
+            List<OccupancyInterval> intervals = reservationRepository.findConfirmedIntervalsInWindow(today,
+                    today.plusYears(LOADED_YEARS), null);
+            for (OccupancyInterval interval : intervals) {
+                rebuilt.add(interval.getVehicleType(), interval.getStartDate(), interval.getEndDate(), 1);
+            }
+
+            synchronized (updateLock) {
+                catchUp(rebuilt, intervals);
+                counters = rebuilt;
+                surgeByType = rebuilt.surgeByType;
+            }
+            logger.info("Occupancy counters loaded from {} confirmed reservation(s) across {} vehicle type(s)",
+                    intervals.size(), fleetByType.size());
+        } catch (Exception e) {
+            logger.error("Failed to load occupancy counters, keeping the previous ones", e);
+        } finally {
+            synchronized (updateLock) {
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Bring freshly loaded counters up to date with the events that arrived while loading. The load may
+     * already include any of them, so adding +1/-1 again could count a booking or cancellation twice;
+     * instead each reservation they touched loses what the load counted for it and gains the state of
+     * its latest event.
+     */
+    private void catchUp(Counters rebuilt, List<OccupancyInterval> loaded) {
+        Map<Long, ReservationChangedEvent> latest = new HashMap<>();
+        for (ReservationChangedEvent event : pendingDuringRebuild) {
+            if (event.getReservationId() != null) {
+                latest.put(event.getReservationId(), event);
+            } else {
+                rebuilt.apply(event);
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        for (OccupancyInterval interval : loaded) {
+            if (interval.getReservationId() != null && latest.containsKey(interval.getReservationId())) {
+                rebuilt.add(interval.getVehicleType(), interval.getStartDate(), interval.getEndDate(), -1);
+            }
+        }
+        for (ReservationChangedEvent event : latest.values()) {
+            if (event.isBlocking()) {
+                rebuilt.add(event.getVehicleType(), event.getStartDate(), event.getEndDate(), 1);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (updateLock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            counters.apply(event);
+        }
+    }
+
+    private double multiplierFor(int booked, long fleetSize) {
+        double multiplier = 1.0;
+        if (fleetSize <= 0) {
+            return multiplier;
+        }
+        double occupancy = booked / (double) fleetSize;
+        for (int i = 0; i < tierOccupancy.length && occupancy >= tierOccupancy[i]; i++) {
+            multiplier = tierMultiplier[i];
+        }
+        return multiplier;
+    }
+
+    /**
+     * One generation of counters; days before {@code originDay} are ignored by both the load and the events
+     */
+    private final class Counters {
+
+        private final long originDay;
+        private final Map<String, Long> fleetByType;
+        private final Map<String, Map<Long, Integer>> bookedByType = new HashMap<>();
+        private final Map<String, ConcurrentSkipListMap<Long, Double>> surgeByType = new HashMap<>();
+
+        Counters(long originDay, Map<String, Long> fleetByType) {
+            this.originDay = originDay;
+            this.fleetByType = fleetByType;
+            // Fixed set of keys so the map can be read without locking once published
+            fleetByType.keySet().forEach(type -> surgeByType.put(type, new ConcurrentSkipListMap<>()));
+        }
+
+        void apply(ReservationChangedEvent event) {
+            if (event.wasBlocking()) {
+                add(event.getVehicleType(), event.getPreviousStartDate(), event.getPreviousEndDate(), -1);
+            }
+            if (event.isBlocking()) {
+                add(event.getVehicleType(), event.getStartDate(), event.getEndDate(), 1);
+            }
+        }
+
+        void add(String vehicleType, LocalDate startDate, LocalDate endDate, int delta) {
+            ConcurrentSkipListMap<Long, Double> surges = vehicleType != null ? surgeByType.get(vehicleType) : null;
+            if (surges == null) {
+                return; // a type with no bookable vehicles at the last load
+            }
+            Map<Long, Integer> booked = bookedByType.computeIfAbsent(vehicleType, type -> new HashMap<>());
+            long fleetSize = fleetByType.get(vehicleType);
+            for (long day = Math.max(startDate.toEpochDay(), originDay); day <= endDate.toEpochDay(); day++) {
+                int count = Math.max(booked.getOrDefault(day, 0) + delta, 0);
+                if (count == 0) {
+                    booked.remove(day);
+                } else {
+                    booked.put(day, count);
+                }
+                double multiplier = multiplierFor(count, fleetSize);
+                if (multiplier != 1.0) {
+                    surges.put(day, multiplier);
+                } else {
+                    surges.remove(day);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.PricingRule;
+import com.example.web_based_vehicle_rental.model.PricingRuleKind;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.PricingRuleRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quotes rental prices from the active {@link PricingRule}s.
+ *
+ * The rules are read once and compiled, per vehicle type, into a vector of
+ * daily price multipliers covering {@link #HORIZON_DAYS} from the day of
+ * compilation. The vectors hold prefix sums, so quoting any range inside the
+ * horizon is two array reads whatever its length; ranges outside it are
+ * summed day by day. Long-rental discounts depend on the length of the whole
+ * rental and are applied to the total. Rule changes call {@link #invalidate()}.
+ *
+ * With dynamic pricing on, days on which the type's occupancy earns a surge
+ * (see {@link OccupancySurgeTracker}) are marked up on top of the rules; only
+ * those days are visited.
+ */
+@Service
+public class PricingEngine {
+
+    static final int HORIZON_DAYS = 731;
+
+    // Vectors start at the day they were compiled; recompile once that is this far in the past
+    private static final int RECOMPILE_AFTER_DAYS = 30;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final OccupancySurgeTracker surgeTracker;
+
+    private final Object compileLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CompiledRules compiled;
+
+    public PricingEngine(PricingRuleRepository pricingRuleRepository, OccupancySurgeTracker surgeTracker) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.surgeTracker = surgeTracker;
+    }
+
+    public double quote(Vehicle vehicle, LocalDate startDate, LocalDate endDate) {
+        return quote(vehicle.getType(), vehicle.getDailyPrice(), startDate, endDate);
+    }
+
+    /**
+     * Price of renting a vehicle of the type for [startDate, endDate], both inclusive, rounded to cents
+     */
+    public double quote(String vehicleType, double dailyPrice, LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        long from = startDate.toEpochDay();
+        long to = endDate.toEpochDay();
+        return price(vehicleType, dailyPrice, from, to, to - from + 1);
+    }
+
+    /**
+     * Price of extending a rental that started on {@code rentalStart} by the days from
+     * {@code extensionStart} to {@code newEndDate}: today's rates for the added days, with the
+     * long-rental tier of the whole rental. Days already booked keep the price they were booked at.
+     */
+    public double quoteExtension(Vehicle vehicle, LocalDate rentalStart, LocalDate extensionStart,
+            LocalDate newEndDate) {
+        if (extensionStart.isAfter(newEndDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        return price(vehicle.getType(), vehicle.getDailyPrice(), extensionStart.toEpochDay(),
+                newEndDate.toEpochDay(), newEndDate.toEpochDay() - rentalStart.toEpochDay() + 1);
+    }
+
+    private double price(String vehicleType, double dailyPrice, long from, long to, long rentalDays) {
+        CompiledRules rules = compiledRules();
+        double dayFactors = rules.dayFactorSum(vehicleType, from, to);
+        for (Map.Entry<Long, Double> surge : surgeTracker.surgeDays(vehicleType, from, to).entrySet()) {
+            long day = surge.getKey();
+            dayFactors += rules.dayFactorSum(vehicleType, day, day) * (surge.getValue() - 1);
+        }
+        double total = dailyPrice * dayFactors * rules.longRentalMultiplier(vehicleType, rentalDays);
+        return Math.round(total * 100) / 100.0;
+    }
+
+    /**
+     * Drop the compiled vectors; the next quote reloads the rules
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        compiled = null;
+    }
+
+    private CompiledRules compiledRules() {
+        // Only used to age the vectors, so the UTC day is close enough and much cheaper than LocalDate.now()
+        long today = Math.floorDiv(System.currentTimeMillis(), MILLIS_PER_DAY);
+        CompiledRules current = compiled;
+        if (current == null || today - current.origin > RECOMPILE_AFTER_DAYS) {
+            synchronized (compileLock) {
+                current = compiled;
+                if (current == null || today - current.origin > RECOMPILE_AFTER_DAYS) {
+                    long loadedGeneration = generation.get();
+                    current = new CompiledRules(pricingRuleRepository.findByActiveTrue(), today);
+                    // A rule change while loading may not be in what was read; use it once, do not keep it
+                    if (generation.get() == loadedGeneration) {
+                        compiled = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private static final class CompiledRules {
+
+        private final long origin;
+        private final List<PricingRule> dayRules = new ArrayList<>();
+        private final List<PricingRule> longRentalRules = new ArrayList<>();
+        // Per type: prefix[i] is the sum of the multipliers of the i days from origin
+        private final ConcurrentHashMap<String, double[]> prefixSumsByType = new ConcurrentHashMap<>();
+
+        CompiledRules(List<PricingRule> rules, long origin) {
+            this.origin = origin;
+            for (PricingRule rule : rules) {
+                (rule.getKind() == PricingRuleKind.LONG_RENTAL ? longRentalRules : dayRules).add(rule);
+            }
+        }
+
+        double dayFactorSum(String vehicleType, long from, long to) {
+            if (from >= origin && to < origin + HORIZON_DAYS) {
+                double[] prefix = prefixSumsByType.computeIfAbsent(Objects.toString(vehicleType, ""),
+                        type -> prefixSums(vehicleType));
+                return prefix[(int) (to - origin) + 1] - prefix[(int) (from - origin)];
+            }
+            double sum = 0;
+            for (long day = from; day <= to; day++) {
+                sum += dayFactor(vehicleType, day);
+            }
+            return sum;
+        }
+
+        // The tier with the largest minimum length the rental reaches wins, so 7- and 30-day tiers combine
+        double longRentalMultiplier(String vehicleType, long days) {
+            PricingRule best = null;
+            for (PricingRule rule : longRentalRules) {
+                if (appliesTo(rule, vehicleType) && rule.getMinDays() <= days
+                        && (best == null || rule.getMinDays() > best.getMinDays())) {
+                    best = rule;
+                }
+            }
+            return best != null ? best.getMultiplier() : 1.0;
+        }
+
+        private double[] prefixSums(String vehicleType) {
+            double[] prefix = new double[HORIZON_DAYS + 1];
+            for (int i = 0; i < HORIZON_DAYS; i++) {
+                prefix[i + 1] = prefix[i] + dayFactor(vehicleType, origin + i);
+            }
+            return prefix;
+        }
+
+        private double dayFactor(String vehicleType, long epochDay) {
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            double factor = 1.0;
+            for (PricingRule rule : dayRules) {
+                if (appliesTo(rule, vehicleType) && covers(rule, day)) {
+                    factor *= rule.getMultiplier();
+                }
+            }
+            return factor;
+        }
+
+        private static boolean covers(PricingRule rule, LocalDate day) {
+            if (rule.getKind() == PricingRuleKind.WEEKEND) {
+                return day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+            }
+            return !day.isBefore(rule.getStartDate()) && !day.isAfter(rule.getEndDate());
+        }
+
+        private static boolean appliesTo(PricingRule rule, String vehicleType) {
+            return rule.getVehicleType() == null || rule.getVehicleType().equals(vehicleType);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.PricingRule;
+import com.example.web_based_vehicle_rental.model.PricingRuleKind;
+import com.example.web_based_vehicle_rental.repository.PricingRuleRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Admin maintenance of pricing rules. Each change is saved in its own transaction and only then
+ * invalidates the {@link PricingEngine}, so the next quote compiles the committed rules.
+ */
+@Service
+public class PricingRuleService {
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final PricingEngine pricingEngine;
+
+    public PricingRuleService(PricingRuleRepository pricingRuleRepository, PricingEngine pricingEngine) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.pricingEngine = pricingEngine;
+    }
+
+    public List<PricingRule> getAllRules() {
+        return pricingRuleRepository.findAll();
+    }
+
+    public PricingRule createRule(PricingRule rule) {
+        rule.setId(null);
+        validate(rule);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        pricingEngine.invalidate();
+        return saved;
+    }
+
+    public PricingRule updateRule(Long id, PricingRule details) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Pricing rule not found"));
+        rule.setName(details.getName());
+        rule.setKind(details.getKind());
+        rule.setVehicleType(details.getVehicleType());
+        rule.setMultiplier(details.getMultiplier());
+        rule.setStartDate(details.getStartDate());
+        rule.setEndDate(details.getEndDate());
+        rule.setMinDays(details.getMinDays());
+        rule.setActive(details.isActive());
+        validate(rule);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        pricingEngine.invalidate();
+        return saved;
+    }
+
+    public void deleteRule(Long id) {
+        if (!pricingRuleRepository.existsById(id)) {
+            throw new IllegalArgumentException("Pricing rule not found");
+        }
+        pricingRuleRepository.deleteById(id);
+        pricingEngine.invalidate();
+    }
+
+    private static void validate(PricingRule rule) {
+        if (rule.getName() == null || rule.getName().isBlank()) {
+            throw new IllegalArgumentException("Name cannot be empty");
+        }
+        if (rule.getKind() == null) {
+            throw new IllegalArgumentException("Kind cannot be null");
+        }
+        if (rule.getMultiplier() == null || rule.getMultiplier() <= 0) {
+            throw new IllegalArgumentException("Multiplier must be positive");
+        }
+        if (rule.getVehicleType() != null && rule.getVehicleType().isBlank()) {
+            rule.setVehicleType(null);
+        }
+        if (rule.getKind() == PricingRuleKind.SEASONAL && (rule.getStartDate() == null
+                || rule.getEndDate() == null || rule.getStartDate().isAfter(rule.getEndDate()))) {
+            throw new IllegalArgumentException("A seasonal rule needs a start date on or before its end date");
+        }
+        if (rule.getKind() == PricingRuleKind.LONG_RENTAL && (rule.getMinDays() == null || rule.getMinDays() < 2)) {
+            throw new IllegalArgumentException("A long-rental rule needs a minimum of at least 2 days");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cache entries that depend on reservations once a reservation change
+ * has committed: only the affected user's reservation list is dropped.
+ * Reservation lists carry vehicle details too, so catalog changes drop them all.
+ */
+@Component
+public class ReservationCacheEvictionListener {
+
+    private final CacheManager cacheManager;
+
+    public ReservationCacheEvictionListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        Cache userReservations = cacheManager.getCache(CacheConfig.USER_RESERVATIONS);
+        if (userReservations != null && event.getUsername() != null) {
+            userReservations.evict(event.getUsername());
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Cache userReservations = cacheManager.getCache(CacheConfig.USER_RESERVATIONS);
+        if (userReservations != null) {
+            userReservations.clear();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Published whenever a reservation is created or its status or dates change.
+ *
+ * The event carries a snapshot of the reservation before and after the change
+ * so listeners (availability index, caches) never have to touch the entity
+ * after the transaction has committed.
+ */
+public class ReservationChangedEvent {
+
+    private final Long reservationId;
+    private final Long userId;
+    private final String username;
+    private final Long vehicleId;
+    private final String vehicleType;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final ReservationStatus status;
+    private final LocalDate previousStartDate;
+    private final LocalDate previousEndDate;
+    private final ReservationStatus previousStatus;
+
+    private ReservationChangedEvent(Reservation reservation, LocalDate previousStartDate,
+            LocalDate previousEndDate, ReservationStatus previousStatus) {
+        this.reservationId = reservation.getId();
+        this.userId = reservation.getUser() != null ? reservation.getUser().getId() : null;
+        this.username = reservation.getUser() != null ? reservation.getUser().getUsername() : null;
+        this.vehicleId = reservation.getVehicle().getId();
+        this.vehicleType = reservation.getVehicle().getType();
+        this.startDate = reservation.getStartDate();
+        this.endDate = reservation.getEndDate();
+        this.status = reservation.getStatus();
+        this.previousStartDate = previousStartDate;
+        this.previousEndDate = previousEndDate;
+        this.previousStatus = previousStatus;
+    }
+
+    /**
+     * A reservation that did not exist before
+     */
+    public static ReservationChangedEvent created(Reservation reservation) {
+        return new ReservationChangedEvent(reservation, null, null, null);
+    }
+
+    /**
+     * A reservation whose status changed (cancelled, completed, confirmed)
+     */
+    public static ReservationChangedEvent statusChanged(Reservation reservation, ReservationStatus previousStatus) {
+        return new ReservationChangedEvent(reservation, reservation.getStartDate(), reservation.getEndDate(),
+                previousStatus);
+    }
+
+    /**
+     * A reservation whose dates changed (e.g. extended)
+     */
+    public static ReservationChangedEvent datesChanged(Reservation reservation, LocalDate previousStartDate,
+            LocalDate previousEndDate) {
+        return new ReservationChangedEvent(reservation, previousStartDate, previousEndDate, reservation.getStatus());
+    }
+
+    /**
+     * Whether the reservation blocked its vehicle before the change
+     */
+    public boolean wasBlocking() {
+        return previousStatus == ReservationStatus.CONFIRMED;
+    }
+
+    /**
+     * Whether the reservation blocks its vehicle after the change
+     */
+    public boolean isBlocking() {
+        return status == ReservationStatus.CONFIRMED;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public String getVehicleType() {
+        return vehicleType;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public LocalDate getPreviousStartDate() {
+        return previousStartDate;
+    }
+
+    public LocalDate getPreviousEndDate() {
+        return previousEndDate;
+    }
+
+    public ReservationStatus getPreviousStatus() {
+        return previousStatus;
+    }
+}
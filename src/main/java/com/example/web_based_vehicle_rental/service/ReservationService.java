@@ -1,31 +1,102 @@
 package com.example.web_based_vehicle_rental.service;
 
+import com.example.web_based_vehicle_rental.dto.BookingAlternatives;
+import com.example.web_based_vehicle_rental.dto.CheckoutSession;
+import com.example.web_based_vehicle_rental.dto.VehicleSearchPage;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.Payment;
+import com.example.web_based_vehicle_rental.model.PaymentStatus;
 import com.example.web_based_vehicle_rental.model.Reservation;
 import com.example.web_based_vehicle_rental.model.ReservationStatus;
 import com.example.web_based_vehicle_rental.model.User;
 import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import com.example.web_based_vehicle_rental.repository.PaymentRepository;
+import com.example.web_based_vehicle_rental.repository.ReservationInterval;
 import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.UserRepository;
 import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleSortField;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReservationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    private static final int MIN_SEARCH_CHUNK = 20;
+    private static final int MAX_BATCH_VEHICLES = 50;
+
+    private static final String CHECKOUT_BASE_URL = "http://localhost:8080";
+    private static final String CHECKOUT_SUCCESS_URL = CHECKOUT_BASE_URL + "/payment/success";
+    private static final String CHECKOUT_CANCEL_URL = CHECKOUT_BASE_URL + "/payment/cancel";
+
     private final ReservationRepository reservationRepository;
     private final VehicleRepository vehicleRepository;
+    private final PaymentRepository paymentRepository;
+    private final UserRepository userRepository;
     private final StripeService stripeService;
+    private final VehicleAvailabilityIndex availabilityIndex;
+    private final CheckoutHoldStore checkoutHolds;
+    private final PricingEngine pricingEngine;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final VehicleSearchIndex vehicleSearchIndex;
+    private final SearchResultCache searchResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Fraction of indexed searches that are re-run against the database to detect index drift
+    @Value("${availability.index.consistency-check-rate:0.05}")
+    private double consistencyCheckRate;
+
+    // Searches matching more rentable vehicles than this are paged from the database instead of cached
+    @Value("${search.cache.max-results:1000}")
+    private int maxCachedResults;
+
+    @Value("${search.facets.price-histogram-width:1000}")
+    private double priceHistogramWidth;
 
     public ReservationService(ReservationRepository reservationRepository, VehicleRepository vehicleRepository,
-            StripeService stripeService) {
+            PaymentRepository paymentRepository, UserRepository userRepository, StripeService stripeService,
+            VehicleAvailabilityIndex availabilityIndex, CheckoutHoldStore checkoutHolds,
+            PricingEngine pricingEngine, VehicleCatalogService vehicleCatalogService,
+            VehicleSearchIndex vehicleSearchIndex, SearchResultCache searchResultCache,
+            ApplicationEventPublisher eventPublisher) {
         this.reservationRepository = reservationRepository;
         this.vehicleRepository = vehicleRepository;
+        this.paymentRepository = paymentRepository;
+        this.userRepository = userRepository;
         this.stripeService = stripeService;
+        this.availabilityIndex = availabilityIndex;
+        this.checkoutHolds = checkoutHolds;
+        this.pricingEngine = pricingEngine;
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.vehicleSearchIndex = vehicleSearchIndex;
+        this.searchResultCache = searchResultCache;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Vehicle> searchAvailableVehicles(LocalDate startDate, LocalDate endDate) {
@@ -44,35 +115,618 @@ public class ReservationService {
         if (type != null && type.trim().isEmpty()) {
             type = null;
         }
-        return vehicleRepository.findAvailableVehiclesWithFilters(startDate, endDate, type, minPrice, maxPrice);
+
+        if (!availabilityIndex.isReady()) {
+            return vehicleRepository.findAvailableVehiclesWithFilters(startDate, endDate, type, minPrice, maxPrice);
+        }
+
+        List<Vehicle> available = vehicleRepository.findRentableVehiclesWithFilters(type, minPrice, maxPrice)
+                .stream()
+                .filter(v -> !availabilityIndex.isBooked(v.getId(), startDate, endDate))
+                .collect(Collectors.toList());
+
+        if (ThreadLocalRandom.current().nextDouble() < consistencyCheckRate) {
+            List<Vehicle> expected = vehicleRepository.findAvailableVehiclesWithFilters(startDate, endDate, type,
+                    minPrice, maxPrice);
+            Set<Long> expectedIds = expected.stream().map(Vehicle::getId).collect(Collectors.toSet());
+            Set<Long> actualIds = available.stream().map(Vehicle::getId).collect(Collectors.toSet());
+            if (!expectedIds.equals(actualIds)) {
+                logger.warn("Availability index out of sync for {} - {} (index: {}, database: {}), rebuilding",
+                        startDate, endDate, actualIds, expectedIds);
+                availabilityIndex.invalidate();
+                return expected;
+            }
+        }
+        return available;
     }
 
-    @Transactional
-    public Reservation createReservation(User user, Long vehicleId, LocalDate startDate, LocalDate endDate) {
+    /**
+     * One keyset page of available vehicles, ordered by {@code sort} then id.
+     *
+     * Rentable vehicles are read in index order in chunks and booked ones are
+     * dropped (via the availability index, or one batched query while it is not
+     * ready) until the page is full or the filters are exhausted. Vehicles held
+     * for another checkout are dropped at page time, never cached, so they
+     * reappear as soon as the hold lapses.
+     */
+    public VehicleSearchPage<VehicleSummary> searchAvailableVehiclesPage(LocalDate startDate, LocalDate endDate,
+            String type, Double minPrice, Double maxPrice, VehicleSortField sort, boolean descending,
+            String pageToken, int pageSize) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        if (sort == VehicleSortField.RELEVANCE) {
+            throw new IllegalArgumentException("Sorting by relevance needs a search query");
+        }
+        if (type != null && type.trim().isEmpty()) {
+            type = null;
+        }
+
+        SearchPageToken cursor = pageToken != null && !pageToken.isBlank()
+                ? SearchPageToken.decode(pageToken, sort, descending)
+                : null;
+
+        Set<Long> held = checkoutHolds.heldVehicleIds(startDate, endDate);
+        SearchResultCache.CachedSearch cached = searchResultCache.get(
+                searchResultCache.keyFor(startDate, endDate, type, minPrice, maxPrice), this::loadAvailableVehicles);
+        VehicleSearchPage<VehicleSummary> page = cached.vehicles() != null
+                ? pageOf(cached.vehicles(), held, minPrice, maxPrice, sort, descending, cursor, pageSize)
+                : searchPageByKeyset(startDate, endDate, type, minPrice, maxPrice, held, sort, descending, cursor,
+                        pageSize);
+        page = new VehicleSearchPage<>(withQuotes(page.getItems(), startDate, endDate), page.getNextPageToken(),
+                page.getTotalEstimate());
+        if (cursor != null) {
+            return page;
+        }
+        // Facets describe everything free on the dates, so the type counts stay useful once a type is picked
+        SearchResultCache.CachedSearch unfiltered = type == null && minPrice == null && maxPrice == null
+                ? cached
+                : searchResultCache.get(searchResultCache.keyFor(startDate, endDate, null, null, null),
+                        this::loadAvailableVehicles);
+        return page.withFacets(unfiltered.facets());
+    }
+
+    /**
+     * One page of available vehicles matching free text over brand, model, type and year, typos
+     * included.
+     *
+     * Matches come ranked from the in-memory {@link VehicleSearchIndex}; booked
+     * vehicles are dropped with the availability index (or one batched query
+     * while it is not ready) and held ones at page time, as in
+     * {@link #searchAvailableVehiclesPage}. Facets describe every available
+     * match, before the type and price filters.
+     */
+    public VehicleSearchPage<VehicleSummary> searchVehiclesByText(LocalDate startDate, LocalDate endDate,
+            String query, String type, Double minPrice, Double maxPrice, VehicleSortField sort, boolean descending,
+            String pageToken, int pageSize) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        String typeFilter = type != null && !type.trim().isEmpty() ? type : null;
+
+        SearchPageToken cursor = pageToken != null && !pageToken.isBlank()
+                ? SearchPageToken.decode(pageToken, sort, descending)
+                : null;
+
+        List<VehicleSummary> matches = vehicleSearchIndex.search(query);
+        Set<Long> booked = findBookedVehicleIds(matches, startDate, endDate);
+        Set<Long> held = checkoutHolds.heldVehicleIds(startDate, endDate);
+        List<VehicleSummary> available = matches.stream()
+                .filter(vehicle -> !booked.contains(vehicle.getId()) && !held.contains(vehicle.getId()))
+                .collect(Collectors.toList());
+
+        List<VehicleSummary> ofType = typeFilter == null
+                ? available
+                : available.stream().filter(vehicle -> typeFilter.equals(vehicle.getType()))
+                        .collect(Collectors.toList());
+        VehicleSearchPage<VehicleSummary> page = pageOf(ofType, held, minPrice, maxPrice, sort, descending, cursor,
+                pageSize);
+        page = new VehicleSearchPage<>(withQuotes(page.getItems(), startDate, endDate), page.getNextPageToken(),
+                page.getTotalEstimate());
+        if (cursor != null) {
+            return page;
+        }
+        SearchFacetsAccumulator facets = new SearchFacetsAccumulator(priceHistogramWidth);
+        available.forEach(facets::add);
+        return page.withFacets(facets.build());
+    }
+
+    /**
+     * The vehicles with their quotes for the dates. Quotes are added per page, never cached, so they
+     * follow rule and occupancy changes; price filters and sorting use the list price.
+     */
+    private List<VehicleSummary> withQuotes(List<VehicleSummary> vehicles, LocalDate startDate,
+            LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        return vehicles.stream()
+                .map(vehicle -> vehicle.withQuote(
+                        pricingEngine.quote(vehicle.getType(), vehicle.getDailyPrice(), startDate, endDate), days))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * All available vehicles for a cache key, ordered by id, with their facets. When the key matches
+     * more than max-results vehicles only the facets are kept, from one aggregate query.
+     */
+    private SearchResultCache.CachedSearch loadAvailableVehicles(SearchResultCache.SearchKey key) {
+        List<VehicleSummary> rentable = vehicleRepository.findRentableVehiclesAfter(key.type(), key.minPrice(),
+                key.maxPrice(), VehicleSortField.ID, false, null, null, maxCachedResults + 1);
+        SearchFacetsAccumulator facets = new SearchFacetsAccumulator(priceHistogramWidth);
+        if (rentable.size() > maxCachedResults) {
+            for (Object[] group : vehicleRepository.aggregateAvailableVehicles(key.startDate(), key.endDate(),
+                    key.type(), key.minPrice(), key.maxPrice())) {
+                facets.add((String) group[0], (Double) group[1], (Long) group[2], (Integer) group[3],
+                        (Integer) group[4]);
+            }
+            return new SearchResultCache.CachedSearch(null, facets.build());
+        }
+
+        Set<Long> booked = findBookedVehicleIds(rentable, key.startDate(), key.endDate());
+        List<VehicleSummary> available = new ArrayList<>(rentable.size() - booked.size());
+        for (VehicleSummary vehicle : rentable) {
+            if (!booked.contains(vehicle.getId())) {
+                available.add(vehicle);
+                facets.add(vehicle);
+            }
+        }
+        return new SearchResultCache.CachedSearch(
+                Collections.unmodifiableList(vehicleCatalogService.withPrimaryImages(available)), facets.build());
+    }
+
+    /**
+     * Page through a cached result list: held vehicles and the exact price filter out, requested ordering,
+     * then the cursor
+     */
+    private VehicleSearchPage<VehicleSummary> pageOf(List<VehicleSummary> available, Set<Long> held,
+            Double minPrice, Double maxPrice, VehicleSortField sort, boolean descending, SearchPageToken cursor,
+            int pageSize) {
+        List<VehicleSummary> matching = available.stream()
+                .filter(vehicle -> !held.contains(vehicle.getId()))
+                .filter(vehicle -> (minPrice == null || vehicle.getDailyPrice() >= minPrice)
+                        && (maxPrice == null || vehicle.getDailyPrice() <= maxPrice))
+                .filter(vehicle -> cursor == null
+                        || sort.isAfter(vehicle, cursor.getLastKey(), cursor.getLastId(), descending))
+                .sorted(sort.comparator(descending))
+                .collect(Collectors.toList());
+
+        List<VehicleSummary> page = new ArrayList<>(matching.subList(0, Math.min(pageSize, matching.size())));
+        String nextPageToken = matching.size() > pageSize
+                ? SearchPageToken.after(page.get(page.size() - 1), sort, descending).encode()
+                : null;
+        Long total = cursor == null ? (long) matching.size() : null;
+        return new VehicleSearchPage<>(page, nextPageToken, total);
+    }
+
+    private VehicleSearchPage<VehicleSummary> searchPageByKeyset(LocalDate startDate, LocalDate endDate,
+            String type, Double minPrice, Double maxPrice, Set<Long> held, VehicleSortField sort,
+            boolean descending, SearchPageToken cursor, int pageSize) {
+        String afterKey = cursor != null ? cursor.getLastKey() : null;
+        Long afterId = cursor != null ? cursor.getLastId() : null;
+
+        int chunkSize = Math.max(pageSize * 2, MIN_SEARCH_CHUNK);
+        List<VehicleSummary> page = new ArrayList<>(pageSize);
+        VehicleSummary last = null;
+        int scanned = 0;
+        boolean exhausted = false;
+
+        while (page.size() < pageSize && !exhausted) {
+            List<VehicleSummary> chunk = vehicleRepository.findRentableVehiclesAfter(type, minPrice, maxPrice, sort,
+                    descending, afterKey, afterId, chunkSize);
+            exhausted = chunk.size() < chunkSize;
+            Set<Long> booked = findBookedVehicleIds(chunk, startDate, endDate);
+
+            for (VehicleSummary vehicle : chunk) {
+                if (page.size() == pageSize) {
+                    exhausted = false; // unread vehicles remain in this chunk
+                    break;
+                }
+                scanned++;
+                last = vehicle;
+                if (!booked.contains(vehicle.getId()) && !held.contains(vehicle.getId())) {
+                    page.add(vehicle);
+                }
+            }
+            if (last != null) {
+                afterKey = sort.keyOf(last);
+                afterId = last.getId();
+            }
+        }
+
+        String nextPageToken = exhausted || last == null
+                ? null
+                : SearchPageToken.after(last, sort, descending).encode();
+
+        Long totalEstimate = null;
+        if (cursor == null) {
+            if (nextPageToken == null) {
+                totalEstimate = (long) page.size();
+            } else {
+                long matching = vehicleRepository.countRentableVehicles(type, minPrice, maxPrice);
+                totalEstimate = Math.round(matching * (page.size() / (double) scanned));
+            }
+        }
+        return new VehicleSearchPage<>(vehicleCatalogService.withPrimaryImages(page), nextPageToken,
+                totalEstimate);
+    }
+
+    private Set<Long> findBookedVehicleIds(List<VehicleSummary> vehicles, LocalDate startDate,
+            LocalDate endDate) {
+        if (vehicles.isEmpty()) {
+            return Set.of();
+        }
+        if (availabilityIndex.isReady()) {
+            return vehicles.stream()
+                    .map(VehicleSummary::getId)
+                    .filter(id -> availabilityIndex.isBooked(id, startDate, endDate))
+                    .collect(Collectors.toSet());
+        }
+        List<Long> ids = vehicles.stream().map(VehicleSummary::getId).collect(Collectors.toList());
+        return new HashSet<>(reservationRepository.findBookedVehicleIds(ids, startDate, endDate));
+    }
+
+    /**
+     * IDs of CONFIRMED reservations of one vehicle that intersect [startDate, endDate]
+     */
+    public List<Long> findConflictingReservationIds(Long vehicleId, LocalDate startDate, LocalDate endDate) {
+        return reservationRepository.findConflictingReservationIds(vehicleId, startDate, endDate);
+    }
+
+    /**
+     * Whether a single vehicle can be booked for [startDate, endDate], without a fleet-wide search.
+     * A live checkout hold counts as a booking.
+     */
+    public boolean isVehicleAvailable(Vehicle vehicle, LocalDate startDate, LocalDate endDate) {
+        return vehicle.getStatus() == VehicleStatus.AVAILABLE
+                && findConflictingReservationIds(vehicle.getId(), startDate, endDate).isEmpty()
+                && !checkoutHolds.isHeld(vehicle.getId(), startDate, endDate);
+    }
+
+    /**
+     * Alternatives for dates the vehicle cannot be booked on: up to {@code count} free windows of the
+     * same length on each side of the requested dates (none starting before today), and up to
+     * {@code count} other vehicles of the same type free for the requested dates, closest in price first
+     */
+    @Transactional(readOnly = true)
+    public BookingAlternatives suggestAlternatives(Long vehicleId, LocalDate startDate, LocalDate endDate,
+            int count) {
         if (vehicleId == null) {
             throw new IllegalArgumentException("Vehicle ID cannot be null");
         }
         if (startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("Start date must be before end date");
         }
+        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new IllegalArgumentException("Vehicle not found"));
 
-        List<Vehicle> availableVehicles = vehicleRepository.findAvailableVehicles(startDate, endDate);
-        boolean isAvailable = availableVehicles.stream().anyMatch(v -> v.getId().equals(vehicleId));
+        List<BookingAlternatives.DateWindow> earlier = new ArrayList<>(count);
+        List<BookingAlternatives.DateWindow> later = new ArrayList<>(count);
+        if (vehicle.getStatus() == VehicleStatus.AVAILABLE) {
+            BookedIntervals booked = bookedIntervalsOf(vehicleId);
+            long length = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+
+            long from = startDate.toEpochDay();
+            while (later.size() < count) {
+                long start = booked.nextFreeStart(from, length);
+                later.add(dateWindow(start, length));
+                from = start + length;
+            }
 
-        if (!isAvailable) {
-            throw new IllegalStateException("Vehicle is not available for the selected dates");
+            long today = LocalDate.now().toEpochDay();
+            long before = startDate.toEpochDay() - 1;
+            while (earlier.size() < count) {
+                long start = booked.previousFreeStart(before, length);
+                if (start < today) {
+                    break;
+                }
+                earlier.add(dateWindow(start, length));
+                before = start - length;
+            }
         }
 
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+        return new BookingAlternatives(vehicleId, startDate, endDate, earlier, later,
+                withQuotes(findSimilarAvailableVehicles(vehicle, startDate, endDate, count), startDate, endDate));
+    }
+
+    /**
+     * CONFIRMED ranges of the vehicle plus its live checkout holds (keyed by negated hold id)
+     */
+    private BookedIntervals bookedIntervalsOf(Long vehicleId) {
+        BookedIntervals intervals = BookedIntervals.EMPTY;
+        if (availabilityIndex.isReady()) {
+            intervals = availabilityIndex.intervalsOf(vehicleId);
+        } else {
+            for (ReservationInterval interval : reservationRepository.findIntervalsByVehicleAndStatus(vehicleId,
+                    ReservationStatus.CONFIRMED)) {
+                intervals = intervals.with(interval.getId(), interval.getStartDate().toEpochDay(),
+                        interval.getEndDate().toEpochDay());
+            }
+        }
+        for (CheckoutHold hold : checkoutHolds.holdsOn(vehicleId)) {
+            intervals = intervals.with(-hold.id(), hold.startDate().toEpochDay(), hold.endDate().toEpochDay());
+        }
+        return intervals;
+    }
+
+    private static BookingAlternatives.DateWindow dateWindow(long startDay, long length) {
+        return new BookingAlternatives.DateWindow(LocalDate.ofEpochDay(startDay),
+                LocalDate.ofEpochDay(startDay + length - 1));
+    }
+
+    private List<VehicleSummary> findSimilarAvailableVehicles(Vehicle vehicle, LocalDate startDate,
+            LocalDate endDate, int count) {
+        List<VehicleSummary> candidates = searchResultCache.get(
+                searchResultCache.keyFor(startDate, endDate, vehicle.getType(), null, null),
+                this::loadAvailableVehicles).vehicles();
+        Set<Long> held = checkoutHolds.heldVehicleIds(startDate, endDate);
+        if (candidates == null) {
+            candidates = findNearestInPrice(vehicle, startDate, endDate, held, count);
+        }
+        return candidates.stream()
+                .filter(candidate -> !candidate.getId().equals(vehicle.getId()) && !held.contains(candidate.getId()))
+                .sorted(Comparator.comparingDouble(
+                        (VehicleSummary candidate) -> Math.abs(candidate.getDailyPrice() - vehicle.getDailyPrice())))
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Up to count available vehicles of the same type priced at or above the vehicle, and as many at or
+     * below it, read by two keyset walks starting at the vehicle's own (dailyPrice, id). The count
+     * closest in price are among them.
+     */
+    private List<VehicleSummary> findNearestInPrice(Vehicle vehicle, LocalDate startDate, LocalDate endDate,
+            Set<Long> held, int count) {
+        VehicleSummary origin = new VehicleSummary(vehicle.getId(), vehicle.getBrand(), vehicle.getModel(),
+                vehicle.getYear(), vehicle.getType(), vehicle.getDailyPrice(), vehicle.getStatus(),
+                vehicle.getImageUrl());
+        List<VehicleSummary> nearest = new ArrayList<>();
+        for (boolean descending : new boolean[] { false, true }) {
+            SearchPageToken start = SearchPageToken.after(origin, VehicleSortField.DAILY_PRICE, descending);
+            nearest.addAll(searchPageByKeyset(startDate, endDate, vehicle.getType(), null, null, held,
+                    VehicleSortField.DAILY_PRICE, descending, start, count).getItems());
+        }
+        return nearest;
+    }
+
+    /**
+     * Book a vehicle straight away, without a checkout. Customers book through
+     * {@link #placeCheckoutHolds} and {@link #confirmCheckout} instead.
+     */
+    // READ_COMMITTED so the overlap check sees bookings committed while this transaction waited for the row lock
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Reservation createReservation(User user, Long vehicleId, LocalDate startDate, LocalDate endDate) {
+        if (vehicleId == null) {
+            throw new IllegalArgumentException("Vehicle ID cannot be null");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        // Lock the vehicle row so concurrent bookings of this vehicle run the check-then-insert one at a time
+        Vehicle vehicle = vehicleRepository.findByIdForUpdate(vehicleId)
                 .orElseThrow(() -> new IllegalArgumentException("Vehicle not found"));
 
-        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        Double totalPrice = vehicle.getDailyPrice() * days;
+        if (!isVehicleAvailable(vehicle, startDate, endDate)) {
+            throw new IllegalStateException("Vehicle is not available for the selected dates");
+        }
+
+        Double totalPrice = pricingEngine.quote(vehicle, startDate, endDate);
 
         Reservation reservation = new Reservation(user, vehicle, startDate, endDate, totalPrice);
-        reservation.setStatus(ReservationStatus.CONFIRMED); // Auto-confirm for now
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+
+        Reservation saved;
+        try {
+            // Flush now so the database overlap constraint (where installed) fails here
+            saved = reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Vehicle is not available for the selected dates", e);
+        }
+        eventPublisher.publishEvent(ReservationChangedEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * Hold vehicles for the user's checkout, all or nothing. The vehicles are row-locked and checked against
+     * CONFIRMED reservations and other users' holds in one pass; nothing is written to the database. The
+     * user's earlier holds on the same vehicles and dates are replaced, and a user can hold at most
+     * booking.hold.max-per-user vehicles at once. The holds lapse on their own after booking.hold.ttl
+     * unless {@link #confirmCheckout} books them first.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<CheckoutHold> placeCheckoutHolds(User user, List<Long> vehicleIds, LocalDate startDate,
+            LocalDate endDate) {
+        if (vehicleIds == null || vehicleIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one vehicle is required");
+        }
+        if (vehicleIds.size() > MAX_BATCH_VEHICLES) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_VEHICLES + " vehicles can be booked at once");
+        }
+        if (vehicleIds.contains(null)) {
+            throw new IllegalArgumentException("Vehicle ID cannot be null");
+        }
+        Set<Long> uniqueIds = new LinkedHashSet<>(vehicleIds);
+        if (uniqueIds.size() != vehicleIds.size()) {
+            throw new IllegalArgumentException("Each vehicle can only be booked once per batch");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        // The row locks serialize hold placement with other checkouts and confirmations of these vehicles
+        List<Vehicle> vehicles = vehicleRepository.findAllByIdForUpdate(uniqueIds);
+        if (vehicles.size() != uniqueIds.size()) {
+            Set<Long> missing = new LinkedHashSet<>(uniqueIds);
+            vehicles.forEach(vehicle -> missing.remove(vehicle.getId()));
+            throw new IllegalArgumentException("Vehicle not found: " + missing);
+        }
+
+        Set<Long> unavailable = findUnavailableVehicleIds(vehicles, startDate, endDate, user.getId(), null);
+        if (!unavailable.isEmpty()) {
+            throw new IllegalStateException(vehicles.size() == 1
+                    ? "Vehicle is not available for the selected dates"
+                    : "Vehicles not available for the selected dates: " + unavailable);
+        }
+
+        // A retried checkout replaces the user's earlier holds on these vehicles instead of stacking more
+        checkoutHolds.release(checkoutHolds.heldBy(user.getId()).stream()
+                .filter(hold -> uniqueIds.contains(hold.vehicleId()) && hold.overlaps(startDate, endDate))
+                .collect(Collectors.toList()));
+
+        List<CheckoutHold> holds = new ArrayList<>(vehicles.size());
+        try {
+            for (Vehicle vehicle : vehicles) {
+                holds.add(checkoutHolds.hold(user.getId(), vehicle.getId(),
+                        vehicle.getBrand() + " " + vehicle.getModel(), startDate, endDate,
+                        pricingEngine.quote(vehicle, startDate, endDate)));
+            }
+        } catch (RuntimeException e) {
+            checkoutHolds.release(holds);
+            throw e;
+        }
+        return holds;
+    }
+
+    /**
+     * Open the single Stripe checkout session paying for the holds; it expires with them. The holds are
+     * released if Stripe fails.
+     */
+    public CheckoutSession openCheckout(List<CheckoutHold> holds) {
+        Session session;
+        try {
+            session = stripeService.createCheckoutSession(holds, CHECKOUT_SUCCESS_URL, CHECKOUT_CANCEL_URL);
+        } catch (Exception e) {
+            checkoutHolds.release(holds);
+            throw new RuntimeException("Failed to create payment checkout: " + e.getMessage(), e);
+        }
+        checkoutHolds.attachSession(holds, session.getId());
+
+        List<Long> vehicleIds = holds.stream().map(CheckoutHold::vehicleId).collect(Collectors.toList());
+        double totalPrice = holds.stream().mapToDouble(CheckoutHold::totalPrice).sum();
+        return new CheckoutSession(vehicleIds, totalPrice, session.getUrl(), holds.get(0).expiresAt());
+    }
+
+    /**
+     * Turn a paid checkout session into CONFIRMED reservations, inserted as one JDBC batch, each with a
+     * SUCCEEDED payment. The vehicles are locked and re-checked first: if the holds lapsed and another
+     * customer has taken the dates since, the session is refunded in full and nothing is booked.
+     * Reloading the success page returns the reservations booked the first time, also when the two
+     * requests overlap: the second one waits on the vehicle locks and then finds the first one's payments.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<Reservation> confirmCheckout(String sessionId) throws StripeException {
+        Session session = stripeService.retrieveSession(sessionId);
+        if (!"paid".equals(session.getPaymentStatus())) {
+            throw new IllegalStateException("Payment has not been completed");
+        }
+
+        List<Reservation> confirmed = alreadyConfirmed(session);
+        if (confirmed != null) {
+            return confirmed;
+        }
+
+        List<CheckoutHold> holds = checkoutHolds.forSession(sessionId);
+        String heldVehicleIds = session.getMetadata().get(StripeService.METADATA_VEHICLE_IDS);
+        if (heldVehicleIds == null || holds.size() != heldVehicleIds.split(",").length) {
+            // The holds lapsed (or the server restarted) before the customer paid
+            holds = stripeService.holdsOf(session);
+        }
+        CheckoutHold first = holds.get(0);
+        LocalDate startDate = first.startDate();
+        LocalDate endDate = first.endDate();
+
+        List<Long> vehicleIds = holds.stream().map(CheckoutHold::vehicleId).collect(Collectors.toList());
+        List<Vehicle> vehicles = vehicleRepository.findAllByIdForUpdate(vehicleIds);
+        // A concurrent confirmation of the same session may have committed while we waited for the locks
+        confirmed = alreadyConfirmed(session);
+        if (confirmed != null) {
+            return confirmed;
+        }
+        Set<Long> unavailable = findUnavailableVehicleIds(vehicles, startDate, endDate, first.userId(), sessionId);
+        vehicleIds.stream()
+                .filter(id -> vehicles.stream().noneMatch(vehicle -> vehicle.getId().equals(id)))
+                .forEach(unavailable::add);
+        if (!unavailable.isEmpty()) {
+            stripeService.refundInFull(session);
+            checkoutHolds.release(holds);
+            throw new IllegalStateException("Vehicles no longer available for the selected dates: " + unavailable
+                    + ". Your payment has been refunded in full.");
+        }
+
+        User user = userRepository.getReferenceById(first.userId());
+        Map<Long, Vehicle> vehiclesById = vehicles.stream()
+                .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+        List<Reservation> reservations = new ArrayList<>(holds.size());
+        for (CheckoutHold hold : holds) {
+            Reservation reservation = new Reservation(user, vehiclesById.get(hold.vehicleId()), startDate, endDate,
+                    hold.totalPrice());
+            reservation.setStatus(ReservationStatus.CONFIRMED);
+            reservations.add(reservation);
+        }
 
-        return reservationRepository.save(reservation);
+        List<Long> ids;
+        try {
+            ids = reservationRepository.insertAll(reservations);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Vehicles not available for the selected dates", e);
+        }
+        List<Reservation> saved = reservationRepository.findAllById(ids);
+        List<Payment> payments = new ArrayList<>(saved.size());
+        for (Reservation reservation : saved) {
+            Payment payment = new Payment(reservation, reservation.getTotalPrice(), sessionId);
+            payment.setStatus(PaymentStatus.SUCCEEDED);
+            payment.setStripePaymentIntentId(session.getPaymentIntent());
+            reservation.setPayment(payment);
+            payments.add(payment);
+        }
+        paymentRepository.saveAll(payments);
+        saved.forEach(reservation -> eventPublisher.publishEvent(ReservationChangedEvent.created(reservation)));
+
+        // The row locks keep other checkouts out until the reservations are committed
+        checkoutHolds.release(holds);
+        return saved;
+    }
+
+    /**
+     * The reservations a session's payments belong to, marking PENDING ones paid, or null if the session
+     * has not been confirmed (nor opened before checkout holds existed)
+     */
+    private List<Reservation> alreadyConfirmed(Session session) {
+        List<Payment> recorded = paymentRepository.findAllByStripeSessionId(session.getId());
+        if (recorded.isEmpty()) {
+            return null;
+        }
+        for (Payment payment : recorded) {
+            if (payment.getStatus() == PaymentStatus.PENDING) {
+                payment.setStatus(PaymentStatus.SUCCEEDED);
+                payment.setStripePaymentIntentId(session.getPaymentIntent());
+                payment.getReservation().setPayment(payment);
+            }
+        }
+        return recorded.stream().map(Payment::getReservation).collect(Collectors.toList());
+    }
+
+    /**
+     * Locked vehicles that cannot be held for [startDate, endDate]: not AVAILABLE, booked, or held by
+     * another user. The user's own holds and reservations already paid by sessionId (if given) do not
+     * count, so retrying a checkout does not block itself.
+     */
+    private Set<Long> findUnavailableVehicleIds(List<Vehicle> vehicles, LocalDate startDate, LocalDate endDate,
+            Long userId, String sessionId) {
+        List<Long> ids = vehicles.stream().map(Vehicle::getId).collect(Collectors.toList());
+        Set<Long> unavailable = new TreeSet<>(sessionId == null
+                ? reservationRepository.findBookedVehicleIds(ids, startDate, endDate)
+                : reservationRepository.findBookedVehicleIdsExceptSession(ids, startDate, endDate, sessionId));
+        vehicles.stream()
+                .filter(vehicle -> vehicle.getStatus() != VehicleStatus.AVAILABLE)
+                .forEach(vehicle -> unavailable.add(vehicle.getId()));
+        Set<Long> heldByOthers = checkoutHolds.heldVehicleIds(startDate, endDate,
+                hold -> hold.userId().equals(userId));
+        ids.stream().filter(heldByOthers::contains).forEach(unavailable::add);
+        return unavailable;
     }
 
     @Transactional
@@ -87,11 +741,13 @@ public class ReservationService {
             throw new IllegalStateException("Cannot cancel past or active reservations");
         }
 
+        ReservationStatus previousStatus = reservation.getStatus();
         reservation.setStatus(ReservationStatus.CANCELLED);
         reservationRepository.save(reservation);
+        eventPublisher.publishEvent(ReservationChangedEvent.statusChanged(reservation, previousStatus));
     }
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void extendReservation(Long reservationId, int extraDays) {
         if (reservationId == null) {
             throw new IllegalArgumentException("Reservation ID cannot be null");
@@ -108,36 +764,22 @@ public class ReservationService {
 
         // Check availability for the extension period
         LocalDate extensionStartDate = currentEndDate.plusDays(1);
+        Vehicle vehicle = vehicleRepository.findByIdForUpdate(reservation.getVehicle().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Vehicle not found"));
 
-        List<Vehicle> availableVehicles = vehicleRepository.findAvailableVehicles(extensionStartDate, newEndDate);
-        boolean isAvailable = availableVehicles.stream()
-                .anyMatch(v -> Objects.equals(v.getId(), reservation.getVehicle().getId()));
-
-        if (!isAvailable) {
+        if (!isVehicleAvailable(vehicle, extensionStartDate, newEndDate)) {
             throw new IllegalStateException("Vehicle is not available for the requested extension period");
         }
 
+        // The booked days keep their price; the added days are quoted now, at the whole rental's length tier
+        double extensionPrice = pricingEngine.quoteExtension(vehicle, reservation.getStartDate(),
+                extensionStartDate, newEndDate);
         reservation.setEndDate(newEndDate);
-
-        // Recalculate price
-        long totalDays = ChronoUnit.DAYS.between(reservation.getStartDate(), newEndDate) + 1;
-        reservation.setTotalPrice(reservation.getVehicle().getDailyPrice() * totalDays);
+        reservation.setTotalPrice(reservation.getTotalPrice() + extensionPrice);
 
         reservationRepository.save(reservation);
-    }
-
-    // Create Stripe checkout session for a reservation
-    @Transactional
-    public String createPaymentCheckout(Reservation reservation) {
-        try {
-            String baseUrl = "http://localhost:8080";
-            String successUrl = baseUrl + "/payment/success";
-            String cancelUrl = baseUrl + "/payment/cancel";
-
-            return stripeService.createCheckoutSession(reservation, successUrl, cancelUrl);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create payment checkout: " + e.getMessage(), e);
-        }
+        eventPublisher.publishEvent(
+                ReservationChangedEvent.datesChanged(reservation, reservation.getStartDate(), currentEndDate));
     }
 
     // Cancel reservation with refund if payment exists
@@ -155,6 +797,8 @@ public class ReservationService {
             throw new IllegalStateException("Reservation is already cancelled");
         }
 
+        ReservationStatus previousStatus = reservation.getStatus();
+
         // Check if there's a payment to refund
         if (reservation.getPayment() != null &&
                 reservation.getPayment()
@@ -167,6 +811,7 @@ public class ReservationService {
                 reservation.setPayment(refundedPayment);
                 reservation.setStatus(ReservationStatus.CANCELLED);
                 reservationRepository.save(reservation);
+                eventPublisher.publishEvent(ReservationChangedEvent.statusChanged(reservation, previousStatus));
 
                 double refundAmount = refundedPayment.getRefundAmount();
                 double fee = refundedPayment.getAmount() - refundAmount;
@@ -181,6 +826,7 @@ public class ReservationService {
             // No payment or payment not successful, just cancel
             reservation.setStatus(ReservationStatus.CANCELLED);
             reservationRepository.save(reservation);
+            eventPublisher.publishEvent(ReservationChangedEvent.statusChanged(reservation, previousStatus));
             return "Reservation cancelled successfully";
         }
     }
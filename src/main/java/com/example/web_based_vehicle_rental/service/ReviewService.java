@@ -1,5 +1,6 @@
 package com.example.web_based_vehicle_rental.service;
 
+import com.example.web_based_vehicle_rental.config.CacheConfig;
 import com.example.web_based_vehicle_rental.model.Reservation;
 import com.example.web_based_vehicle_rental.model.Review;
 import com.example.web_based_vehicle_rental.model.User;
@@ -8,8 +9,13 @@ import com.example.web_based_vehicle_rental.repository.ReservationRepository;
 import com.example.web_based_vehicle_rental.repository.ReviewRepository;
 import com.example.web_based_vehicle_rental.repository.VehicleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Objects;
@@ -26,6 +32,9 @@ public class ReviewService {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     /**
      * Create a new review
      */
@@ -69,7 +78,9 @@ public class ReviewService {
             review.setReservation(reservation);
         }
 
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        evictStatisticsAfterCommit(vehicleId);
+        return saved;
     }
 
     /**
@@ -97,6 +108,7 @@ public class ReviewService {
     /**
      * Get review statistics for a vehicle
      */
+    @Cacheable(value = CacheConfig.REVIEW_STATISTICS, key = "#vehicleId")
     public ReviewStatistics getReviewStatistics(Long vehicleId) {
         List<Review> reviews = getVehicleReviews(vehicleId);
 
@@ -138,6 +150,30 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        evictStatisticsAfterCommit(review.getVehicle().getId());
+    }
+
+    /**
+     * Drop a vehicle's cached statistics once the review change is committed. Evicting earlier lets a
+     * concurrent read put the old statistics back, where they stay until the next review change.
+     */
+    private void evictStatisticsAfterCommit(Long vehicleId) {
+        Runnable evict = () -> {
+            Cache statistics = cacheManager.getCache(CacheConfig.REVIEW_STATISTICS);
+            if (statistics != null) {
+                statistics.evict(vehicleId);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
     }
 
     /**
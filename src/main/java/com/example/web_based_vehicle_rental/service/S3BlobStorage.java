@@ -0,0 +1,191 @@
+package com.example.web_based_vehicle_rental.service;
+
+import org.springframework.web.util.UriUtils;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Blobs as objects in an S3-compatible bucket (AWS S3, Tigris, MinIO, R2),
+ * shared by every machine running the application.
+ *
+ * Streams are uploaded in parts of {@code partSize} bytes with a multipart
+ * upload, so at most one part is held in memory; anything that fits in one
+ * part is a single PUT. Browsers fetch objects straight from the bucket:
+ * from {@code publicBaseUrl} when the bucket is public, otherwise through a
+ * presigned URL valid for {@code presignTtl}.
+ */
+public class S3BlobStorage implements BlobStorage {
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String publicBaseUrl;
+    private final Duration presignTtl;
+    private final int partSize;
+
+    public S3BlobStorage(S3Client s3, S3Presigner presigner, String bucket, String publicBaseUrl,
+            Duration presignTtl, int partSize) {
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalArgumentException("An S3 bucket is required");
+        }
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Part size must be positive");
+        }
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.publicBaseUrl = publicBaseUrl == null || publicBaseUrl.isBlank() ? null
+                : publicBaseUrl.replaceAll("/+$", "");
+        this.presignTtl = presignTtl;
+        this.partSize = partSize;
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        BlobStorage.checkKey(key);
+        if (Files.size(file) <= partSize) {
+            try {
+                s3.putObject(r -> r.bucket(bucket).key(key).contentType(contentType), RequestBody.fromFile(file));
+            } catch (SdkException e) {
+                throw new IOException("Could not upload " + key, e);
+            }
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            put(key, in, contentType);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, String contentType) throws IOException {
+        BlobStorage.checkKey(key);
+        byte[] part = in.readNBytes(partSize);
+        try {
+            if (part.length < partSize) {
+                s3.putObject(r -> r.bucket(bucket).key(key).contentType(contentType), RequestBody.fromBytes(part));
+                return;
+            }
+            uploadInParts(key, part, in, contentType);
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key, e);
+        }
+    }
+
+    private void uploadInParts(String key, byte[] firstPart, InputStream in, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(r -> r.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] part = firstPart;
+            while (part.length > 0) {
+                int partNumber = parts.size() + 1;
+                RequestBody body = RequestBody.fromBytes(part);
+                String eTag = s3.uploadPart(r -> r.bucket(bucket).key(key).uploadId(uploadId)
+                        .partNumber(partNumber), body).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                part = in.readNBytes(partSize);
+            }
+            s3.completeMultipartUpload(r -> r.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(parts)));
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(r -> r.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abortFailure) {
+                e.addSuppressed(abortFailure);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        BlobStorage.checkKey(key);
+        try {
+            return s3.getObject(r -> r.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        BlobStorage.checkKey(key);
+        try {
+            s3.headObject(r -> r.bucket(bucket).key(key));
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Could not look up " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not look up " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        BlobStorage.checkKey(key);
+        try {
+            s3.deleteObject(r -> r.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> visitor) throws IOException {
+        if (!prefix.endsWith("/")) {
+            throw new IllegalArgumentException("A prefix ends with /: " + prefix);
+        }
+        BlobStorage.checkKey(prefix.substring(0, prefix.length() - 1));
+        try {
+            // Pages of up to 1000 keys; the continuation token keeps its place if objects are deleted
+            for (S3Object object : s3.listObjectsV2Paginator(r -> r.bucket(bucket).prefix(prefix)).contents()) {
+                visitor.accept(new BlobInfo(object.key(), object.size(), object.lastModified()));
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not list " + prefix, e);
+        }
+    }
+
+    @Override
+    public Path localFile(String key) {
+        return null;
+    }
+
+    @Override
+    public URI directUrl(String key) {
+        BlobStorage.checkKey(key);
+        if (publicBaseUrl != null) {
+            return URI.create(publicBaseUrl + "/" + UriUtils.encodePath(key, StandardCharsets.UTF_8));
+        }
+        try {
+            return presigner.presignGetObject(r -> r.signatureDuration(presignTtl)
+                    .getObjectRequest(g -> g.bucket(bucket).key(key))).url().toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL for " + key + " is not a URI", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.SearchFacets;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds {@link SearchFacets} in a single pass, either one vehicle at a time
+ * or from pre-aggregated (type, price, count, minYear, maxYear) groups.
+ */
+class SearchFacetsAccumulator {
+
+    private final double bucketWidth;
+    private final Map<String, Long> types = new TreeMap<>();
+    private final TreeMap<Long, Long> buckets = new TreeMap<>();
+    private long total;
+    private int minYear = Integer.MAX_VALUE;
+    private int maxYear = Integer.MIN_VALUE;
+
+    SearchFacetsAccumulator(double bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("Histogram bucket width must be positive");
+        }
+        this.bucketWidth = bucketWidth;
+    }
+
+    SearchFacetsAccumulator add(VehicleSummary vehicle) {
+        return add(vehicle.getType(), vehicle.getDailyPrice(), 1, vehicle.getYear(), vehicle.getYear());
+    }
+
+    SearchFacetsAccumulator add(String type, double dailyPrice, long count, int groupMinYear, int groupMaxYear) {
+        total += count;
+        types.merge(type, count, Long::sum);
+        buckets.merge((long) Math.floor(dailyPrice / bucketWidth), count, Long::sum);
+        minYear = Math.min(minYear, groupMinYear);
+        maxYear = Math.max(maxYear, groupMaxYear);
+        return this;
+    }
+
+    SearchFacets build() {
+        List<SearchFacets.PriceBucket> histogram = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, count) -> histogram.add(
+                new SearchFacets.PriceBucket(bucket * bucketWidth, (bucket + 1) * bucketWidth, count)));
+        return new SearchFacets(total, Collections.unmodifiableMap(types), Collections.unmodifiableList(histogram),
+                total > 0 ? minYear : null, total > 0 ? maxYear : null);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.repository.VehicleSortField;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for paged vehicle search: the sort field, direction,
+ * and the sort key and id of the last vehicle returned, URL-safe Base64 encoded.
+ */
+public final class SearchPageToken {
+
+    private final VehicleSortField sort;
+    private final boolean descending;
+    private final String lastKey;
+    private final Long lastId;
+
+    private SearchPageToken(VehicleSortField sort, boolean descending, String lastKey, Long lastId) {
+        this.sort = sort;
+        this.descending = descending;
+        this.lastKey = lastKey;
+        this.lastId = lastId;
+    }
+
+    public static SearchPageToken after(VehicleSummary vehicle, VehicleSortField sort, boolean descending) {
+        return new SearchPageToken(sort, descending, sort.keyOf(vehicle), vehicle.getId());
+    }
+
+    /**
+     * Decode a token, checking it was issued for the same ordering
+     */
+    public static SearchPageToken decode(String token, VehicleSortField sort, boolean descending) {
+        SearchPageToken decoded;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            decoded = new SearchPageToken(VehicleSortField.valueOf(parts[0]),
+                    "desc".equals(parts[1]), parts[2], Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+        if (decoded.sort != sort || decoded.descending != descending) {
+            throw new IllegalArgumentException("Page token does not match the requested sort order");
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + (descending ? "desc" : "asc") + "|" + lastKey + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.dto.SearchFacets;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Availability search results held in the {@code availableVehicles} cache.
+ *
+ * Entries are keyed by (startDate, endDate, type, price bucket): the price
+ * filter is widened to bucket boundaries so nearby slider values share an
+ * entry, and callers filter the cached list by their exact prices. Each
+ * entry holds the full list of available vehicles for the key, ordered by id,
+ * together with its facet counts; for keys matching too many vehicles only the
+ * facets are kept.
+ *
+ * When a reservation changes, only entries whose date range overlaps the
+ * reservation's old or new range (and whose type matches) are invalidated.
+ * Loads still in progress are not among the keys yet, so every change also
+ * moves a generation counter on, and a load that saw it move drops its
+ * result from the cache. Vehicle edits clear everything, via AdminService.
+ */
+@Component
+public class SearchResultCache {
+
+    private final Cache<Object, Object> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter invalidationEvents;
+    private final Counter invalidatedEntries;
+
+    @Value("${search.cache.price-bucket:25}")
+    private double priceBucket;
+
+    public SearchResultCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cache = ((CaffeineCache) cacheManager.getCache(CacheConfig.AVAILABLE_VEHICLES)).getNativeCache();
+        this.invalidationEvents = Counter.builder("search.cache.invalidation.events")
+                .description("Reservation changes that invalidated at least one cached search")
+                .register(meterRegistry);
+        this.invalidatedEntries = Counter.builder("search.cache.invalidated.entries")
+                .description("Cached searches invalidated by overlapping reservation changes")
+                .register(meterRegistry);
+        Gauge.builder("search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Hit ratio of the availability search cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Normalized key for a search; prices are widened to the enclosing buckets
+     */
+    public SearchKey keyFor(LocalDate startDate, LocalDate endDate, String type, Double minPrice,
+            Double maxPrice) {
+        Double low = minPrice != null ? Math.floor(minPrice / priceBucket) * priceBucket : null;
+        Double high = maxPrice != null ? Math.ceil(maxPrice / priceBucket) * priceBucket : null;
+        return new SearchKey(startDate, endDate, type, low, high);
+    }
+
+    /**
+     * Cached results for the key, loading them on a miss. A result loaded while a reservation changed
+     * is returned but not kept, as it may predate the change.
+     */
+    public CachedSearch get(SearchKey key, Function<SearchKey, CachedSearch> loader) {
+        long started = generation.get();
+        CachedSearch result = (CachedSearch) cache.get(key, k -> loader.apply((SearchKey) k));
+        // Checked after the result is in the cache: a change from here on finds and invalidates its key
+        if (generation.get() != started) {
+            cache.asMap().remove(key, result);
+        }
+        return result;
+    }
+
+    // Ordered after VehicleAvailabilityIndex so a reload triggered by the eviction sees the new state
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        generation.incrementAndGet();
+        int removed = 0;
+        for (Object key : cache.asMap().keySet()) {
+            if (key instanceof SearchKey searchKey && isAffected(searchKey, event)) {
+                cache.invalidate(key);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            invalidationEvents.increment();
+            invalidatedEntries.increment(removed);
+        }
+    }
+
+    private static boolean isAffected(SearchKey key, ReservationChangedEvent event) {
+        if (key.type() != null && !key.type().equals(event.getVehicleType())) {
+            return false;
+        }
+        return (event.wasBlocking() && key.overlaps(event.getPreviousStartDate(), event.getPreviousEndDate()))
+                || (event.isBlocking() && key.overlaps(event.getStartDate(), event.getEndDate()));
+    }
+
+    /**
+     * A cached search: vehicles is null when the key matched too many vehicles to keep in memory
+     */
+    public record CachedSearch(List<VehicleSummary> vehicles, SearchFacets facets) {
+    }
+
+    /**
+     * Cache key of a search; price bounds are bucket boundaries, not the requested values
+     */
+    public record SearchKey(LocalDate startDate, LocalDate endDate, String type, Double minPrice,
+            Double maxPrice) {
+
+        boolean overlaps(LocalDate otherStart, LocalDate otherEnd) {
+            return otherStart != null && otherEnd != null
+                    && !otherStart.isAfter(endDate) && !otherEnd.isBefore(startDate);
+        }
+    }
+}
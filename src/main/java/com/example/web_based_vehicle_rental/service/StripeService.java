@@ -2,20 +2,45 @@ package com.example.web_based_vehicle_rental.service;
 
 import com.example.web_based_vehicle_rental.model.Payment;
 import com.example.web_based_vehicle_rental.model.PaymentStatus;
-import com.example.web_based_vehicle_rental.model.Reservation;
 import com.example.web_based_vehicle_rental.repository.PaymentRepository;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.LineItem;
 import com.stripe.model.Refund;
+import com.stripe.model.StripeObject;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
 import com.stripe.param.RefundCreateParams;
 import com.stripe.param.checkout.SessionCreateParams;
+import com.stripe.param.checkout.SessionListLineItemsParams;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Service
 public class StripeService {
 
+    /**
+     * Session metadata key listing the held vehicle ids, in line item order
+     */
+    public static final String METADATA_VEHICLE_IDS = "vehicleIds";
+
+    private static final Duration MIN_SESSION_LIFETIME = Duration.ofMinutes(31);
+
+    // Webhook events after which a checkout session may have been paid
+    private static final Set<String> PAID_SESSION_EVENTS = Set.of("checkout.session.completed",
+            "checkout.session.async_payment_succeeded");
+
     private final PaymentRepository paymentRepository;
 
     @Value("${stripe.api.key}")
@@ -24,6 +49,9 @@ public class StripeService {
     @Value("${stripe.publishable.key}")
     private String stripePublishableKey;
 
+    @Value("${stripe.webhook.secret:}")
+    private String webhookSecret;
+
     @Value("${stripe.cancellation.fee.percentage:10}")
     private Integer cancellationFeePercentage;
 
@@ -31,70 +59,88 @@ public class StripeService {
         this.paymentRepository = paymentRepository;
     }
 
-    // Create a Stripe Checkout Session for a reservation
+    // Create one Checkout Session paying for a checkout's holds, one line item per vehicle.
+    // Nothing is stored until the payment succeeds; the session expires with the holds.
 
-    public String createCheckoutSession(Reservation reservation, String successUrl, String cancelUrl)
+    public Session createCheckoutSession(List<CheckoutHold> holds, String successUrl, String cancelUrl)
             throws StripeException {
         Stripe.apiKey = stripeApiKey;
 
-        // Convert amount to cents
-        long amountInCents = (long) (reservation.getTotalPrice() * 100);
+        CheckoutHold first = holds.get(0);
+        // Stripe only accepts expiries at least 30 minutes out; payments after a shorter hold are re-checked
+        long expiresAt = Math.max(first.expiresAt().getEpochSecond(),
+                Instant.now().plus(MIN_SESSION_LIFETIME).getEpochSecond());
 
-        SessionCreateParams params = SessionCreateParams.builder()
+        SessionCreateParams.Builder builder = SessionCreateParams.builder()
                 .setMode(SessionCreateParams.Mode.PAYMENT)
                 .setSuccessUrl(successUrl + "?session_id={CHECKOUT_SESSION_ID}")
                 .setCancelUrl(cancelUrl)
-                .addLineItem(
-                        SessionCreateParams.LineItem.builder()
-                                .setQuantity(1L)
-                                .setPriceData(
-                                        SessionCreateParams.LineItem.PriceData.builder()
-                                                .setCurrency("usd")
-                                                .setUnitAmount(amountInCents)
-                                                .setProductData(
-                                                        SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                                                                .setName("Vehicle Rental: "
-                                                                        + reservation.getVehicle().getBrand() + " "
-                                                                        + reservation.getVehicle().getModel())
-                                                                .setDescription(
-                                                                        "Rental from " + reservation.getStartDate()
-                                                                                + " to " + reservation.getEndDate())
-                                                                .build())
-                                                .build())
-                                .build())
-                .putMetadata("reservationId", reservation.getId().toString())
-                .putMetadata("vehicleId", reservation.getVehicle().getId().toString())
-                .putMetadata("userId", reservation.getUser().getId().toString())
-                .build();
+                .setExpiresAt(expiresAt)
+                .putMetadata(METADATA_VEHICLE_IDS, holds.stream()
+                        .map(hold -> hold.vehicleId().toString())
+                        .collect(Collectors.joining(",")))
+                .putMetadata("userId", first.userId().toString())
+                .putMetadata("startDate", first.startDate().toString())
+                .putMetadata("endDate", first.endDate().toString());
+        holds.forEach(hold -> builder.addLineItem(lineItem(hold)));
+
+        return Session.create(builder.build());
+    }
 
-        Session session = Session.create(params);
+    public Session retrieveSession(String sessionId) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
+        return Session.retrieve(sessionId);
+    }
 
-        // Create payment record with PENDING status
-        Payment payment = new Payment(reservation, reservation.getTotalPrice(), session.getId());
-        payment.setStatus(PaymentStatus.PENDING);
-        paymentRepository.save(payment);
+    // Verify a webhook delivery and return the checkout session it reports completed (and maybe paid),
+    // or null for any other event. Only the id is read, so an event from a newer API version is read
+    // as it is.
 
-        return session.getUrl();
+    public String completedSessionId(String payload, String signature) throws StripeException {
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            throw new IllegalStateException("stripe.webhook.secret is not configured");
+        }
+        Event event = Webhook.constructEvent(payload, signature, webhookSecret);
+        if (!PAID_SESSION_EVENTS.contains(event.getType())) {
+            return null;
+        }
+        EventDataObjectDeserializer data = event.getDataObjectDeserializer();
+        StripeObject session = data.getObject().isPresent() ? data.getObject().get() : data.deserializeUnsafe();
+        return ((Session) session).getId();
     }
 
-    // Verify payment and update payment record
+    // Rebuild the holds a session was opened for from its metadata and line items, for a payment
+    // completed after the holds lapsed (or after a restart)
 
-    public Payment verifyPayment(String sessionId) throws StripeException {
+    public List<CheckoutHold> holdsOf(Session session) throws StripeException {
         Stripe.apiKey = stripeApiKey;
 
-        Session session = Session.retrieve(sessionId);
+        Map<String, String> metadata = session.getMetadata();
+        String[] vehicleIds = metadata.get(METADATA_VEHICLE_IDS).split(",");
+        List<LineItem> lineItems = session.listLineItems(
+                SessionListLineItemsParams.builder().setLimit((long) vehicleIds.length).build()).getData();
+        Long userId = Long.valueOf(metadata.get("userId"));
+        LocalDate startDate = LocalDate.parse(metadata.get("startDate"));
+        LocalDate endDate = LocalDate.parse(metadata.get("endDate"));
+        Instant expiresAt = Instant.ofEpochSecond(session.getExpiresAt());
+
+        List<CheckoutHold> holds = new ArrayList<>(vehicleIds.length);
+        for (int i = 0; i < vehicleIds.length; i++) {
+            LineItem item = lineItems.get(i);
+            holds.add(new CheckoutHold(0, userId, Long.valueOf(vehicleIds[i]), item.getDescription(), startDate,
+                    endDate, item.getAmountTotal() / 100.0, expiresAt, session.getId()));
+        }
+        return holds;
+    }
 
-        Payment payment = paymentRepository.findByStripeSessionId(sessionId)
-                .orElseThrow(() -> new RuntimeException("Payment not found for session: " + sessionId));
+    // Refund a paid session in full, for a booking that could not be completed
 
-        if ("paid".equals(session.getPaymentStatus())) {
-            payment.setStatus(PaymentStatus.SUCCEEDED);
-            payment.setStripePaymentIntentId(session.getPaymentIntent());
-        } else {
-            payment.setStatus(PaymentStatus.FAILED);
-        }
+    public Refund refundInFull(Session session) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
 
-        return paymentRepository.save(payment);
+        return Refund.create(RefundCreateParams.builder()
+                .setPaymentIntent(session.getPaymentIntent())
+                .build());
     }
 
     // Process refund with cancellation fee
@@ -125,6 +171,27 @@ public class StripeService {
         return paymentRepository.save(payment);
     }
 
+    private static SessionCreateParams.LineItem lineItem(CheckoutHold hold) {
+        // Convert amount to cents
+        long amountInCents = (long) (hold.totalPrice() * 100);
+
+        return SessionCreateParams.LineItem.builder()
+                .setQuantity(1L)
+                .setPriceData(
+                        SessionCreateParams.LineItem.PriceData.builder()
+                                .setCurrency("usd")
+                                .setUnitAmount(amountInCents)
+                                .setProductData(
+                                        SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                                .setName("Vehicle Rental: " + hold.vehicleName())
+                                                .setDescription(
+                                                        "Rental from " + hold.startDate()
+                                                                + " to " + hold.endDate())
+                                                .build())
+                                .build())
+                .build();
+    }
+
     // Get publishable key for frontend
     public String getPublishableKey() {
         return stripePublishableKey;
@@ -9,10 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,16 +17,12 @@ import java.util.UUID;
 public class SupportService {
 
     private final SupportRequestRepository supportRequestRepository;
-    private static final String UPLOAD_DIR = "uploads/support-screenshots/";
+    private final BlobStorage blobStorage;
+    public static final String SCREENSHOT_PREFIX = "uploads/support-screenshots/";
 
-    public SupportService(SupportRequestRepository supportRequestRepository) {
+    public SupportService(SupportRequestRepository supportRequestRepository, BlobStorage blobStorage) {
         this.supportRequestRepository = supportRequestRepository;
-        // Create upload directory if it doesn't exist
-        try {
-            Files.createDirectories(Paths.get(UPLOAD_DIR));
-        } catch (IOException e) {
-            throw new RuntimeException("Could not create upload directory", e);
-        }
+        this.blobStorage = blobStorage;
     }
 
     public SupportRequest createSupportRequest(User user, SupportCategory category,
@@ -52,14 +45,15 @@ public class SupportService {
         String extension = originalFilename != null && originalFilename.contains(".")
                 ? originalFilename.substring(originalFilename.lastIndexOf("."))
                 : "";
-        String filename = UUID.randomUUID().toString() + extension;
+        String key = SCREENSHOT_PREFIX + UUID.randomUUID() + extension;
 
-        // Save file
-        Path filePath = Paths.get(UPLOAD_DIR + filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        // Stream it to storage rather than reading it into memory
+        try (InputStream in = file.getInputStream()) {
+            blobStorage.put(key, in, file.getContentType());
+        }
 
         // Return relative path for storage and access
-        return "/uploads/support-screenshots/" + filename;
+        return "/" + key;
     }
 
     public List<SupportRequest> getUserRequests(User user) {
@@ -1,9 +1,12 @@
 package com.example.web_based_vehicle_rental.service;
 
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.dto.ReservationSummary;
 import com.example.web_based_vehicle_rental.model.User;
-import com.example.web_based_vehicle_rental.model.Reservation;
 import com.example.web_based_vehicle_rental.repository.ReservationRepository;
 import com.example.web_based_vehicle_rental.repository.UserRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -53,6 +56,7 @@ public class UserService {
         verificationService.createVerificationToken(savedUser);
     }
 
+    @CacheEvict(value = CacheConfig.USER_RESERVATIONS, key = "#currentUsername")
     public void updateProfile(String currentUsername, User updatedUser) {
         User user = userRepository.findByUsername(currentUsername)
                 .orElseThrow(() -> new IllegalArgumentException("Username not found"));
@@ -80,6 +84,7 @@ public class UserService {
         userRepository.save(Objects.requireNonNull(user));
     }
 
+    @CacheEvict(value = CacheConfig.USER_RESERVATIONS, key = "#username")
     public void deleteAccount(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -90,9 +95,12 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
-    public java.util.List<Reservation> getUserReservations(String username) {
+    // Immutable summaries, shared by every request that hits the cache. Evicted by
+    // ReservationCacheEvictionListener whenever one of the user's reservations or any vehicle changes
+    @Cacheable(value = CacheConfig.USER_RESERVATIONS, key = "#username")
+    public java.util.List<ReservationSummary> getUserReservations(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return reservationRepository.findByUserId(user.getId());
+        return java.util.List.copyOf(reservationRepository.findSummariesByUserId(user.getId()));
     }
 }
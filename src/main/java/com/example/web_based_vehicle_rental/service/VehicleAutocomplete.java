@@ -0,0 +1,222 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSuggestion;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Typeahead over brands and models of rentable vehicles.
+ *
+ * Suggestions are filed under lower-cased keys in one sorted array: a brand
+ * under its name, a model under both "brand model" and the model alone, so
+ * "pri" and "toyota p" both find "Toyota Prius". A lookup is two binary
+ * searches for the range of keys starting with the prefix (compared in place,
+ * without lower-casing it into a new string) and one pass over that range
+ * keeping the most common suggestions, so it allocates only its result.
+ *
+ * Built when the application is ready and rebuilt on a thread of its own after
+ * every {@link CatalogChangedEvent}; lookups read whichever version is
+ * current without locking.
+ */
+@Component
+public class VehicleAutocomplete {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleAutocomplete.class);
+
+    private final VehicleCatalogService vehicleCatalogService;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final Object rebuildLock = new Object();
+    private volatile Entries entries = new Entries(new String[0], new VehicleSuggestion[0]);
+    // Rebuilds block on the database, so they stay off the common pool
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autocomplete-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VehicleAutocomplete(VehicleCatalogService vehicleCatalogService) {
+        this.vehicleCatalogService = vehicleCatalogService;
+    }
+
+    /**
+     * Up to {@code limit} suggestions starting with the prefix (ignoring case), most vehicles first,
+     * then alphabetically
+     */
+    public List<VehicleSuggestion> suggest(CharSequence prefix, int limit) {
+        Entries current = entries;
+        if (prefix.length() == 0 || limit <= 0) {
+            return List.of();
+        }
+        int from = current.firstAtOrAfter(prefix, false);
+        int to = current.firstAtOrAfter(prefix, true);
+
+        VehicleSuggestion[] best = new VehicleSuggestion[Math.min(limit, to - from)];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            VehicleSuggestion candidate = current.suggestions[i];
+            if (size == best.length && candidate.getCount() <= best[size - 1].getCount()) {
+                continue;
+            }
+            if (contains(best, size, candidate)) {
+                continue; // a model reached through both of its keys
+            }
+            // Insert by count; equal counts keep key order, which is alphabetical
+            int at = size < best.length ? size++ : size - 1;
+            while (at > 0 && best[at - 1].getCount() < candidate.getCount()) {
+                best[at] = best[at - 1];
+                at--;
+            }
+            best[at] = candidate;
+        }
+        return Collections.unmodifiableList(Arrays.asList(best).subList(0, size));
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, CatalogChangedEvent.class })
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Recount brands and models from the database (not the catalog cache, which may still hold the
+     * list from before a change) and swap in the new entries
+     */
+    public void rebuild() {
+        rebuildQueued.set(false); // changes from here on need another rebuild
+        synchronized (rebuildLock) {
+            try {
+                entries = build(vehicleCatalogService.loadCatalog());
+                logger.debug("Autocomplete rebuilt with {} key(s)", entries.keys.length);
+            } catch (Exception e) {
+                logger.error("Failed to rebuild autocomplete, keeping the previous suggestions", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private static Entries build(List<VehicleSummary> vehicles) {
+        // Grouped case-insensitively; the first spelling seen is the one suggested
+        Map<String, String> brandNames = new LinkedHashMap<>();
+        Map<String, Integer> brandCounts = new LinkedHashMap<>();
+        Map<String, String> modelNames = new LinkedHashMap<>();
+        Map<String, Integer> modelCounts = new LinkedHashMap<>();
+        Map<String, String> modelOnlyKeys = new LinkedHashMap<>();
+        for (VehicleSummary vehicle : vehicles) {
+            if (vehicle.getStatus() != VehicleStatus.AVAILABLE || isBlank(vehicle.getBrand())) {
+                continue;
+            }
+            String brand = vehicle.getBrand().trim();
+            String brandKey = brand.toLowerCase(Locale.ROOT);
+            brandNames.putIfAbsent(brandKey, brand);
+            brandCounts.merge(brandKey, 1, Integer::sum);
+            if (!isBlank(vehicle.getModel())) {
+                String model = brandNames.get(brandKey) + " " + vehicle.getModel().trim();
+                String modelKey = model.toLowerCase(Locale.ROOT);
+                modelNames.putIfAbsent(modelKey, model);
+                modelOnlyKeys.putIfAbsent(modelKey, vehicle.getModel().trim().toLowerCase(Locale.ROOT));
+                modelCounts.merge(modelKey, 1, Integer::sum);
+            }
+        }
+
+        TreeMap<String, List<VehicleSuggestion>> byKey = new TreeMap<>();
+        brandCounts.forEach((key, count) -> byKey.computeIfAbsent(key, k -> new ArrayList<>())
+                .add(new VehicleSuggestion(brandNames.get(key), VehicleSuggestion.Kind.BRAND, count)));
+        modelCounts.forEach((key, count) -> {
+            VehicleSuggestion suggestion = new VehicleSuggestion(modelNames.get(key), VehicleSuggestion.Kind.MODEL,
+                    count);
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(suggestion);
+            byKey.computeIfAbsent(modelOnlyKeys.get(key), k -> new ArrayList<>()).add(suggestion);
+        });
+
+        List<String> keys = new ArrayList<>();
+        List<VehicleSuggestion> suggestions = new ArrayList<>();
+        byKey.forEach((key, filed) -> filed.forEach(suggestion -> {
+            keys.add(key);
+            suggestions.add(suggestion);
+        }));
+        return new Entries(keys.toArray(new String[0]), suggestions.toArray(new VehicleSuggestion[0]));
+    }
+
+    private static boolean contains(VehicleSuggestion[] found, int size, VehicleSuggestion suggestion) {
+        for (int i = 0; i < size; i++) {
+            if (found[i] == suggestion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Sorted lower-cased keys and the suggestion filed under each; a key repeats when several share it
+     */
+    private static final class Entries {
+
+        final String[] keys;
+        final VehicleSuggestion[] suggestions;
+
+        Entries(String[] keys, VehicleSuggestion[] suggestions) {
+            this.keys = keys;
+            this.suggestions = suggestions;
+        }
+
+        /**
+         * First index whose key sorts at or after the prefix; with {@code pastPrefix}, the first after
+         * every key starting with it
+         */
+        int firstAtOrAfter(CharSequence prefix, boolean pastPrefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int comparison = comparePrefix(keys[mid], prefix);
+                if (comparison < 0 || (pastPrefix && comparison == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Compare a key with the prefix over the prefix's length only: 0 when the key starts with it
+         */
+        private static int comparePrefix(String key, CharSequence prefix) {
+            int length = Math.min(key.length(), prefix.length());
+            for (int i = 0; i < length; i++) {
+                int difference = key.charAt(i) - Character.toLowerCase(prefix.charAt(i));
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return key.length() < prefix.length() ? -1 : 0;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.repository.ReservationInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of CONFIRMED reservation date ranges, one
+ * {@link BookedIntervals} per vehicle.
+ *
+ * Loaded once when the application is ready and then kept current from
+ * {@link ReservationChangedEvent}s after each transaction commits. Until the
+ * first load finishes (or after {@link #invalidate()}) {@link #isReady()}
+ * returns false and callers should fall back to the database query. A load
+ * that fails is retried every {@code availability.index.retry-interval}
+ * until one succeeds.
+ */
+@Component
+public class VehicleAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleAvailabilityIndex.class);
+
+    private final ReservationRepository reservationRepository;
+
+    private final Object updateLock = new Object();
+    private volatile ConcurrentHashMap<Long, BookedIntervals> intervalsByVehicle = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // Events received while a rebuild is loading, replayed onto the new map (guarded by updateLock)
+    private List<ReservationChangedEvent> pendingDuringRebuild;
+
+    public VehicleAvailabilityIndex(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Reload the whole index from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (updateLock) {
+            if (pendingDuringRebuild != null) {
+                return; // a rebuild is already running
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        ConcurrentHashMap<Long, BookedIntervals> rebuilt = new ConcurrentHashMap<>();
+        try {
+            List<ReservationInterval> intervals = reservationRepository
+                    .findIntervalsByStatus(ReservationStatus.CONFIRMED);
+            for (ReservationInterval interval : intervals) {
+                rebuilt.compute(interval.getVehicleId(), (vehicleId, current) -> (current != null
+                        ? current
+                        : BookedIntervals.EMPTY).with(interval.getId(),
+                                interval.getStartDate().toEpochDay(), interval.getEndDate().toEpochDay()));
+            }
+
+            synchronized (updateLock) {
+                pendingDuringRebuild.forEach(event -> apply(rebuilt, event));
+                intervalsByVehicle = rebuilt;
+                ready = true;
+            }
+            logger.info("Availability index loaded with {} confirmed reservation(s) across {} vehicle(s)",
+                    intervals.size(), rebuilt.size());
+        } catch (Exception e) {
+            logger.error("Failed to build availability index, searches will use the database", e);
+        } finally {
+            synchronized (updateLock) {
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Retry a failed load, so searches do not stay on the database until the next restart
+     */
+    @Scheduled(fixedDelayString = "${availability.index.retry-interval:PT1M}",
+            initialDelayString = "${availability.index.retry-interval:PT1M}")
+    public void rebuildIfNotReady() {
+        if (!ready) {
+            logger.info("Availability index is not ready, reloading it");
+            rebuild();
+        }
+    }
+
+    /**
+     * Mark the index as stale and reload it in the background
+     */
+    public void invalidate() {
+        ready = false;
+        CompletableFuture.runAsync(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether the vehicle has a CONFIRMED reservation intersecting [startDate, endDate]
+     */
+    public boolean isBooked(Long vehicleId, LocalDate startDate, LocalDate endDate) {
+        BookedIntervals intervals = intervalsByVehicle.get(vehicleId);
+        return intervals != null && intervals.overlaps(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    /**
+     * The vehicle's CONFIRMED ranges, empty if it has none
+     */
+    public BookedIntervals intervalsOf(Long vehicleId) {
+        return intervalsByVehicle.getOrDefault(vehicleId, BookedIntervals.EMPTY);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        synchronized (updateLock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(intervalsByVehicle, event);
+        }
+    }
+
+    private static void apply(ConcurrentHashMap<Long, BookedIntervals> target, ReservationChangedEvent event) {
+        long reservationId = event.getReservationId();
+        target.compute(event.getVehicleId(), (vehicleId, current) -> {
+            BookedIntervals updated = current != null ? current.without(reservationId) : BookedIntervals.EMPTY;
+            if (event.isBlocking()) {
+                updated = updated.with(reservationId,
+                        event.getStartDate().toEpochDay(), event.getEndDate().toEpochDay());
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+}
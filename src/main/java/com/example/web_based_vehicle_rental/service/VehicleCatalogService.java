@@ -0,0 +1,129 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.repository.PrimaryImageUrl;
+import com.example.web_based_vehicle_rental.repository.VehicleImageRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the vehicle catalog: builds {@link VehicleSummary} lists with
+ * one query for the vehicles and one batched query for their primary images,
+ * however large the fleet is.
+ */
+@Service
+public class VehicleCatalogService {
+
+    private final VehicleRepository vehicleRepository;
+    private final VehicleImageRepository vehicleImageRepository;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeoutNanos;
+
+    public VehicleCatalogService(VehicleRepository vehicleRepository,
+            VehicleImageRepository vehicleImageRepository, ObjectMapper objectMapper,
+            @Value("${catalog.stream.timeout-seconds:30}") int streamTimeoutSeconds) {
+        this.vehicleRepository = vehicleRepository;
+        this.vehicleImageRepository = vehicleImageRepository;
+        this.objectMapper = objectMapper;
+        this.streamTimeoutNanos = TimeUnit.SECONDS.toNanos(streamTimeoutSeconds);
+    }
+
+    /**
+     * Every vehicle in the fleet, as catalog cards, cached under the {@link CatalogVersion} read
+     * before the call. A load still running when a change moves the version on can only refill the
+     * old version's entry, which no request asks for any more.
+     */
+    @Cacheable(value = CacheConfig.VEHICLE_CATALOG, key = "#version")
+    @Transactional(readOnly = true)
+    public List<VehicleSummary> getCatalog(long version) {
+        return loadCatalog();
+    }
+
+    /**
+     * Every vehicle in the fleet as it is in the database now, bypassing the catalog cache
+     */
+    @Transactional(readOnly = true)
+    public List<VehicleSummary> loadCatalog() {
+        List<VehicleSummary> vehicles = vehicleRepository.findAllSummaries();
+        if (!vehicles.isEmpty()) {
+            applyPrimaryImages(vehicles, vehicleImageRepository.findAllPrimaryImageUrls());
+        }
+        return vehicles;
+    }
+
+    /**
+     * Write every vehicle as newline-delimited JSON while reading them from a database cursor,
+     * so memory use stays the same however large the fleet is. Bypasses the catalog cache.
+     *
+     * The cursor holds a pooled connection for as long as the client takes to read, so the whole
+     * stream is bounded by catalog.stream.timeout-seconds: the transaction timeout caps each statement,
+     * and a stream still being read after it is cut off.
+     */
+    @Transactional(readOnly = true, timeoutString = "${catalog.stream.timeout-seconds:30}")
+    public void writeCatalogNdjson(OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        // Let the servlet buffer decide when to send bytes instead of flushing after every vehicle
+        ObjectWriter writer = objectMapper.writerFor(VehicleSummary.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<VehicleSummary> vehicles = vehicleRepository.streamAllSummaries();
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            Long previousId = null;
+            for (Iterator<VehicleSummary> it = vehicles.iterator(); it.hasNext();) {
+                VehicleSummary vehicle = it.next();
+                if (vehicle.getId().equals(previousId)) {
+                    continue; // another primary image of the same vehicle
+                }
+                if (System.nanoTime() - started > streamTimeoutNanos) {
+                    throw new IllegalStateException("Catalog stream timed out, the client is reading too slowly");
+                }
+                previousId = vehicle.getId();
+                writer.writeValue(generator, vehicle);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * Fill in primary gallery images for a page of summaries with one query
+     */
+    @Transactional(readOnly = true)
+    public List<VehicleSummary> withPrimaryImages(List<VehicleSummary> vehicles) {
+        if (!vehicles.isEmpty()) {
+            List<Long> ids = vehicles.stream().map(VehicleSummary::getId).collect(Collectors.toList());
+            applyPrimaryImages(vehicles, vehicleImageRepository.findPrimaryImageUrls(ids));
+        }
+        return vehicles;
+    }
+
+    private void applyPrimaryImages(List<VehicleSummary> vehicles, List<PrimaryImageUrl> primaryImages) {
+        Map<Long, PrimaryImageUrl> imageByVehicle = new HashMap<>();
+        // Keep the first primary image per vehicle, matching Vehicle.getPrimaryImageUrl()
+        primaryImages.forEach(image -> imageByVehicle.putIfAbsent(image.getVehicleId(), image));
+        for (VehicleSummary vehicle : vehicles) {
+            PrimaryImageUrl primary = imageByVehicle.get(vehicle.getId());
+            if (primary != null) {
+                vehicle.setPrimaryImageUrl(primary.getImageUrl());
+                vehicle.setCardImageUrl(primary.getCardUrl());
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index for free-text vehicle search over brand, model,
+ * type and year.
+ *
+ * Every word of those fields is a term pointing at the vehicles that have it,
+ * and every term is also filed under its character trigrams, so a misspelt
+ * query word ("toyta") finds the terms it shares enough trigrams with
+ * ("toyota") without scanning the vocabulary. A query word scores 1 for an
+ * exact term, {@value #PREFIX_SCORE} for a term it starts, and its trigram
+ * similarity scaled by {@value #FUZZY_WEIGHT} otherwise; a vehicle's relevance
+ * is the mean over the query words of its best term.
+ *
+ * Loaded from the catalog when the application is ready; each
+ * {@link CatalogChangedEvent} re-reads just the vehicle that changed, and one
+ * without a vehicle reloads the whole index on a thread of its own.
+ * Searches read the maps without locking.
+ */
+@Component
+public class VehicleSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleSearchIndex.class);
+
+    static final double PREFIX_SCORE = 0.8;
+    static final double FUZZY_WEIGHT = 0.7;
+    // Longer queries are cut here so one request cannot make a search arbitrarily expensive
+    static final int MAX_QUERY_TERMS = 8;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final VehicleRepository vehicleRepository;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final double minSimilarity;
+
+    private final Object updateLock = new Object();
+    // Guarded by updateLock: vehicles changed while a rebuild was loading the catalog
+    private Set<Long> pendingDuringRebuild;
+    private volatile Index index = new Index();
+    // Reloads block on the database, so they stay off the common pool
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VehicleSearchIndex(VehicleRepository vehicleRepository, VehicleCatalogService vehicleCatalogService,
+            @Value("${search.text.min-similarity:0.25}") double minSimilarity) {
+        this.vehicleRepository = vehicleRepository;
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Rentable vehicles matching the query, best first (ties by id), each a copy carrying its relevance
+     */
+    public List<VehicleSummary> search(String query) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(termsOf(query)));
+        words.subList(Math.min(words.size(), MAX_QUERY_TERMS), words.size()).clear();
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        Index current = index;
+        Map<Long, Double> scores = new HashMap<>();
+        for (String word : words) {
+            Map<Long, Double> best = new HashMap<>();
+            matchingTerms(current, word).forEach((term, score) -> {
+                Set<Long> ids = current.vehiclesByTerm.get(term);
+                if (ids != null) {
+                    ids.forEach(id -> best.merge(id, score, Math::max));
+                }
+            });
+            best.forEach((id, score) -> scores.merge(id, score, Double::sum));
+        }
+
+        List<VehicleSummary> matches = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            VehicleSummary vehicle = current.vehicles.get(id);
+            if (vehicle != null && vehicle.getStatus() == VehicleStatus.AVAILABLE) {
+                matches.add(vehicle.withRelevance(Math.round(score / words.size() * 10_000) / 10_000.0));
+            }
+        });
+        matches.sort(Comparator.comparing(VehicleSummary::getRelevance).reversed()
+                .thenComparing(VehicleSummary::getId));
+        return matches;
+    }
+
+    /**
+     * Index terms close enough to one query word, with the score each earns
+     */
+    private Map<String, Double> matchingTerms(Index current, String word) {
+        Map<String, Double> terms = new HashMap<>();
+        if (current.vehiclesByTerm.containsKey(word)) {
+            terms.put(word, 1.0);
+        }
+        Set<String> wordTrigrams = trigrams(word);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : wordTrigrams) {
+            Set<String> candidates = current.termsByTrigram.get(trigram);
+            if (candidates != null) {
+                candidates.forEach(term -> shared.merge(term, 1, Integer::sum));
+            }
+        }
+        boolean numeric = word.chars().allMatch(Character::isDigit);
+        shared.forEach((term, count) -> {
+            if (term.equals(word)) {
+                return;
+            }
+            if (term.startsWith(word)) {
+                terms.put(term, PREFIX_SCORE);
+            } else if (!numeric) { // "2019" should not find 2018
+                double similarity = count / (double) (wordTrigrams.size() + trigrams(term).size() - count);
+                if (similarity >= minSimilarity) {
+                    terms.put(term, FUZZY_WEIGHT * similarity);
+                }
+            }
+        });
+        return terms;
+    }
+
+    /**
+     * Reload the whole index from the database (not the catalog cache, which may still hold the list
+     * from before a change)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (updateLock) {
+            if (pendingDuringRebuild != null) {
+                return; // a rebuild is already running
+            }
+            pendingDuringRebuild = new LinkedHashSet<>();
+        }
+
+        Set<Long> pending = Set.of();
+        try {
+            Index rebuilt = new Index();
+            vehicleCatalogService.loadCatalog().forEach(rebuilt::put);
+            synchronized (updateLock) {
+                index = rebuilt;
+                pending = pendingDuringRebuild;
+            }
+            logger.info("Search index loaded with {} vehicle(s) and {} term(s)", rebuilt.vehicles.size(),
+                    rebuilt.vehiclesByTerm.size());
+        } catch (Exception e) {
+            logger.error("Failed to load the search index, keeping the previous one", e);
+        } finally {
+            synchronized (updateLock) {
+                pendingDuringRebuild = null;
+            }
+        }
+        // The catalog may or may not have included these changes; reading them again settles it
+        pending.forEach(this::reindex);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.vehicleId() == null) {
+            rebuildExecutor.execute(this::rebuild);
+            return;
+        }
+        try {
+            reindex(event.vehicleId());
+        } catch (Exception e) {
+            logger.error("Failed to reindex vehicle {}, reloading the search index", event.vehicleId(), e);
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Replace one vehicle's entry with what the database holds now, or drop it if the vehicle is gone.
+     * Reads and writes under the lock, so concurrent changes to one vehicle apply in order.
+     */
+    private void reindex(Long vehicleId) {
+        synchronized (updateLock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(vehicleId);
+            }
+            List<VehicleSummary> found = vehicleCatalogService.withPrimaryImages(
+                    vehicleRepository.findSummariesByIds(List.of(vehicleId)));
+            index.remove(vehicleId);
+            found.forEach(index::put);
+        }
+    }
+
+    /**
+     * Lower-cased words of a text, split on anything that is not a letter or digit
+     */
+    static List<String> termsOf(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text != null) {
+            for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    terms.add(word);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Distinct trigrams of a term padded with word boundaries ("$ab$" for "ab")
+     */
+    static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static Set<String> termsOf(VehicleSummary vehicle) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(termsOf(vehicle.getBrand()));
+        terms.addAll(termsOf(vehicle.getModel()));
+        terms.addAll(termsOf(vehicle.getType()));
+        terms.add(String.valueOf(vehicle.getYear()));
+        return terms;
+    }
+
+    /**
+     * Vehicles, term postings and the trigram index over the terms. Written only under updateLock.
+     */
+    private static final class Index {
+
+        final Map<Long, VehicleSummary> vehicles = new ConcurrentHashMap<>();
+        final Map<String, Set<Long>> vehiclesByTerm = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> termsByTrigram = new ConcurrentHashMap<>();
+
+        void put(VehicleSummary vehicle) {
+            remove(vehicle.getId());
+            vehicles.put(vehicle.getId(), vehicle);
+            for (String term : termsOf(vehicle)) {
+                vehiclesByTerm.computeIfAbsent(term, newTerm -> {
+                    trigrams(newTerm).forEach(trigram -> termsByTrigram
+                            .computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(newTerm));
+                    return ConcurrentHashMap.newKeySet();
+                }).add(vehicle.getId());
+            }
+        }
+
+        void remove(Long vehicleId) {
+            VehicleSummary previous = vehicles.remove(vehicleId);
+            if (previous == null) {
+                return;
+            }
+            for (String term : termsOf(previous)) {
+                Set<Long> ids = vehiclesByTerm.get(term);
+                if (ids == null || !ids.remove(vehicleId) || !ids.isEmpty()) {
+                    continue;
+                }
+                // Last vehicle with this term: drop it from the vocabulary too
+                vehiclesByTerm.remove(term);
+                for (String trigram : trigrams(term)) {
+                    Set<String> terms = termsByTrigram.get(trigram);
+                    if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                        termsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+}
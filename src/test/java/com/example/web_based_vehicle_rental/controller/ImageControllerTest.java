@@ -0,0 +1,174 @@
+package com.example.web_based_vehicle_rental.controller;
+
+import com.example.web_based_vehicle_rental.repository.StoredImageRepository;
+import com.example.web_based_vehicle_rental.service.BlobStorage;
+import com.example.web_based_vehicle_rental.service.ImageStore;
+import com.example.web_based_vehicle_rental.service.LocalBlobStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageControllerTest {
+
+	private static final String CONTENT = "0123456789abcdefghij";
+
+	@TempDir
+	Path uploadRoot;
+
+	private ImageStore imageStore;
+	private MockMvc mvc;
+	private String storedUrl;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		BlobStorage blobStorage = new LocalBlobStorage(uploadRoot.toString(), uploadRoot.resolve("uploads").toString());
+		imageStore = new ImageStore(mock(StoredImageRepository.class), blobStorage,
+				mock(PlatformTransactionManager.class));
+		storedUrl = imageStore.store(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)), "car.jpg");
+		Files.createDirectories(uploadRoot.resolve("vehicles"));
+		Files.writeString(uploadRoot.resolve("vehicles/1700000000000_car.png"), CONTENT);
+		// A tiny hot cache limit, so the large-file path is exercised as well
+		mvc = MockMvcBuilders.standaloneSetup(new ImageController(blobStorage, 1024, 8)).build();
+	}
+
+	@Test
+	void servesContentAddressedImagesAsImmutable() throws Exception {
+		mvc.perform(get(storedUrl))
+				.andExpect(status().isOk())
+				.andExpect(content().string(CONTENT))
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+
+		mvc.perform(get("/images/vehicles/1700000000000_car.png"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"));
+	}
+
+	@Test
+	void answersRevalidationWithNotModified() throws Exception {
+		String eTag = mvc.perform(get(storedUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		MvcResult result = mvc.perform(get(storedUrl).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andReturn();
+		assertEquals(0, result.getResponse().getContentAsByteArray().length);
+	}
+
+	@Test
+	void servesSingleByteRanges() throws Exception {
+		mvc.perform(get(storedUrl).header(HttpHeaders.RANGE, "bytes=2-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/20"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+				.andExpect(content().string("2345"));
+
+		mvc.perform(get(storedUrl).header(HttpHeaders.RANGE, "bytes=-3"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().string("hij"));
+
+		mvc.perform(get(storedUrl).header(HttpHeaders.RANGE, "bytes=15-"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 15-19/20"))
+				.andExpect(content().string("fghij"));
+
+		mvc.perform(get(storedUrl).header(HttpHeaders.RANGE, "bytes=20-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+	}
+
+	@Test
+	void sendsTheWholeFileWhenTheRangeCannotBeUsed() throws Exception {
+		mvc.perform(get(storedUrl).header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(CONTENT));
+
+		mvc.perform(get(storedUrl).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"stale\""))
+				.andExpect(status().isOk())
+				.andExpect(content().string(CONTENT));
+	}
+
+	@Test
+	void headSendsHeadersOnly() throws Exception {
+		MvcResult result = mvc.perform(head(storedUrl))
+				.andExpect(status().isOk())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 20))
+				.andReturn();
+		assertEquals(0, result.getResponse().getContentAsByteArray().length);
+	}
+
+	@Test
+	void hidesMissingUnfinishedAndOutsideFiles() throws Exception {
+		Files.createDirectories(uploadRoot.resolve("cas/ab"));
+		Files.writeString(uploadRoot.resolve("cas/ab/.car.jpg123.tmp"), "partial");
+		Files.createDirectories(uploadRoot.resolve(".staging"));
+		Files.writeString(uploadRoot.resolve(".staging/upload1.jpg"), "partial");
+
+		mvc.perform(get("/images/vehicles/missing.jpg")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/cas/ab/.car.jpg123.tmp")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/.staging/upload1.jpg")).andExpect(status().isNotFound());
+		mvc.perform(get("/images/vehicles")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void servesSupportScreenshotsPrivately() throws Exception {
+		Files.createDirectories(uploadRoot.resolve("uploads/support-screenshots"));
+		Files.writeString(uploadRoot.resolve("uploads/support-screenshots/shot.png"), CONTENT);
+
+		mvc.perform(get("/uploads/support-screenshots/shot.png"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(CONTENT))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, private"));
+	}
+
+	@Test
+	void redirectsToRemoteStorage() throws Exception {
+		BlobStorage remote = mock(BlobStorage.class);
+		when(remote.directUrl("images/cas/ab/ab12.jpg"))
+				.thenReturn(URI.create("https://bucket.example.com/images/cas/ab/ab12.jpg?X-Amz-Signature=1"));
+		MockMvc remoteMvc = MockMvcBuilders.standaloneSetup(new ImageController(remote, 1024, 8)).build();
+
+		remoteMvc.perform(get("/images/cas/ab/ab12.jpg"))
+				.andExpect(status().isFound())
+				.andExpect(header().string(HttpHeaders.LOCATION,
+						"https://bucket.example.com/images/cas/ab/ab12.jpg?X-Amz-Signature=1"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300"));
+		remoteMvc.perform(get("/images/cas/ab/.ab12.jpg1.tmp")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void parsesRangesAgainstTheFileSize() {
+		assertArrayEquals(new long[] { 0, 9 }, ImageController.parseRange("bytes=0-100", 10));
+		assertArrayEquals(new long[] { 0, 9 }, ImageController.parseRange("bytes=-100", 10));
+		assertArrayEquals(new long[0], ImageController.parseRange("bytes=-0", 10));
+		assertArrayEquals(new long[0], ImageController.parseRange("bytes=0-", 0));
+		assertNull(ImageController.parseRange("bytes=5-2", 10));
+		assertNull(ImageController.parseRange("items=0-1", 10));
+		assertNull(ImageController.parseRange("bytes=99999999999999999999-", 10));
+	}
+}
@@ -0,0 +1,197 @@
+package com.example.web_based_vehicle_rental.controller;
+
+import com.example.web_based_vehicle_rental.repository.StoredImageRepository;
+import com.example.web_based_vehicle_rental.service.BlobStorage;
+import com.example.web_based_vehicle_rental.service.ImageStore;
+import com.example.web_based_vehicle_rental.service.LocalBlobStorage;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Requests/sec and p99 latency of vehicle images served by ImageController
+ * against the resource handler that used to serve /images/** (registered here
+ * under /legacy/ over the same files). Card-sized images are the bulk of
+ * catalog traffic; detail photos are larger and go through sendfile. Each
+ * figure is the median of several rounds after a warm-up round.
+ */
+@Tag("benchmark")
+class ImageServingLoadTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(ImageServingLoadTest.class);
+
+	private static final int CARDS = 40;
+	private static final int CARD_BYTES = 48 * 1024;
+	private static final int DETAILS = 8;
+	private static final int DETAIL_BYTES = 640 * 1024;
+	private static final int THREADS = 8;
+	private static final int REQUESTS_PER_THREAD = 400;
+	private static final int ROUNDS = 5;
+
+	@Test
+	void imageControllerOutservesTheResourceHandler(@TempDir Path uploadRoot, @TempDir Path baseDir)
+			throws Exception {
+		BlobStorage blobStorage = new LocalBlobStorage(uploadRoot.toString(), uploadRoot.resolve("uploads").toString());
+		ImageStore imageStore = new ImageStore(mock(StoredImageRepository.class), blobStorage,
+				mock(PlatformTransactionManager.class));
+		List<String> cards = storeImages(imageStore, CARDS, CARD_BYTES);
+		List<String> details = storeImages(imageStore, DETAILS, DETAIL_BYTES);
+
+		GenericWebApplicationContext web = new GenericWebApplicationContext();
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(web);
+		web.registerBean(MvcConfig.class);
+		web.registerBean(WebMvcConfigurer.class, () -> new WebMvcConfigurer() {
+			@Override
+			public void addResourceHandlers(ResourceHandlerRegistry registry) {
+				registry.addResourceHandler("/legacy/**").addResourceLocations("file:" + uploadRoot + "/");
+			}
+		});
+		web.registerBean(ImageController.class, () -> new ImageController(blobStorage, 32 * 1024 * 1024, 256 * 1024));
+
+		Tomcat tomcat = new Tomcat();
+		tomcat.setBaseDir(baseDir.toString());
+		tomcat.setPort(0);
+		Context context = tomcat.addContext("", baseDir.toString());
+		Tomcat.addServlet(context, "dispatcher", new DispatcherServlet(web)).setLoadOnStartup(1);
+		context.addServletMappingDecoded("/", "dispatcher");
+		tomcat.start();
+		ExecutorService clientPool = Executors.newFixedThreadPool(THREADS);
+		try {
+			String base = "http://localhost:" + tomcat.getConnector().getLocalPort();
+			HttpClient client = HttpClient.newBuilder().executor(clientPool).build();
+
+			// Rounds alternate the handlers so drift (JIT, page cache) hits both alike; one run is too noisy
+			List<Result> legacyCards = new ArrayList<>();
+			List<Result> servedCards = new ArrayList<>();
+			List<Result> legacyDetails = new ArrayList<>();
+			List<Result> servedDetails = new ArrayList<>();
+			for (int round = 0; round <= ROUNDS; round++) { // round 0 only warms up
+				Result[] results = {
+						load(client, base + "/legacy", cards, CARD_BYTES),
+						load(client, base + "/images", cards, CARD_BYTES),
+						load(client, base + "/legacy", details, DETAIL_BYTES),
+						load(client, base + "/images", details, DETAIL_BYTES) };
+				if (round > 0) {
+					legacyCards.add(results[0]);
+					servedCards.add(results[1]);
+					legacyDetails.add(results[2]);
+					servedDetails.add(results[3]);
+				}
+			}
+			logger.info("cards,   resource handler {}", Result.median(legacyCards));
+			logger.info("cards,   image controller {}", Result.median(servedCards));
+			logger.info("details, resource handler {}", Result.median(legacyDetails));
+			logger.info("details, image controller {}", Result.median(servedDetails));
+
+			Result hot = Result.median(servedCards);
+			Result legacy = Result.median(legacyCards);
+			assertTrue(hot.requestsPerSecond() > legacy.requestsPerSecond(),
+					"Hot cache " + hot + " was not faster than " + legacy);
+		} finally {
+			clientPool.shutdown();
+			tomcat.stop();
+			tomcat.destroy();
+		}
+	}
+
+	private static List<String> storeImages(ImageStore imageStore, int count, int size) throws Exception {
+		Random random = new Random(size);
+		List<String> paths = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			byte[] bytes = new byte[size];
+			random.nextBytes(bytes);
+			String url = imageStore.store(new ByteArrayInputStream(bytes), "photo.jpg");
+			paths.add(url.substring(ImageStore.URL_PREFIX.length() - 1));
+		}
+		return paths;
+	}
+
+	private static Result load(HttpClient client, String prefix, List<String> paths, int expectedBytes)
+			throws Exception {
+		List<HttpRequest> requests = new ArrayList<>();
+		for (String path : paths) {
+			requests.add(HttpRequest.newBuilder(URI.create(prefix + path)).build());
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<long[]>> workers = new ArrayList<>();
+			long begin = System.nanoTime();
+			for (int t = 0; t < THREADS; t++) {
+				int offset = t;
+				workers.add(pool.submit(() -> {
+					long[] latencies = new long[REQUESTS_PER_THREAD];
+					for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+						HttpRequest request = requests.get((offset + i) % requests.size());
+						long start = System.nanoTime();
+						HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+						latencies[i] = System.nanoTime() - start;
+						assertEquals(200, response.statusCode());
+						assertEquals(expectedBytes, response.body().length);
+					}
+					return latencies;
+				}));
+			}
+			long[] all = new long[THREADS * REQUESTS_PER_THREAD];
+			for (int t = 0; t < THREADS; t++) {
+				System.arraycopy(workers.get(t).get(), 0, all, t * REQUESTS_PER_THREAD, REQUESTS_PER_THREAD);
+			}
+			long elapsed = System.nanoTime() - begin;
+			Arrays.sort(all);
+			return new Result(all.length / (elapsed / 1e9), all[(int) Math.ceil(all.length * 0.99) - 1] / 1e6);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Configuration
+	@EnableWebMvc
+	static class MvcConfig {
+	}
+
+	private record Result(double requestsPerSecond, double p99Millis) {
+
+		/**
+		 * Median throughput and median p99 of several rounds, each taken on its own
+		 */
+		static Result median(List<Result> results) {
+			double[] throughput = results.stream().mapToDouble(Result::requestsPerSecond).sorted().toArray();
+			double[] p99 = results.stream().mapToDouble(Result::p99Millis).sorted().toArray();
+			return new Result(throughput[throughput.length / 2], p99[p99.length / 2]);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%,9.0f req/s  p99 %7.2f ms", requestsPerSecond, p99Millis);
+		}
+	}
+}
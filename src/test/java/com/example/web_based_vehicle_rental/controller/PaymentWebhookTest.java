@@ -0,0 +1,64 @@
+package com.example.web_based_vehicle_rental.controller;
+
+import com.example.web_based_vehicle_rental.service.ReservationService;
+import com.example.web_based_vehicle_rental.service.StripeService;
+import com.stripe.exception.SignatureVerificationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PaymentWebhookTest {
+
+	private final ReservationService reservationService = mock(ReservationService.class);
+	private final StripeService stripeService = mock(StripeService.class);
+	private final MockMvc mvc = MockMvcBuilders
+			.standaloneSetup(new PaymentController(reservationService, stripeService)).build();
+
+	@Test
+	void aCompletedSessionIsBookedWithoutTheSuccessPage() throws Exception {
+		when(stripeService.completedSessionId("{}", "t=1,v1=sig")).thenReturn("cs_paid");
+
+		mvc.perform(post("/payment/webhook").content("{}").header("Stripe-Signature", "t=1,v1=sig"))
+				.andExpect(status().isOk());
+
+		verify(reservationService).confirmCheckout("cs_paid");
+	}
+
+	@Test
+	void bookingFailuresRetryingCannotFixAreAcknowledged() throws Exception {
+		when(stripeService.completedSessionId("{}", "t=1,v1=sig")).thenReturn("cs_taken");
+		when(reservationService.confirmCheckout("cs_taken"))
+				.thenThrow(new IllegalStateException("Vehicles no longer available"));
+
+		mvc.perform(post("/payment/webhook").content("{}").header("Stripe-Signature", "t=1,v1=sig"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void otherFailuresAskStripeToDeliverAgain() throws Exception {
+		when(stripeService.completedSessionId("{}", "t=1,v1=sig")).thenReturn("cs_paid");
+		when(reservationService.confirmCheckout("cs_paid")).thenThrow(new RuntimeException("database down"));
+
+		mvc.perform(post("/payment/webhook").content("{}").header("Stripe-Signature", "t=1,v1=sig"))
+				.andExpect(status().isInternalServerError());
+	}
+
+	@Test
+	void unsignedDeliveriesAreRejected() throws Exception {
+		when(stripeService.completedSessionId(anyString(), anyString()))
+				.thenThrow(new SignatureVerificationException("No signatures found", "t=1,v1=forged"));
+
+		mvc.perform(post("/payment/webhook").content("{}").header("Stripe-Signature", "t=1,v1=forged"))
+				.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(reservationService);
+	}
+}
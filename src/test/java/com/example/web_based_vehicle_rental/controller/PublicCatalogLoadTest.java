@@ -0,0 +1,175 @@
+package com.example.web_based_vehicle_rental.controller;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import com.example.web_based_vehicle_rental.service.AdminService;
+import com.example.web_based_vehicle_rental.service.CatalogSnapshot;
+import com.example.web_based_vehicle_rental.service.CatalogStreams;
+import com.example.web_based_vehicle_rental.service.CatalogVersion;
+import com.example.web_based_vehicle_rental.service.VehicleAutocomplete;
+import com.example.web_based_vehicle_rental.service.VehicleCatalogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Requests/sec and p99 latency of the public catalog served from the
+ * pre-serialized snapshot against serializing the (already cached) catalog
+ * on every request, the way /api/public/vehicles used to (still the path of
+ * /api/vehicles). Runs both controllers in an embedded Tomcat and drives
+ * them over HTTP, since MockMvc copies response bodies byte by byte.
+ */
+@Tag("benchmark")
+class PublicCatalogLoadTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(PublicCatalogLoadTest.class);
+
+	private static final int VEHICLES = 2_000;
+	private static final int THREADS = 8;
+	private static final int REQUESTS_PER_THREAD = 500;
+
+	@Test
+	void snapshotOutservesPerRequestSerialization(@TempDir Path baseDir) throws Exception {
+		VehicleCatalogService catalogService = mock(VehicleCatalogService.class);
+		when(catalogService.getCatalog(anyLong())).thenReturn(catalog());
+		when(catalogService.loadCatalog()).thenReturn(catalog());
+		CatalogVersion catalogVersion = new CatalogVersion(
+				new ConcurrentMapCacheManager(CacheConfig.VEHICLE_CATALOG), event -> {
+				});
+		CatalogSnapshot catalogSnapshot = new CatalogSnapshot(catalogService, catalogVersion, new ObjectMapper());
+		catalogSnapshot.rebuild();
+
+		GenericWebApplicationContext web = new GenericWebApplicationContext();
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(web);
+		web.registerBean(MvcConfig.class);
+		CatalogStreams catalogStreams = new CatalogStreams(catalogService, 3);
+		web.registerBean(VehicleController.class,
+				() -> new VehicleController(mock(AdminService.class), catalogService, catalogVersion, catalogStreams));
+		web.registerBean(PublicVehicleApiController.class,
+				() -> new PublicVehicleApiController(mock(AdminService.class), catalogService, catalogVersion,
+						catalogSnapshot, mock(VehicleAutocomplete.class), catalogStreams));
+
+		Tomcat tomcat = new Tomcat();
+		tomcat.setBaseDir(baseDir.toString());
+		tomcat.setPort(0);
+		Context context = tomcat.addContext("", baseDir.toString());
+		Tomcat.addServlet(context, "dispatcher", new DispatcherServlet(web)).setLoadOnStartup(1);
+		context.addServletMappingDecoded("/", "dispatcher");
+		tomcat.start();
+		ExecutorService clientPool = Executors.newFixedThreadPool(THREADS);
+		try {
+			String base = "http://localhost:" + tomcat.getConnector().getLocalPort();
+			HttpClient client = HttpClient.newBuilder().executor(clientPool).build();
+
+			Result serialized = null;
+			Result snapshot = null;
+			Result gzipped = null;
+			for (int pass = 0; pass < 2; pass++) { // the first pass only warms up
+				serialized = load(client, base + "/api/vehicles", null);
+				snapshot = load(client, base + "/api/public/vehicles", null);
+				gzipped = load(client, base + "/api/public/vehicles", "gzip");
+			}
+			logger.info("per-request serialization {}", serialized);
+			logger.info("snapshot                  {}", snapshot);
+			logger.info("snapshot, gzip            {}", gzipped);
+
+			assertTrue(snapshot.requestsPerSecond() > serialized.requestsPerSecond(),
+					"Snapshot " + snapshot + " was not faster than " + serialized);
+		} finally {
+			clientPool.shutdown();
+			tomcat.stop();
+			tomcat.destroy();
+		}
+	}
+
+	private static Result load(HttpClient client, String url, String acceptEncoding) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+					.header(HttpHeaders.ACCEPT, "application/json");
+			if (acceptEncoding != null) {
+				builder.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+			}
+			HttpRequest request = builder.build();
+			List<Future<long[]>> workers = new ArrayList<>();
+			long begin = System.nanoTime();
+			for (int t = 0; t < THREADS; t++) {
+				workers.add(pool.submit(() -> {
+					long[] latencies = new long[REQUESTS_PER_THREAD];
+					for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+						long start = System.nanoTime();
+						HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+						latencies[i] = System.nanoTime() - start;
+						assertEquals(200, response.statusCode());
+					}
+					return latencies;
+				}));
+			}
+			long[] all = new long[THREADS * REQUESTS_PER_THREAD];
+			for (int t = 0; t < THREADS; t++) {
+				System.arraycopy(workers.get(t).get(), 0, all, t * REQUESTS_PER_THREAD, REQUESTS_PER_THREAD);
+			}
+			long elapsed = System.nanoTime() - begin;
+			Arrays.sort(all);
+			return new Result(all.length / (elapsed / 1e9), all[(int) Math.ceil(all.length * 0.99) - 1] / 1e6);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static List<VehicleSummary> catalog() {
+		String[] types = { "Sedan", "SUV", "Van", "Luxury" };
+		List<VehicleSummary> vehicles = new ArrayList<>();
+		for (long id = 1; id <= VEHICLES; id++) {
+			VehicleSummary vehicle = new VehicleSummary(id, "Brand " + id % 40, "Model " + id, 2015 + (int) (id % 10),
+					types[(int) (id % types.length)], 4000.0 + id % 300 * 50, VehicleStatus.AVAILABLE,
+					"/images/vehicles/" + id + ".jpg");
+			vehicles.add(vehicle);
+		}
+		return vehicles;
+	}
+
+	@Configuration
+	@EnableWebMvc
+	static class MvcConfig {
+	}
+
+	private record Result(double requestsPerSecond, double p99Millis) {
+
+		@Override
+		public String toString() {
+			return String.format("%,9.0f req/s  p99 %7.2f ms", requestsPerSecond, p99Millis);
+		}
+	}
+}
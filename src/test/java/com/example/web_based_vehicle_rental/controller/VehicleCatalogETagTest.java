@@ -0,0 +1,196 @@
+package com.example.web_based_vehicle_rental.controller;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import com.example.web_based_vehicle_rental.service.AdminService;
+import com.example.web_based_vehicle_rental.service.CatalogSnapshot;
+import com.example.web_based_vehicle_rental.service.CatalogStreams;
+import com.example.web_based_vehicle_rental.service.CatalogVersion;
+import com.example.web_based_vehicle_rental.service.VehicleAutocomplete;
+import com.example.web_based_vehicle_rental.service.VehicleCatalogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class VehicleCatalogETagTest {
+
+	private final VehicleCatalogService catalogService = mock(VehicleCatalogService.class);
+	private final CatalogVersion catalogVersion = new CatalogVersion(
+			new ConcurrentMapCacheManager(CacheConfig.VEHICLE_CATALOG), event -> {
+			});
+	private final CatalogSnapshot catalogSnapshot = new CatalogSnapshot(catalogService, catalogVersion,
+			new ObjectMapper());
+	private final MockMvc mvc = MockMvcBuilders.standaloneSetup(
+			new VehicleController(mock(AdminService.class), catalogService, catalogVersion,
+					new CatalogStreams(catalogService, 3)),
+			new PublicVehicleApiController(mock(AdminService.class), catalogService, catalogVersion,
+					catalogSnapshot, mock(VehicleAutocomplete.class), new CatalogStreams(catalogService, 3)))
+			.build();
+
+	@Test
+	void tagsTheCatalogWithTheCurrentVersion() throws Exception {
+		when(catalogService.getCatalog(anyLong())).thenReturn(catalog());
+
+		mvc.perform(get("/api/vehicles"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, catalogVersion.eTag()))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+				.andExpect(jsonPath("$[0].brand").value("Toyota"));
+	}
+
+	@Test
+	void revalidationWithTheCurrentTagSkipsTheCatalog() throws Exception {
+		when(catalogService.loadCatalog()).thenReturn(catalog());
+		catalogSnapshot.rebuild();
+		clearInvocations(catalogService);
+		String eTag = catalogVersion.eTag();
+
+		mvc.perform(get("/api/vehicles").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, eTag))
+				.andExpect(content().string(""));
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + eTag))
+				.andExpect(status().isNotModified());
+
+		verifyNoInteractions(catalogService);
+	}
+
+	@Test
+	void aCatalogChangeInvalidatesOldTags() throws Exception {
+		when(catalogService.getCatalog(anyLong())).thenReturn(catalog());
+		String before = catalogVersion.eTag();
+
+		catalogVersion.bump(1L);
+
+		assertNotEquals(before, catalogVersion.eTag());
+		mvc.perform(get("/api/vehicles").header(HttpHeaders.IF_NONE_MATCH, before))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, catalogVersion.eTag()));
+		// Loaded under the version it is tagged with, never from an entry an older load left behind
+		verify(catalogService, times(1)).getCatalog(catalogVersion.current());
+	}
+
+	@Test
+	void servesThePrebuiltSnapshotGzippedWhenAccepted() throws Exception {
+		when(catalogService.loadCatalog()).thenReturn(catalog());
+		catalogSnapshot.rebuild();
+		clearInvocations(catalogService);
+
+		byte[] body = mvc.perform(get("/api/public/vehicles").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andExpect(header().string(HttpHeaders.ETAG, catalogSnapshot.current().gzippedETag()))
+				.andReturn().getResponse().getContentAsByteArray();
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			assertArrayEquals(catalogSnapshot.current().json(), in.readAllBytes());
+		}
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+				.andExpect(header().string(HttpHeaders.ETAG, catalogVersion.eTag()))
+				.andExpect(jsonPath("$[0].brand").value("Toyota"));
+
+		verifyNoInteractions(catalogService);
+	}
+
+	@Test
+	void eachEncodingRevalidatesOnlyAgainstItsOwnTag() throws Exception {
+		when(catalogService.loadCatalog()).thenReturn(catalog());
+		catalogSnapshot.rebuild();
+		String plain = catalogSnapshot.current().eTag();
+		String gzipped = catalogSnapshot.current().gzippedETag();
+
+		assertNotEquals(plain, gzipped);
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.header(HttpHeaders.IF_NONE_MATCH, gzipped))
+				.andExpect(status().isNotModified());
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.header(HttpHeaders.IF_NONE_MATCH, plain))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.IF_NONE_MATCH, gzipped))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void theSnapshotKeepsItsOwnTagUntilRebuilt() throws Exception {
+		when(catalogService.loadCatalog()).thenReturn(catalog());
+		catalogSnapshot.rebuild();
+		String built = catalogVersion.eTag();
+
+		catalogVersion.bump(1L);
+
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.IF_NONE_MATCH, built))
+				.andExpect(status().isNotModified());
+		catalogSnapshot.rebuild();
+		mvc.perform(get("/api/public/vehicles").header(HttpHeaders.IF_NONE_MATCH, built))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, catalogVersion.eTag()));
+	}
+
+	@Test
+	void theSnapshotIsBuiltFromTheDatabaseNotTheCache() throws Exception {
+		when(catalogService.getCatalog(anyLong())).thenReturn(List.of(new VehicleSummary(1L, "Nissan", "Sunny", 2010,
+				"Sedan", 5000.0, VehicleStatus.AVAILABLE, null)));
+		when(catalogService.loadCatalog()).thenReturn(catalog());
+
+		catalogSnapshot.rebuild();
+
+		mvc.perform(get("/api/public/vehicles"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].brand").value("Toyota"));
+		verify(catalogService, never()).getCatalog(anyLong());
+	}
+
+	@Test
+	void streamsBeyondTheLimitAreTurnedAwayOnEveryEndpoint() throws Exception {
+		CatalogStreams none = new CatalogStreams(catalogService, 0);
+		MockMvc full = MockMvcBuilders.standaloneSetup(
+				new VehicleController(mock(AdminService.class), catalogService, catalogVersion, none),
+				new PublicVehicleApiController(mock(AdminService.class), catalogService, catalogVersion,
+						catalogSnapshot, mock(VehicleAutocomplete.class), none))
+				.build();
+
+		full.perform(get("/api/public/vehicles").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+		full.perform(get("/api/vehicles").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+		verifyNoInteractions(catalogService);
+	}
+
+	private static List<VehicleSummary> catalog() {
+		List<VehicleSummary> vehicles = new ArrayList<>();
+		vehicles.add(new VehicleSummary(1L, "Toyota", "Corolla", 2022, "Sedan", 8000.0, VehicleStatus.AVAILABLE,
+				null));
+		return vehicles;
+	}
+}
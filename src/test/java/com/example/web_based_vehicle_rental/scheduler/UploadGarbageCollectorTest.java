@@ -0,0 +1,164 @@
+package com.example.web_based_vehicle_rental.scheduler;
+
+import com.example.web_based_vehicle_rental.model.StoredImage;
+import com.example.web_based_vehicle_rental.repository.StoredImageRepository;
+import com.example.web_based_vehicle_rental.repository.SupportRequestRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleImageRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.service.ImageStore;
+import com.example.web_based_vehicle_rental.service.LocalBlobStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadGarbageCollectorTest {
+
+	private static final String KEPT = casUrl("a1");
+	private static final String ABANDONED = casUrl("b2");
+	private static final String UPLOADED_AGAIN = casUrl("c3");
+
+	@TempDir
+	Path root;
+
+	private final VehicleImageRepository vehicleImageRepository = mock(VehicleImageRepository.class);
+	private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+	private final SupportRequestRepository supportRequestRepository = mock(SupportRequestRepository.class);
+	private final StoredImageRepository storedImageRepository = mock(StoredImageRepository.class);
+	private LocalBlobStorage blobStorage;
+	private UploadGarbageCollector collector;
+	private StoredImage abandoned;
+
+	@BeforeEach
+	void setUp() {
+		blobStorage = new LocalBlobStorage(root.resolve("images").toString(), root.resolve("uploads").toString());
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		ImageStore imageStore = new ImageStore(storedImageRepository, blobStorage, transactionManager);
+		collector = new UploadGarbageCollector(vehicleImageRepository, vehicleRepository, supportRequestRepository,
+				storedImageRepository, imageStore, blobStorage, transactionManager, Duration.ofDays(1));
+		when(vehicleImageRepository.streamAllImageUrls()).thenAnswer(invocation -> Stream.of(
+				"/images/vehicles/1700000000000_gallery.jpg", KEPT));
+		when(vehicleRepository.streamAllImageUrls()).thenAnswer(invocation -> Stream.of(
+				"/images/vehicles/1700000000000_main.jpg", "https://cdn.example.com/stock.jpg"));
+		when(supportRequestRepository.streamAllScreenshotUrls()).thenAnswer(invocation -> Stream.of(
+				"/uploads/support-screenshots/kept.png"));
+		// Uploaded from a form that was never saved; the same bytes are on a vehicle, so refCount says nothing
+		abandoned = storedImage(ABANDONED, 70, 3);
+		abandoned.setRefCount(2);
+		when(storedImageRepository.streamUrlsStoredSince(any())).thenAnswer(invocation -> Stream.of(UPLOADED_AGAIN));
+		when(storedImageRepository.streamStoredBefore(any()))
+				.thenAnswer(invocation -> Stream.of(storedImage(KEPT, 10, 5), abandoned));
+		when(storedImageRepository.findByIdForUpdate(ImageStore.digestOf(ABANDONED)))
+				.thenReturn(Optional.of(abandoned));
+	}
+
+	@Test
+	void deletesOldUnreferencedUploadsAndReportsTheBytes() throws IOException {
+		Path gallery = upload("images/vehicles/1700000000000_gallery.jpg", 10, true);
+		Path rendition = upload("images/vehicles/renditions/card/1700000000000_gallery.jpg.jpg", 10, true);
+		Path main = upload("images/vehicles/1700000000000_main.jpg", 10, true);
+		Path stored = upload(ImageStore.keyOf(KEPT), 10, true);
+		Path uploadedAgain = upload(ImageStore.keyOf(UPLOADED_AGAIN), 10, true);
+		Path orphanedStored = upload(ImageStore.keyOf(ABANDONED), 70, true);
+		Path screenshot = upload("uploads/support-screenshots/kept.png", 10, true);
+		Path replaced = upload("images/vehicles/1600000000000_old.jpg", 100, true);
+		Path orphanedRendition = upload("images/vehicles/renditions/thumb/1600000000000_old.jpg.jpg", 20, true);
+		Path interrupted = upload("images/cas/cd/.cd34.jpg123.tmp", 300, true);
+		Path unsavedScreenshot = upload("uploads/support-screenshots/lost.png", 4000, true);
+		Path freshUpload = upload("images/cas/ef/ef56.jpg", 50, false);
+
+		UploadGarbageCollector.Result result = collector.collect();
+
+		for (Path kept : new Path[] { gallery, rendition, main, stored, uploadedAgain, screenshot, freshUpload }) {
+			assertTrue(Files.exists(kept), kept.toString());
+		}
+		for (Path deleted : new Path[] { replaced, orphanedRendition, interrupted, unsavedScreenshot,
+				orphanedStored }) {
+			assertFalse(Files.exists(deleted), deleted.toString());
+		}
+		verify(storedImageRepository).delete(abandoned);
+		assertEquals(12, result.scanned());
+		assertEquals(5, result.deleted());
+		assertEquals(4490, result.bytesReclaimed());
+	}
+
+	@Test
+	void keepsAStoredImageUploadedAgainDuringTheCollection() throws IOException {
+		Path file = upload(ImageStore.keyOf(ABANDONED), 70, true);
+		abandoned.setStoredAt(LocalDateTime.now());
+
+		assertEquals(0, collector.collect().deleted());
+		assertTrue(Files.exists(file));
+		verify(storedImageRepository, never()).delete(any());
+	}
+
+	@Test
+	void leavesStorageAloneWhenNothingIsReferenced() throws IOException {
+		when(vehicleImageRepository.streamAllImageUrls()).thenAnswer(invocation -> Stream.empty());
+		when(vehicleRepository.streamAllImageUrls()).thenAnswer(invocation -> Stream.empty());
+		when(storedImageRepository.streamUrlsStoredSince(any())).thenAnswer(invocation -> Stream.empty());
+		when(storedImageRepository.streamStoredBefore(any())).thenAnswer(invocation -> Stream.empty());
+		when(supportRequestRepository.streamAllScreenshotUrls()).thenAnswer(invocation -> Stream.empty());
+		Path upload = upload("images/vehicles/1600000000000_old.jpg", 100, true);
+
+		assertEquals(0, collector.collect().deleted());
+		assertTrue(Files.exists(upload));
+	}
+
+	@Test
+	void hashSetFindsEveryAddedUrlAndFewOthers() {
+		UrlHashSet set = new UrlHashSet();
+		for (int i = 0; i < 100_000; i++) {
+			set.add("/images/cas/" + i + ".jpg");
+		}
+		set.add("/images/cas/7.jpg");
+
+		assertEquals(100_000, set.size());
+		for (int i = 0; i < 100_000; i++) {
+			assertTrue(set.contains("/images/cas/" + i + ".jpg"));
+		}
+		for (int i = 100_000; i < 200_000; i++) {
+			assertFalse(set.contains("/images/cas/" + i + ".jpg"));
+		}
+	}
+
+	private static String casUrl(String prefix) {
+		String digest = prefix.repeat(32);
+		return "/images/cas/" + prefix + "/" + digest + ".jpg";
+	}
+
+	private static StoredImage storedImage(String url, long size, int daysAgo) {
+		StoredImage stored = new StoredImage(ImageStore.digestOf(url), url, size);
+		stored.setStoredAt(LocalDateTime.now().minusDays(daysAgo));
+		return stored;
+	}
+
+	private Path upload(String key, int size, boolean old) throws IOException {
+		Path file = blobStorage.localFile(key);
+		Files.createDirectories(file.getParent());
+		Files.write(file, new byte[size]);
+		if (old) {
+			Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(3))));
+		}
+		return file;
+	}
+}
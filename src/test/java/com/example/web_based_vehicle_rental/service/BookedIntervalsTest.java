@@ -0,0 +1,81 @@
+package com.example.web_based_vehicle_rental.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookedIntervalsTest {
+
+	@Test
+	void overlapIsInclusiveOnBothEnds() {
+		BookedIntervals intervals = BookedIntervals.EMPTY.with(1, 10, 15);
+
+		assertTrue(intervals.overlaps(15, 20));
+		assertTrue(intervals.overlaps(5, 10));
+		assertTrue(intervals.overlaps(11, 12));
+		assertFalse(intervals.overlaps(16, 20));
+		assertFalse(intervals.overlaps(1, 9));
+	}
+
+	@Test
+	void gapBetweenRangesIsFree() {
+		BookedIntervals intervals = BookedIntervals.EMPTY
+				.with(2, 30, 40)
+				.with(1, 10, 15);
+
+		assertFalse(intervals.overlaps(16, 29));
+		assertTrue(intervals.overlaps(16, 30));
+	}
+
+	@Test
+	void longRangeStartingEarlyIsFoundBehindShorterOnes() {
+		// Overlapping legacy ranges: the long one must still be seen after later, shorter ones
+		BookedIntervals intervals = BookedIntervals.EMPTY
+				.with(1, 0, 100)
+				.with(2, 10, 12)
+				.with(3, 20, 22);
+
+		assertTrue(intervals.overlaps(50, 60));
+	}
+
+	@Test
+	void withReplacesAndWithoutRemovesById() {
+		BookedIntervals intervals = BookedIntervals.EMPTY.with(1, 10, 15).with(1, 20, 25);
+
+		assertEquals(1, intervals.size());
+		assertFalse(intervals.overlaps(10, 15));
+		assertTrue(intervals.overlaps(20, 20));
+
+		assertTrue(intervals.without(1).isEmpty());
+		assertSame(intervals, intervals.without(99));
+	}
+
+	@Test
+	void nextFreeStartSkipsGapsThatAreTooShort() {
+		BookedIntervals intervals = BookedIntervals.EMPTY
+				.with(1, 10, 15)
+				.with(2, 18, 20)
+				.with(3, 30, 35);
+
+		assertEquals(5, intervals.nextFreeStart(5, 5));
+		assertEquals(21, intervals.nextFreeStart(12, 5)); // 16-17 is only two days
+		assertEquals(16, intervals.nextFreeStart(12, 2));
+		assertEquals(36, intervals.nextFreeStart(25, 9));
+	}
+
+	@Test
+	void previousFreeStartSkipsGapsThatAreTooShort() {
+		BookedIntervals intervals = BookedIntervals.EMPTY
+				.with(1, 0, 100)
+				.with(2, 110, 112)
+				.with(3, 115, 120);
+
+		assertEquals(121, intervals.previousFreeStart(121, 3));
+		assertEquals(113, intervals.previousFreeStart(119, 2));
+		assertEquals(107, intervals.previousFreeStart(119, 3)); // 113-114 is too short
+		assertEquals(-5, intervals.previousFreeStart(50, 5)); // the long range blocks everything back to 0
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.User;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.UserRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the single-vehicle availability check used by booking while the
+ * fleet grows, next to the fleet-wide search it replaced. Everything runs in
+ * one rolled-back transaction.
+ */
+@SpringBootTest
+@Tag("benchmark")
+@Transactional
+class BookingLatencyBenchmarkTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(BookingLatencyBenchmarkTest.class);
+
+	private static final int[] FLEET_SIZES = { 100, 1_000, 5_000 };
+	private static final int ITERATIONS = 200;
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void availabilityCheckLatencyStaysFlatAsFleetGrows() {
+		User user = new User();
+		user.setUsername("benchusr");
+		user.setPassword("bench!pass1");
+		user.setEmail("bench@driveease.test");
+		user.setAgreedToTerms(true);
+		user = userRepository.save(user);
+
+		LocalDate start = LocalDate.now().plusDays(30);
+		LocalDate end = start.plusDays(3);
+		Vehicle probe = vehicleRepository.save(new Vehicle("Bench", "Probe", 2024, "BENCH-0", 50.0, "Sedan"));
+
+		double[] targetedMicros = new double[FLEET_SIZES.length];
+		int fleet = 1;
+		for (int i = 0; i < FLEET_SIZES.length; i++) {
+			for (; fleet < FLEET_SIZES[i]; fleet++) {
+				Vehicle vehicle = vehicleRepository
+						.save(new Vehicle("Bench", "Car" + fleet, 2024, "BENCH-" + fleet, 50.0, "Sedan"));
+				Reservation booked = new Reservation(user, vehicle, start, end, 200.0);
+				booked.setStatus(ReservationStatus.CONFIRMED);
+				reservationRepository.save(booked);
+			}
+			entityManager.flush();
+			entityManager.clear();
+
+			Long probeId = probe.getId();
+			targetedMicros[i] = medianMicros(() -> reservationService.isVehicleAvailable(
+					vehicleRepository.getReferenceById(probeId), start, end));
+			double fleetWideMicros = medianMicros(() -> vehicleRepository.findAvailableVehicles(start, end)
+					.stream().anyMatch(v -> v.getId().equals(probeId)));
+
+			logger.info("fleet={}  single-vehicle check={} us  fleet-wide search={} us", FLEET_SIZES[i],
+					Math.round(targetedMicros[i] * 10) / 10.0, Math.round(fleetWideMicros * 10) / 10.0);
+		}
+
+		double smallest = targetedMicros[0];
+		double largest = targetedMicros[FLEET_SIZES.length - 1];
+		assertTrue(largest < smallest * 3 + 500,
+				"Single-vehicle check grew with fleet size: " + Arrays.toString(targetedMicros));
+	}
+
+	private double medianMicros(Runnable action) {
+		for (int i = 0; i < ITERATIONS / 10; i++) {
+			action.run(); // warm up
+		}
+		long[] samples = new long[ITERATIONS];
+		for (int i = 0; i < ITERATIONS; i++) {
+			long begin = System.nanoTime();
+			action.run();
+			samples[i] = System.nanoTime() - begin;
+			entityManager.clear();
+		}
+		Arrays.sort(samples);
+		return samples[ITERATIONS / 2] / 1_000.0;
+	}
+}
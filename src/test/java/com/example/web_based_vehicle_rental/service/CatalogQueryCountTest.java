@@ -0,0 +1,134 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.model.VehicleImage;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleSortField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The catalog and search responses must cost a fixed number of SQL statements
+ * (vehicles + primary images) no matter how many vehicles there are.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class CatalogQueryCountTest {
+
+	@Autowired
+	private VehicleCatalogService vehicleCatalogService;
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Statistics statistics;
+	private int seeded;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void catalogQueryCountDoesNotGrowWithFleet() {
+		growFleetTo(10);
+		long small = countStatements(() -> vehicleCatalogService.loadCatalog());
+
+		growFleetTo(200);
+		long large = countStatements(() -> vehicleCatalogService.loadCatalog());
+
+		assertEquals(2, small);
+		assertEquals(small, large);
+	}
+
+	@Test
+	void streamedCatalogIsOneStatementAndOneLinePerVehicle() throws IOException {
+		growFleetTo(50);
+		long vehicles = vehicleRepository.count();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long statements = countStatements(() -> {
+			try {
+				vehicleCatalogService.writeCatalogNdjson(out);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(1, statements);
+		assertEquals(vehicles, lines.length);
+		assertTrue(lines[lines.length - 1].contains("q" + (seeded - 1) + "a.jpg"), lines[lines.length - 1]);
+	}
+
+	@Test
+	void searchPageQueryCountDoesNotGrowWithFleet() {
+		LocalDate start = LocalDate.now().plusDays(60);
+		LocalDate end = start.plusDays(2);
+
+		growFleetTo(10);
+		long small = countStatements(() -> reservationService.searchAvailableVehiclesPage(start, end, "QCount",
+				null, null, VehicleSortField.DAILY_PRICE, false, null, 5));
+
+		growFleetTo(200);
+		long large = countStatements(() -> reservationService.searchAvailableVehiclesPage(start, end, "QCount",
+				null, null, VehicleSortField.DAILY_PRICE, false, null, 5));
+
+		// A first page loads the filtered results and the unfiltered facets entry: at most 4 statements each
+		assertTrue(small <= 8, "Unexpected statements for one search page: " + small);
+		assertEquals(small, large);
+	}
+
+	private void growFleetTo(int size) {
+		for (; seeded < size; seeded++) {
+			Vehicle vehicle = new Vehicle("QCount", "Car" + seeded, 2020, "QCOUNT-" + seeded, 30.0 + seeded,
+					"QCount");
+			vehicle.addImage(new VehicleImage(vehicle, "/images/vehicles/q" + seeded + "a.jpg", true));
+			vehicle.addImage(new VehicleImage(vehicle, "/images/vehicles/q" + seeded + "b.jpg", false));
+			vehicleRepository.save(vehicle);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private long countStatements(Runnable action) {
+		// Measure the database path, not a cache hit
+		cacheManager.getCache(CacheConfig.VEHICLE_CATALOG).clear();
+		cacheManager.getCache(CacheConfig.AVAILABLE_VEHICLES).clear();
+		statistics.clear();
+		action.run();
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,166 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.CheckoutSession;
+import com.example.web_based_vehicle_rental.model.PaymentStatus;
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.User;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.UserRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.stripe.model.checkout.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@Transactional
+class CheckoutBookingTest {
+
+	private static final String SESSION_ID = "cs_test_checkout";
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CheckoutHoldStore checkoutHolds;
+
+	@MockitoBean
+	private StripeService stripeService;
+
+	private User user;
+	private User otherUser;
+	private final List<Long> vehicleIds = new ArrayList<>();
+	private final List<CheckoutHold> placed = new ArrayList<>();
+	private final LocalDate start = LocalDate.now().plusDays(30);
+	private final LocalDate end = start.plusDays(2);
+
+	@BeforeEach
+	void setUp() throws Exception {
+		user = saveUser("holdusr");
+		otherUser = saveUser("holdusr2");
+		for (int i = 0; i < 3; i++) {
+			vehicleIds.add(vehicleRepository
+					.save(new Vehicle("Batch", "Car" + i, 2024, "BATCH-" + i, 50.0, "Sedan")).getId());
+		}
+		Session created = new Session();
+		created.setId(SESSION_ID);
+		created.setUrl("https://checkout.test/session");
+		when(stripeService.createCheckoutSession(anyList(), anyString(), anyString())).thenReturn(created);
+	}
+
+	@AfterEach
+	void releaseHolds() {
+		// Holds live outside the test transaction
+		checkoutHolds.release(placed);
+	}
+
+	@Test
+	void heldVehiclesAreBookedOnlyOnPayment() throws Exception {
+		long before = reservationRepository.count();
+		CheckoutSession checkout = reservationService.openCheckout(place(user, vehicleIds));
+
+		assertEquals(3 * 50.0 * 3, checkout.getTotalPrice());
+		assertEquals("https://checkout.test/session", checkout.getCheckoutUrl());
+		assertEquals(before, reservationRepository.count());
+		verify(stripeService).createCheckoutSession(argThat(list -> list.size() == 3), anyString(), anyString());
+
+		when(stripeService.retrieveSession(SESSION_ID)).thenReturn(paidSession());
+		List<Reservation> booked = reservationService.confirmCheckout(SESSION_ID);
+
+		assertEquals(3, booked.size());
+		assertTrue(booked.stream().allMatch(r -> r.getStatus() == ReservationStatus.CONFIRMED
+				&& r.getStartDate().equals(start) && r.getUser().getId().equals(user.getId())
+				&& r.getPayment().getStatus() == PaymentStatus.SUCCEEDED));
+		assertTrue(checkoutHolds.forSession(SESSION_ID).isEmpty());
+
+		// Reloading the success page does not book twice
+		assertEquals(3, reservationService.confirmCheckout(SESSION_ID).size());
+		assertEquals(before + 3, reservationRepository.count());
+	}
+
+	@Test
+	void holdBlocksOtherUsersButNotItsOwner() {
+		place(user, vehicleIds.subList(0, 1));
+
+		assertThrows(IllegalStateException.class, () -> place(otherUser, vehicleIds.subList(0, 1)));
+		assertFalse(reservationService.isVehicleAvailable(vehicleRepository.findById(vehicleIds.get(0)).get(),
+				start.plusDays(1), end.plusDays(1)));
+		assertEquals(1, place(user, vehicleIds.subList(0, 1)).size());
+	}
+
+	@Test
+	void oneTakenVehicleRejectsTheWholeBatch() throws Exception {
+		Long taken = vehicleIds.get(1);
+		reservationService.createReservation(user, taken, start.plusDays(1), end.plusDays(3));
+
+		IllegalStateException error = assertThrows(IllegalStateException.class, () -> place(user, vehicleIds));
+
+		assertTrue(error.getMessage().contains(taken.toString()), error.getMessage());
+		assertTrue(checkoutHolds.heldVehicleIds(start, end).stream().noneMatch(vehicleIds::contains));
+		verify(stripeService, never()).createCheckoutSession(anyList(), anyString(), anyString());
+	}
+
+	@Test
+	void duplicateVehiclesAreRejected() {
+		List<Long> duplicated = List.of(vehicleIds.get(0), vehicleIds.get(0));
+
+		assertThrows(IllegalArgumentException.class, () -> place(user, duplicated));
+	}
+
+	private List<CheckoutHold> place(User owner, List<Long> ids) {
+		List<CheckoutHold> holds = reservationService.placeCheckoutHolds(owner, ids, start, end);
+		placed.addAll(holds);
+		return holds;
+	}
+
+	private Session paidSession() {
+		Session session = new Session();
+		session.setId(SESSION_ID);
+		session.setPaymentStatus("paid");
+		session.setPaymentIntent("pi_test_checkout");
+		session.setMetadata(Map.of(StripeService.METADATA_VEHICLE_IDS,
+				vehicleIds.stream().map(String::valueOf).collect(Collectors.joining(","))));
+		return session;
+	}
+
+	private User saveUser(String username) {
+		User saved = new User();
+		saved.setUsername(username);
+		saved.setPassword("batch!pass1");
+		saved.setEmail(username + "@driveease.test");
+		saved.setAgreedToTerms(true);
+		return userRepository.save(saved);
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.web_based_vehicle_rental.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckoutHoldStoreTest {
+
+	private static final Duration TTL = Duration.ofMinutes(15);
+	private static final LocalDate START = LocalDate.of(2026, 3, 10);
+	private static final LocalDate END = LocalDate.of(2026, 3, 12);
+
+	private final AtomicLong nanos = new AtomicLong();
+	private final CheckoutHoldStore store = new CheckoutHoldStore(TTL, 3, 3, nanos::get);
+
+	@Test
+	void holdBlocksOnlyOverlappingDates() {
+		store.hold(1L, 10L, "Toyota Axio", START, END, 300.0);
+
+		assertTrue(store.isHeld(10L, END, END.plusDays(2)));
+		assertFalse(store.isHeld(10L, END.plusDays(1), END.plusDays(2)));
+		assertFalse(store.isHeld(11L, START, END));
+		assertEquals(Set.of(10L), store.heldVehicleIds(START.minusDays(5), START));
+	}
+
+	@Test
+	void expiredHoldReleasesTheDates() {
+		store.hold(1L, 10L, "Toyota Axio", START, END, 300.0);
+
+		nanos.addAndGet(TTL.minusSeconds(1).toNanos());
+		assertTrue(store.isHeld(10L, START, END));
+
+		nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertFalse(store.isHeld(10L, START, END));
+		assertTrue(store.holdsOn(10L).isEmpty());
+	}
+
+	@Test
+	void attachingTheSessionDoesNotExtendTheHold() {
+		CheckoutHold hold = store.hold(1L, 10L, "Toyota Axio", START, END, 300.0);
+
+		nanos.addAndGet(TTL.minusMinutes(1).toNanos());
+		store.attachSession(List.of(hold), "cs_1");
+		assertEquals(1, store.forSession("cs_1").size());
+
+		nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+		assertTrue(store.forSession("cs_1").isEmpty());
+	}
+
+	@Test
+	void ignoredHoldsDoNotCount() {
+		store.hold(1L, 10L, "Toyota Axio", START, END, 300.0);
+		store.hold(2L, 11L, "Honda Fit", START, END, 240.0);
+
+		assertEquals(Set.of(11L), store.heldVehicleIds(START, END, hold -> hold.userId().equals(1L)));
+	}
+
+	@Test
+	void refusesHoldsWhenFullUntilSomeExpireOrAreReleased() {
+		CheckoutHold first = store.hold(1L, 10L, "A", START, END, 1.0);
+		store.hold(1L, 11L, "B", START, END, 1.0);
+		store.hold(1L, 12L, "C", START, END, 1.0);
+
+		assertThrows(IllegalStateException.class, () -> store.hold(1L, 13L, "D", START, END, 1.0));
+
+		store.release(List.of(first));
+		store.hold(1L, 13L, "D", START, END, 1.0);
+
+		nanos.addAndGet(TTL.toNanos());
+		store.hold(1L, 14L, "E", START, END, 1.0);
+		assertEquals(Set.of(14L), store.heldVehicleIds(START, END));
+	}
+
+	@Test
+	void refusesHoldsBeyondTheUsersOwnLimit() {
+		CheckoutHoldStore perUser = new CheckoutHoldStore(TTL, 10, 2, nanos::get);
+		CheckoutHold first = perUser.hold(1L, 10L, "A", START, END, 1.0);
+		perUser.hold(1L, 11L, "B", START, END, 1.0);
+
+		assertThrows(IllegalStateException.class, () -> perUser.hold(1L, 12L, "C", START, END, 1.0));
+		perUser.hold(2L, 12L, "C", START, END, 1.0);
+
+		perUser.release(List.of(first));
+		perUser.hold(1L, 13L, "D", START, END, 1.0);
+		assertEquals(2, perUser.heldBy(1L).size());
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.User;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.ReservationInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.UserRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires hundreds of overlapping bookings for a handful of vehicles from many
+ * threads at once and checks that no two committed reservations of the same
+ * vehicle overlap.
+ */
+@SpringBootTest
+class ConcurrentBookingStressTest {
+
+	private static final int VEHICLES = 4;
+	private static final int THREADS = 32;
+	private static final int BOOKINGS = 400;
+	private static final int WINDOW_DAYS = 30;
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+	private final List<Long> vehicleIds = new ArrayList<>();
+
+	@Test
+	void overlappingBookingsAreNeverCommittedTwice() throws Exception {
+		user = new User();
+		user.setUsername("stressusr");
+		user.setPassword("stress!pass1");
+		user.setEmail("stress@driveease.test");
+		user.setAgreedToTerms(true);
+		user = userRepository.save(user);
+		for (int i = 0; i < VEHICLES; i++) {
+			vehicleIds.add(vehicleRepository
+					.save(new Vehicle("Stress", "Car" + i, 2024, "STRESS-" + i, 40.0, "Sedan")).getId());
+		}
+
+		LocalDate windowStart = LocalDate.now().plusDays(10);
+		Random random = new Random(42);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < BOOKINGS; i++) {
+			Long vehicleId = vehicleIds.get(random.nextInt(VEHICLES));
+			LocalDate start = windowStart.plusDays(random.nextInt(WINDOW_DAYS));
+			LocalDate end = start.plusDays(random.nextInt(5));
+			results.add(pool.submit(() -> {
+				go.await();
+				try {
+					reservationService.createReservation(user, vehicleId, start, end);
+					return true;
+				} catch (IllegalStateException e) {
+					return false;
+				}
+			}));
+		}
+		go.countDown();
+
+		int succeeded = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(2, TimeUnit.MINUTES)) {
+				succeeded++;
+			}
+		}
+		pool.shutdown();
+
+		Set<Long> ours = Set.copyOf(vehicleIds);
+		List<ReservationInterval> committed = reservationRepository
+				.findIntervalsByStatus(ReservationStatus.CONFIRMED).stream()
+				.filter(r -> ours.contains(r.getVehicleId()))
+				.collect(Collectors.toList());
+
+		assertTrue(succeeded > 0, "No booking succeeded");
+		assertEquals(succeeded, committed.size());
+
+		committed.stream()
+				.collect(Collectors.groupingBy(ReservationInterval::getVehicleId))
+				.forEach((vehicleId, intervals) -> {
+					intervals.sort(Comparator.comparing(ReservationInterval::getStartDate));
+					for (int i = 1; i < intervals.size(); i++) {
+						ReservationInterval previous = intervals.get(i - 1);
+						ReservationInterval current = intervals.get(i);
+						assertTrue(current.getStartDate().isAfter(previous.getEndDate()),
+								"Vehicle " + vehicleId + " double-booked: reservations " + previous.getId()
+										+ " and " + current.getId());
+					}
+				});
+	}
+
+	@AfterEach
+	void cleanUp() {
+		Set<Long> ours = Set.copyOf(vehicleIds);
+		reservationRepository.deleteAll(reservationRepository.findAll().stream()
+				.filter(r -> ours.contains(r.getVehicle().getId()))
+				.collect(Collectors.toList()));
+		vehicleRepository.deleteAllById(vehicleIds);
+		if (user != null) {
+			userRepository.delete(user);
+		}
+	}
+}
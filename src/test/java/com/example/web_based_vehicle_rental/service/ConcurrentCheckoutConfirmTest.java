@@ -0,0 +1,136 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.User;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.UserRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.stripe.model.checkout.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Confirms one paid checkout session from two threads at once, as a success
+ * redirect racing a reload does, and checks it is booked once and never
+ * refunded.
+ */
+@SpringBootTest
+class ConcurrentCheckoutConfirmTest {
+
+	private static final String SESSION_ID = "cs_test_concurrent";
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CheckoutHoldStore checkoutHolds;
+
+	@MockitoBean
+	private StripeService stripeService;
+
+	private User user;
+	private final List<Long> vehicleIds = new ArrayList<>();
+	private final List<CheckoutHold> placed = new ArrayList<>();
+
+	@Test
+	void overlappingConfirmationsBookOnceWithoutRefund() throws Exception {
+		user = new User();
+		user.setUsername("confirmusr");
+		user.setPassword("confirm!pass1");
+		user.setEmail("confirm@driveease.test");
+		user.setAgreedToTerms(true);
+		user = userRepository.save(user);
+		for (int i = 0; i < 2; i++) {
+			vehicleIds.add(vehicleRepository
+					.save(new Vehicle("Confirm", "Car" + i, 2024, "CONFIRM-" + i, 60.0, "Sedan")).getId());
+		}
+		LocalDate start = LocalDate.now().plusDays(40);
+		Session created = new Session();
+		created.setId(SESSION_ID);
+		created.setUrl("https://checkout.test/session");
+		when(stripeService.createCheckoutSession(anyList(), anyString(), anyString())).thenReturn(created);
+		placed.addAll(reservationService.placeCheckoutHolds(user, vehicleIds, start, start.plusDays(2)));
+		reservationService.openCheckout(placed);
+
+		Session paid = new Session();
+		paid.setId(SESSION_ID);
+		paid.setPaymentStatus("paid");
+		paid.setPaymentIntent("pi_test_concurrent");
+		paid.setMetadata(Map.of(StripeService.METADATA_VEHICLE_IDS,
+				vehicleIds.stream().map(String::valueOf).collect(Collectors.joining(","))));
+		when(stripeService.retrieveSession(SESSION_ID)).thenReturn(paid);
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<List<Reservation>>> results = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			results.add(pool.submit(() -> {
+				go.await();
+				return reservationService.confirmCheckout(SESSION_ID);
+			}));
+		}
+		go.countDown();
+		List<Set<Long>> booked = new ArrayList<>();
+		for (Future<List<Reservation>> result : results) {
+			booked.add(result.get(1, TimeUnit.MINUTES).stream().map(Reservation::getId).collect(Collectors.toSet()));
+		}
+		pool.shutdown();
+
+		assertEquals(2, booked.get(0).size());
+		assertEquals(booked.get(0), booked.get(1));
+		Set<Long> ours = Set.copyOf(vehicleIds);
+		assertEquals(2, reservationRepository.findAll().stream()
+				.filter(r -> ours.contains(r.getVehicle().getId()) && r.getStatus() == ReservationStatus.CONFIRMED)
+				.count());
+		assertTrue(checkoutHolds.forSession(SESSION_ID).isEmpty());
+		verify(stripeService, never()).refundInFull(any());
+	}
+
+	@AfterEach
+	void cleanUp() {
+		checkoutHolds.release(placed);
+		Set<Long> ours = Set.copyOf(vehicleIds);
+		reservationRepository.deleteAll(reservationRepository.findAll().stream()
+				.filter(r -> ours.contains(r.getVehicle().getId()))
+				.collect(Collectors.toList()));
+		vehicleRepository.deleteAllById(vehicleIds);
+		if (user != null) {
+			userRepository.delete(user);
+		}
+	}
+}
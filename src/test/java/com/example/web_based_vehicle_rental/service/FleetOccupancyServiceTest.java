@@ -0,0 +1,83 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.FleetOccupancy;
+import com.example.web_based_vehicle_rental.repository.OccupancyInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FleetOccupancyServiceTest {
+
+	private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+
+	private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+	private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+	private final FleetOccupancyService service = new FleetOccupancyService(reservationRepository,
+			vehicleRepository);
+
+	@Test
+	void sweepsReservationsClampedToTheWindow() {
+		when(vehicleRepository.countFleetByType(null)).thenReturn(List.of(
+				new Object[] { "SUV", 2L },
+				new Object[] { "Sedan", 3L }));
+		LocalDate to = FROM.plusDays(29);
+		when(reservationRepository.findConfirmedIntervalsInWindow(FROM, to, null)).thenReturn(List.of(
+				interval("SUV", FROM.minusDays(5), FROM.plusDays(1)),
+				interval("SUV", FROM.plusDays(1), FROM.plusDays(2)),
+				interval("Sedan", FROM.plusDays(28), FROM.plusDays(40))));
+
+		FleetOccupancy occupancy = service.getOccupancy(FROM, 30, null);
+
+		assertEquals(to, occupancy.getTo());
+		FleetOccupancy.Series sedan = occupancy.getTypes().get(1);
+		FleetOccupancy.Series suv = occupancy.getTypes().get(0);
+		assertEquals("Sedan", sedan.getType());
+		assertEquals(1, sedan.getBooked()[28]);
+		assertEquals(1, sedan.getBooked()[29]);
+		assertEquals(0, sedan.getBooked()[27]);
+		assertArrayEquals(new int[] { 1, 2, 1, 0 }, Arrays.copyOf(suv.getBooked(), 4));
+		assertArrayEquals(new int[] { 1, 0, 1, 2 }, Arrays.copyOf(suv.getFree(), 4));
+		assertEquals(5, occupancy.getTotal().getFleetSize());
+		assertEquals(2, occupancy.getTotal().getBooked()[1]);
+	}
+
+	@Test
+	void rejectsWindowsOutsideTheSupportedRange() {
+		assertThrows(IllegalArgumentException.class, () -> service.getOccupancy(FROM, 7, null));
+		assertThrows(IllegalArgumentException.class, () -> service.getOccupancy(FROM, 400, null));
+	}
+
+	private static OccupancyInterval interval(String type, LocalDate start, LocalDate end) {
+		return new OccupancyInterval() {
+			@Override
+			public Long getReservationId() {
+				return null;
+			}
+
+			@Override
+			public String getVehicleType() {
+				return type;
+			}
+
+			@Override
+			public LocalDate getStartDate() {
+				return start;
+			}
+
+			@Override
+			public LocalDate getEndDate() {
+				return end;
+			}
+		};
+	}
+}
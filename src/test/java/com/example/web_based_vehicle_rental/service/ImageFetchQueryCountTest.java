@@ -0,0 +1,189 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.User;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.model.VehicleImage;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.UserRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleSortField;
+import com.example.web_based_vehicle_rental.scheduler.RentalCompletionScheduler;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vehicle galleries are loaded only by the views that show them: the
+ * completion job, invoices and search must not read a single image row, and
+ * a vehicle's detail view must get its gallery in the same statement.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class ImageFetchQueryCountTest {
+
+	private static final int IMAGES_PER_VEHICLE = 3;
+
+	@Autowired
+	private RentalCompletionScheduler rentalCompletionScheduler;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private AdminService adminService;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void completingExpiredRentalsLeavesGalleriesUnloaded() {
+		User renter = saveUser("img-renter");
+		List<Vehicle> vehicles = saveVehicles("Done", 20);
+		LocalDate ended = LocalDate.now().minusDays(3);
+		for (Vehicle vehicle : vehicles) {
+			saveReservation(renter, vehicle, ended.minusDays(2), ended, ReservationStatus.CONFIRMED);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		long statements = countStatements(() -> rentalCompletionScheduler.completeExpiredRentals());
+
+		assertNoImagesLoaded();
+		// One select for the reservations with their renters and vehicles, however many there are
+		assertTrue(statements < vehicles.size(), "Statements for " + vehicles.size() + " rentals: " + statements);
+	}
+
+	@Test
+	void invoiceLeavesGalleryUnloaded() throws Exception {
+		User renter = saveUser("img-invoice");
+		Vehicle vehicle = saveVehicles("Invoice", 1).get(0);
+		Reservation reservation = saveReservation(renter, vehicle, LocalDate.now().plusDays(5),
+				LocalDate.now().plusDays(7), ReservationStatus.CONFIRMED);
+		entityManager.flush();
+		entityManager.clear();
+
+		countStatements(() -> {
+			try {
+				invoiceService.generateInvoice(reservation.getId());
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertNoImagesLoaded();
+	}
+
+	@Test
+	void searchLeavesGalleriesUnloaded() {
+		saveVehicles("ImgSearch", 30);
+		entityManager.flush();
+		entityManager.clear();
+		LocalDate start = LocalDate.now().plusDays(40);
+
+		countStatements(() -> reservationService.searchAvailableVehiclesPage(start, start.plusDays(2), "ImgSearch",
+				null, null, VehicleSortField.DAILY_PRICE, false, null, 10));
+
+		assertNoImagesLoaded();
+	}
+
+	@Test
+	void vehicleDetailLoadsItsGalleryInOneStatement() {
+		Vehicle saved = saveVehicles("Detail", 1).get(0);
+		entityManager.flush();
+		entityManager.clear();
+
+		Vehicle[] found = new Vehicle[1];
+		long statements = countStatements(() -> found[0] = adminService.getVehicleById(saved.getId()).orElseThrow());
+
+		assertEquals(1, statements);
+		assertTrue(Hibernate.isInitialized(found[0].getImages()));
+		assertEquals(IMAGES_PER_VEHICLE, found[0].getImages().size());
+	}
+
+	private void assertNoImagesLoaded() {
+		assertEquals(0, statistics.getEntityStatistics(VehicleImage.class.getName()).getLoadCount());
+		assertEquals(0, statistics.getCollectionFetchCount());
+	}
+
+	private List<Vehicle> saveVehicles(String type, int count) {
+		List<Vehicle> vehicles = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Vehicle vehicle = new Vehicle(type, "Car" + i, 2021, "IMG-" + type.toUpperCase() + "-" + i, 40.0 + i,
+					type);
+			for (int image = 0; image < IMAGES_PER_VEHICLE; image++) {
+				vehicle.addImage(new VehicleImage(vehicle, "/images/vehicles/" + type + i + "-" + image + ".jpg",
+						image == 0));
+			}
+			vehicles.add(vehicleRepository.save(vehicle));
+		}
+		return vehicles;
+	}
+
+	private Reservation saveReservation(User user, Vehicle vehicle, LocalDate start, LocalDate end,
+			ReservationStatus status) {
+		Reservation reservation = new Reservation(user, vehicle, start, end, 120.0);
+		reservation.setStatus(status);
+		return reservationRepository.save(reservation);
+	}
+
+	private User saveUser(String username) {
+		User saved = new User();
+		saved.setUsername(username);
+		saved.setPassword("images!pass1");
+		saved.setEmail(username + "@driveease.test");
+		saved.setAgreedToTerms(true);
+		return userRepository.save(saved);
+	}
+
+	private long countStatements(Runnable action) {
+		// Measure the database path, not a cache hit
+		cacheManager.getCache(CacheConfig.VEHICLES).clear();
+		cacheManager.getCache(CacheConfig.AVAILABLE_VEHICLES).clear();
+		statistics.clear();
+		action.run();
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,147 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.repository.VehicleImageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageRenditionPipelineTest {
+
+	@TempDir
+	Path uploadRoot;
+
+	private final VehicleImageRepository vehicleImageRepository = mock(VehicleImageRepository.class);
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.VEHICLES,
+			CacheConfig.VEHICLE_CATALOG, CacheConfig.AVAILABLE_VEHICLES);
+	private final CatalogVersion catalogVersion = new CatalogVersion(cacheManager, event -> {
+	});
+	private LocalBlobStorage blobStorage;
+	private ImageRenditionPipeline pipeline;
+
+	@BeforeEach
+	void setUp() {
+		blobStorage = new LocalBlobStorage(uploadRoot.toString(), uploadRoot.resolve("uploads").toString());
+		pipeline = new ImageRenditionPipeline(vehicleImageRepository, catalogVersion, cacheManager, blobStorage, 1, 4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pipeline.shutdown();
+	}
+
+	@Test
+	void rendersEverySizeInsideItsBoxKeepingTheAspectRatio() throws IOException {
+		upload("car.png", 3000, 1500);
+
+		Map<ImageRendition, String> urls = pipeline.render("/images/vehicles/car.png");
+
+		assertEquals("/images/vehicles/renditions/thumb/car.png.jpg", urls.get(ImageRendition.THUMBNAIL));
+		assertEquals("/images/vehicles/renditions/card/car.png.jpg", urls.get(ImageRendition.CARD));
+		assertSize(urls.get(ImageRendition.THUMBNAIL), 240, 120);
+		assertSize(urls.get(ImageRendition.CARD), 640, 320);
+		assertSize(urls.get(ImageRendition.DETAIL), 1600, 800);
+	}
+
+	@Test
+	void neverUpscalesSmallUploads() throws IOException {
+		upload("small.png", 400, 300);
+
+		Map<ImageRendition, String> urls = pipeline.render("/images/vehicles/small.png");
+
+		assertSize(urls.get(ImageRendition.THUMBNAIL), 213, 160);
+		assertSize(urls.get(ImageRendition.CARD), 400, 300);
+		assertSize(urls.get(ImageRendition.DETAIL), 400, 300);
+	}
+
+	@Test
+	void recordsRenditionsAndPublishesACatalogChange() throws IOException {
+		upload("car.png", 1000, 800);
+		when(vehicleImageRepository.updateRenditions(any(), anyString(), anyString(), anyString(), anyString()))
+				.thenReturn(1);
+		cacheManager.getCache(CacheConfig.VEHICLES).put(7L, "cached vehicle");
+
+		pipeline.process(7L, "/images/vehicles/car.png");
+
+		verify(vehicleImageRepository).updateRenditions(7L, "/images/vehicles/car.png",
+				"/images/vehicles/renditions/thumb/car.png.jpg", "/images/vehicles/renditions/card/car.png.jpg",
+				"/images/vehicles/renditions/detail/car.png.jpg");
+		assertNull(cacheManager.getCache(CacheConfig.VEHICLES).get(7L));
+		assertEquals(1, catalogVersion.current());
+	}
+
+	@Test
+	void leavesUndecodableFilesAlone() throws IOException {
+		Files.createDirectories(uploadRoot.resolve("vehicles"));
+		Files.writeString(uploadRoot.resolve("vehicles/notes.jpg"), "not an image");
+
+		pipeline.process(7L, "/images/vehicles/notes.jpg");
+
+		verify(vehicleImageRepository, never()).updateRenditions(any(), any(), any(), any(), any());
+		assertEquals(0, catalogVersion.current());
+	}
+
+	@Test
+	void refusesImagesDeclaringTooManyPixelsBeforeDecodingThem() throws IOException {
+		upload("huge.png", 1, 1);
+		// Rewrite the header to claim 100000x100000 pixels; decoding that would need 40 GB
+		Path file = uploadRoot.resolve("vehicles/huge.png");
+		byte[] png = Files.readAllBytes(file);
+		ByteBuffer header = ByteBuffer.wrap(png);
+		header.putInt(16, 100_000).putInt(20, 100_000);
+		CRC32 crc = new CRC32();
+		crc.update(png, 12, 17);
+		header.putInt(29, (int) crc.getValue());
+		Files.write(file, png);
+
+		assertTrue(pipeline.render("/images/vehicles/huge.png").isEmpty());
+	}
+
+	@Test
+	void reusesRenditionsOfContentAlreadyRendered() throws IOException {
+		upload("car.png", 1000, 800);
+		Map<ImageRendition, String> first = pipeline.render("/images/vehicles/car.png");
+		Path card = fileOf(first.get(ImageRendition.CARD));
+		Files.writeString(card, "kept");
+
+		assertEquals(first, pipeline.render("/images/vehicles/car.png"));
+		assertEquals("kept", Files.readString(card));
+	}
+
+	private void upload(String name, int width, int height) throws IOException {
+		Files.createDirectories(uploadRoot.resolve("vehicles"));
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png",
+				uploadRoot.resolve("vehicles").resolve(name).toFile());
+	}
+
+	private void assertSize(String url, int width, int height) throws IOException {
+		BufferedImage image = ImageIO.read(fileOf(url).toFile());
+		assertEquals(width, image.getWidth(), url);
+		assertEquals(height, image.getHeight(), url);
+	}
+
+	private Path fileOf(String url) {
+		return blobStorage.localFile(ImageStore.keyOf(url));
+	}
+}
@@ -0,0 +1,165 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.StoredImage;
+import com.example.web_based_vehicle_rental.repository.StoredImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageStoreTest {
+
+	@TempDir
+	Path uploadRoot;
+
+	private final Map<String, StoredImage> rows = new HashMap<>();
+	private final StoredImageRepository storedImageRepository = mock(StoredImageRepository.class);
+	private LocalBlobStorage blobStorage;
+	private ImageStore store;
+
+	@BeforeEach
+	void setUp() {
+		when(storedImageRepository.findByIdForUpdate(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+		when(storedImageRepository.save(any())).thenAnswer(invocation -> {
+			StoredImage stored = invocation.getArgument(0);
+			rows.put(stored.getDigest(), stored);
+			return stored;
+		});
+		when(storedImageRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+			StoredImage stored = invocation.getArgument(0);
+			if (rows.putIfAbsent(stored.getDigest(), stored) != null) {
+				throw new DataIntegrityViolationException("Duplicate entry for key 'PRIMARY'");
+			}
+			return stored;
+		});
+		doAnswer(invocation -> rows.remove(invocation.<StoredImage>getArgument(0).getDigest()))
+				.when(storedImageRepository).delete(any());
+		blobStorage = new LocalBlobStorage(uploadRoot.resolve("images").toString(), uploadRoot.resolve("uploads").toString());
+		store = new ImageStore(storedImageRepository, blobStorage, mock(PlatformTransactionManager.class));
+	}
+
+	@Test
+	void filesUploadsUnderTheDigestOfTheirBytes() throws IOException {
+		String url = store("red car", "Front View.JPG");
+		String digest = ImageStore.digestOf(url);
+
+		assertEquals("/images/cas/" + digest.substring(0, 2) + "/" + digest + ".jpg", url);
+		assertEquals(digest, sha256Hex("red car"));
+		assertArrayEquals("red car".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(fileOf(url)));
+		assertEquals(7, rows.get(digest).getSize());
+	}
+
+	@Test
+	void keepsOneFilePerContentAndCountsItsUploads() throws IOException {
+		String first = store("red car", "a.jpg");
+		String second = store("red car", "b.png");
+		String other = store("blue car", "a.jpg");
+
+		assertEquals(first, second);
+		assertNotEquals(first, other);
+		assertEquals(2, rows.get(ImageStore.digestOf(first)).getRefCount());
+		assertEquals(2, filesUnderStore());
+	}
+
+	@Test
+	void losingTheInsertToAnotherInstanceTakesAReferenceOnItsRow() throws IOException {
+		String digest = sha256Hex("red car");
+		String url = "/images/cas/" + digest.substring(0, 2) + "/" + digest + ".jpg";
+		// The other instance inserts its row between our lookup and our insert
+		when(storedImageRepository.findByIdForUpdate(digest))
+				.thenReturn(Optional.empty())
+				.thenAnswer(invocation -> Optional.ofNullable(rows.get(digest)));
+		rows.put(digest, new StoredImage(digest, url, 7));
+
+		assertEquals(url, store("red car", "a.jpg"));
+		assertEquals(2, rows.get(digest).getRefCount());
+		assertTrue(Files.exists(fileOf(url)));
+	}
+
+	@Test
+	void deletesTheFileAndItsRenditionsWithTheLastReference() throws IOException {
+		String url = store("red car", "a.jpg");
+		store("red car", "a.jpg");
+		Path file = fileOf(url);
+		Path card = fileOf(ImageRenditionPipeline.renditionUrl(url, ImageRendition.CARD));
+		Files.createDirectories(card.getParent());
+		Files.writeString(card, "card");
+
+		store.release(url);
+		assertTrue(Files.exists(file));
+
+		store.release(url);
+		assertFalse(Files.exists(file));
+		assertFalse(Files.exists(card));
+		assertTrue(rows.isEmpty());
+	}
+
+	@Test
+	void ignoresUrlsFromBeforeTheStore() throws IOException {
+		Path legacy = fileOf("/images/vehicles/1700000000000_car.jpg");
+		Files.createDirectories(legacy.getParent());
+		Files.writeString(legacy, "old");
+
+		store.release("/images/vehicles/1700000000000_car.jpg");
+
+		assertTrue(Files.exists(legacy));
+		assertNull(ImageStore.digestOf("/images/cas/ab/abc.jpg"));
+	}
+
+	@Test
+	void refusesPathsOutsideTheUploadDirectory() {
+		assertThrows(IllegalArgumentException.class, () -> ImageStore.keyOf("/images/../secrets.jpg"));
+		assertThrows(IllegalArgumentException.class, () -> ImageStore.keyOf("/uploads/shot.png"));
+		assertThrows(IllegalArgumentException.class, () -> blobStorage.localFile("images/a/../../secrets.jpg"));
+		assertEquals("images/vehicles/car.png", ImageStore.keyOf("/images/vehicles/car.png"));
+		assertTrue(fileOf("/images/vehicles/car.png").startsWith(uploadRoot.toAbsolutePath()));
+	}
+
+	private String store(String content, String filename) throws IOException {
+		return store.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), filename);
+	}
+
+	private Path fileOf(String url) {
+		return blobStorage.localFile(ImageStore.keyOf(url));
+	}
+
+	private long filesUnderStore() throws IOException {
+		try (Stream<Path> files = Files.walk(uploadRoot.resolve("images").resolve(ImageStore.CONTENT_DIRECTORY))) {
+			return files.filter(Files::isRegularFile).count();
+		}
+	}
+
+	private static String sha256Hex(String content) {
+		try {
+			return java.util.HexFormat.of().formatHex(java.security.MessageDigest.getInstance("SHA-256")
+					.digest(content.getBytes(StandardCharsets.UTF_8)));
+		} catch (java.security.NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.OccupancyInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OccupancySurgeTrackerTest {
+
+	private static final LocalDate START = LocalDate.now().plusDays(10);
+
+	private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+	private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+	private final OccupancySurgeTracker tracker = new OccupancySurgeTracker(reservationRepository,
+			vehicleRepository, true, "0.5:1.2, 1.0:2.0");
+	private final Vehicle sedan = new Vehicle("Toyota", "Axio", 2020, "OCC-1", 100.0, "Sedan");
+
+	@BeforeEach
+	void setUp() {
+		when(vehicleRepository.countFleetByType(null)).thenReturn(List.<Object[]>of(new Object[] { "Sedan", 2L }));
+		when(reservationRepository.findConfirmedIntervalsInWindow(any(), any(), isNull())).thenReturn(List.of());
+		tracker.rebuild();
+	}
+
+	@Test
+	void bookingsRaiseTheSurgeTierAndCancellationsLowerIt() {
+		Reservation first = confirmed(START, START.plusDays(2));
+		Reservation second = confirmed(START.plusDays(2), START.plusDays(3));
+
+		tracker.onReservationChanged(ReservationChangedEvent.created(first));
+		tracker.onReservationChanged(ReservationChangedEvent.created(second));
+		assertEquals(Map.of(day(0), 1.2, day(1), 1.2, day(2), 2.0, day(3), 1.2), surges());
+
+		first.setStatus(ReservationStatus.CANCELLED);
+		tracker.onReservationChanged(ReservationChangedEvent.statusChanged(first, ReservationStatus.CONFIRMED));
+		assertEquals(Map.of(day(2), 1.2, day(3), 1.2), surges());
+	}
+
+	@Test
+	void movedDatesMoveTheSurge() {
+		Reservation reservation = confirmed(START, START.plusDays(1));
+		tracker.onReservationChanged(ReservationChangedEvent.created(reservation));
+
+		reservation.setEndDate(START.plusDays(3));
+		tracker.onReservationChanged(ReservationChangedEvent.datesChanged(reservation, START, START.plusDays(1)));
+
+		assertEquals(Map.of(day(0), 1.2, day(1), 1.2, day(2), 1.2, day(3), 1.2), surges());
+	}
+
+	@Test
+	void eventsDuringARebuildAreNotCountedTwice() {
+		Reservation cancelled = confirmed(START, START.plusDays(1));
+		cancelled.setId(1L);
+		tracker.onReservationChanged(ReservationChangedEvent.created(cancelled));
+		Reservation booked = confirmed(START.plusDays(3), START.plusDays(4));
+		booked.setId(2L);
+		OccupancyInterval loaded = mock(OccupancyInterval.class);
+		when(loaded.getReservationId()).thenReturn(2L);
+		when(loaded.getVehicleType()).thenReturn("Sedan");
+		when(loaded.getStartDate()).thenReturn(booked.getStartDate());
+		when(loaded.getEndDate()).thenReturn(booked.getEndDate());
+		// Both commit while the rebuild is reading, and the read already sees them
+		when(reservationRepository.findConfirmedIntervalsInWindow(any(), any(), isNull())).thenAnswer(invocation -> {
+			tracker.onReservationChanged(ReservationChangedEvent.created(booked));
+			cancelled.setStatus(ReservationStatus.CANCELLED);
+			tracker.onReservationChanged(ReservationChangedEvent.statusChanged(cancelled, ReservationStatus.CONFIRMED));
+			return List.of(loaded);
+		});
+
+		tracker.rebuild();
+
+		assertEquals(Map.of(day(3), 1.2, day(4), 1.2), surges());
+	}
+
+	@Test
+	void disabledTrackerNeverSurges() {
+		OccupancySurgeTracker disabled = new OccupancySurgeTracker(reservationRepository, vehicleRepository, false,
+				"0.1:5.0");
+		disabled.rebuild();
+		disabled.onReservationChanged(ReservationChangedEvent.created(confirmed(START, START)));
+
+		assertTrue(disabled.surgeDays("Sedan", day(0), day(10)).isEmpty());
+	}
+
+	@Test
+	void rejectsTiersOutOfOrder() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new OccupancySurgeTracker(reservationRepository, vehicleRepository, true, "0.9:1.5,0.5:1.2"));
+	}
+
+	private Map<Long, Double> surges() {
+		return tracker.surgeDays("Sedan", day(-5), day(30));
+	}
+
+	private Reservation confirmed(LocalDate start, LocalDate end) {
+		Reservation reservation = new Reservation(null, sedan, start, end, 100.0);
+		reservation.setStatus(ReservationStatus.CONFIRMED);
+		return reservation;
+	}
+
+	private static long day(int offset) {
+		return START.plusDays(offset).toEpochDay();
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.PricingRule;
+import com.example.web_based_vehicle_rental.model.PricingRuleKind;
+import com.example.web_based_vehicle_rental.repository.PricingRuleRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Quote throughput of the compiled price vectors against evaluating every
+ * rule for every day of the rental, across rental lengths.
+ */
+@Tag("benchmark")
+class PricingEngineBenchmarkTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(PricingEngineBenchmarkTest.class);
+
+	private static final int[] RENTAL_DAYS = { 3, 30, 180 };
+	private static final String[] TYPES = { "Sedan", "SUV", "Van", "Luxury" };
+	private static final int QUOTES = 200_000;
+
+	@Test
+	void vectorQuotesStayFlatAsRentalsGetLonger() {
+		List<PricingRule> rules = rules();
+		PricingRuleRepository repository = mock(PricingRuleRepository.class);
+		when(repository.findByActiveTrue()).thenReturn(rules);
+		PricingEngine engine = new PricingEngine(repository,
+				new OccupancySurgeTracker(null, null, false, "0.9:1.5"));
+		LocalDate start = LocalDate.now().plusDays(1);
+
+		double[] vectorRates = new double[RENTAL_DAYS.length];
+		for (int pass = 0; pass < 2; pass++) { // the first pass only warms up
+			for (int i = 0; i < RENTAL_DAYS.length; i++) {
+				LocalDate end = start.plusDays(RENTAL_DAYS[i] - 1);
+				vectorRates[i] = quotesPerSecond(type -> engine.quote(type, 50.0, start, end));
+				double naiveRate = quotesPerSecond(type -> naiveQuote(rules, type, 50.0, start, end));
+
+				if (pass == 1) {
+					logger.info("days={}  price vectors={} quotes/s  per-day rules={} quotes/s", RENTAL_DAYS[i],
+							Math.round(vectorRates[i]), Math.round(naiveRate));
+				}
+			}
+		}
+
+		assertTrue(vectorRates[RENTAL_DAYS.length - 1] > vectorRates[0] / 3,
+				"Quote throughput fell with rental length: " + Arrays.toString(vectorRates));
+	}
+
+	private static double quotesPerSecond(ToDoubleFunction<String> quote) {
+		double sink = 0;
+		long begin = System.nanoTime();
+		for (int i = 0; i < QUOTES; i++) {
+			sink += quote.applyAsDouble(TYPES[i % TYPES.length]);
+		}
+		long elapsed = System.nanoTime() - begin;
+		assertTrue(sink > 0);
+		return QUOTES / (elapsed / 1e9);
+	}
+
+	// What each call site did before, with the rules evaluated inline
+	private static double naiveQuote(List<PricingRule> rules, String type, double dailyPrice, LocalDate start,
+			LocalDate end) {
+		double total = 0;
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			double factor = 1.0;
+			for (PricingRule rule : rules) {
+				boolean applies = rule.getVehicleType() == null || rule.getVehicleType().equals(type);
+				if (applies && rule.getKind() == PricingRuleKind.WEEKEND && day.getDayOfWeek().getValue() >= 6) {
+					factor *= rule.getMultiplier();
+				} else if (applies && rule.getKind() == PricingRuleKind.SEASONAL
+						&& !day.isBefore(rule.getStartDate()) && !day.isAfter(rule.getEndDate())) {
+					factor *= rule.getMultiplier();
+				}
+			}
+			total += dailyPrice * factor;
+		}
+		return total;
+	}
+
+	private static List<PricingRule> rules() {
+		List<PricingRule> rules = new ArrayList<>();
+		rules.add(new PricingRule("Weekend", PricingRuleKind.WEEKEND, null, 1.2));
+		for (int month = 0; month < 12; month++) {
+			PricingRule season = new PricingRule("Season " + month, PricingRuleKind.SEASONAL,
+					TYPES[month % TYPES.length], 1.0 + month / 20.0);
+			season.setStartDate(LocalDate.now().plusMonths(month));
+			season.setEndDate(LocalDate.now().plusMonths(month).plusDays(20));
+			rules.add(season);
+		}
+		PricingRule week = new PricingRule("Week", PricingRuleKind.LONG_RENTAL, null, 0.9);
+		week.setMinDays(7);
+		rules.add(week);
+		return rules;
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.PricingRule;
+import com.example.web_based_vehicle_rental.model.PricingRuleKind;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.example.web_based_vehicle_rental.repository.OccupancyInterval;
+import com.example.web_based_vehicle_rental.repository.PricingRuleRepository;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PricingEngineTest {
+
+	// A Monday, a few weeks out so the whole test range sits inside the price vectors
+	private static final LocalDate MONDAY = LocalDate.now().plusWeeks(3)
+			.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+	private final PricingRuleRepository repository = mock(PricingRuleRepository.class);
+	private final PricingEngine engine = new PricingEngine(repository,
+			new OccupancySurgeTracker(null, null, false, "0.9:1.5"));
+
+	@Test
+	void withoutRulesAQuoteIsDailyPriceTimesDays() {
+		when(repository.findByActiveTrue()).thenReturn(List.of());
+
+		assertEquals(150.0, engine.quote("Sedan", 50.0, MONDAY, MONDAY.plusDays(2)));
+		assertEquals(50.0, engine.quote("Sedan", 50.0, MONDAY, MONDAY));
+	}
+
+	@Test
+	void weekendAndSeasonalMultipliersApplyPerDay() {
+		PricingRule season = new PricingRule("Festival", PricingRuleKind.SEASONAL, null, 2.0);
+		season.setStartDate(MONDAY.plusDays(1));
+		season.setEndDate(MONDAY.plusDays(5));
+		when(repository.findByActiveTrue()).thenReturn(List.of(
+				new PricingRule("Weekend", PricingRuleKind.WEEKEND, null, 1.5),
+				season));
+
+		// Mon 1, Tue-Fri 2 each, Sat 2 * 1.5, Sun 1.5
+		assertEquals(100.0 * (1 + 4 * 2 + 3 + 1.5), engine.quote("Sedan", 100.0, MONDAY, MONDAY.plusDays(6)));
+	}
+
+	@Test
+	void rulesForAnotherTypeAreIgnored() {
+		when(repository.findByActiveTrue()).thenReturn(List.of(
+				new PricingRule("SUV weekend", PricingRuleKind.WEEKEND, "SUV", 2.0)));
+
+		assertEquals(700.0, engine.quote("Sedan", 100.0, MONDAY, MONDAY.plusDays(6)));
+		assertEquals(900.0, engine.quote("SUV", 100.0, MONDAY, MONDAY.plusDays(6)));
+	}
+
+	@Test
+	void longestReachedLongRentalTierDiscountsTheTotal() {
+		PricingRule week = new PricingRule("Week", PricingRuleKind.LONG_RENTAL, null, 0.9);
+		week.setMinDays(7);
+		PricingRule month = new PricingRule("Month", PricingRuleKind.LONG_RENTAL, null, 0.8);
+		month.setMinDays(30);
+		when(repository.findByActiveTrue()).thenReturn(List.of(month, week));
+
+		assertEquals(600.0, engine.quote("Sedan", 100.0, MONDAY, MONDAY.plusDays(5)));
+		assertEquals(630.0, engine.quote("Sedan", 100.0, MONDAY, MONDAY.plusDays(6)));
+		assertEquals(2400.0, engine.quote("Sedan", 100.0, MONDAY, MONDAY.plusDays(29)));
+	}
+
+	@Test
+	void rangesBeyondTheHorizonAreSummedDayByDay() {
+		when(repository.findByActiveTrue()).thenReturn(List.of(
+				new PricingRule("Weekend", PricingRuleKind.WEEKEND, null, 2.0)));
+		LocalDate farMonday = MONDAY.plusWeeks(PricingEngine.HORIZON_DAYS / 7 + 1);
+
+		assertEquals(engine.quote("Sedan", 10.0, MONDAY, MONDAY.plusDays(13)),
+				engine.quote("Sedan", 10.0, farMonday, farMonday.plusDays(13)));
+	}
+
+	@Test
+	void rulesAreLoadedOnceUntilInvalidated() {
+		when(repository.findByActiveTrue()).thenReturn(List.of());
+		engine.quote("Sedan", 10.0, MONDAY, MONDAY.plusDays(1));
+		engine.quote("SUV", 10.0, MONDAY, MONDAY.plusDays(3));
+
+		PricingRule season = new PricingRule("Everything", PricingRuleKind.SEASONAL, null, 3.0);
+		season.setStartDate(MONDAY);
+		season.setEndDate(MONDAY.plusDays(10));
+		when(repository.findByActiveTrue()).thenReturn(List.of(season));
+		engine.invalidate();
+
+		assertEquals(60.0, engine.quote("Sedan", 10.0, MONDAY, MONDAY.plusDays(1)));
+		verify(repository, times(2)).findByActiveTrue();
+	}
+
+	@Test
+	void surgingDaysAreMarkedUpOnTopOfTheRules() {
+		ReservationRepository reservations = mock(ReservationRepository.class);
+		VehicleRepository vehicles = mock(VehicleRepository.class);
+		when(vehicles.countFleetByType(null)).thenReturn(List.<Object[]>of(new Object[] { "Sedan", 2L }));
+		OccupancyInterval booked = mock(OccupancyInterval.class);
+		when(booked.getVehicleType()).thenReturn("Sedan");
+		when(booked.getStartDate()).thenReturn(MONDAY.plusDays(5));
+		when(booked.getEndDate()).thenReturn(MONDAY.plusDays(6));
+		when(reservations.findConfirmedIntervalsInWindow(any(), any(), isNull())).thenReturn(List.of(booked));
+		OccupancySurgeTracker tracker = new OccupancySurgeTracker(reservations, vehicles, true, "0.5:1.2,1.0:2.0");
+		tracker.rebuild();
+		when(repository.findByActiveTrue()).thenReturn(List.of(
+				new PricingRule("Weekend", PricingRuleKind.WEEKEND, null, 1.5)));
+		PricingEngine surging = new PricingEngine(repository, tracker);
+
+		// Half the Sedans are out on the weekend: Mon-Fri 1 each, Sat and Sun 1.5 * 1.2
+		assertEquals(100.0 * (5 + 2 * 1.5 * 1.2), surging.quote("Sedan", 100.0, MONDAY, MONDAY.plusDays(6)));
+		assertEquals(100.0 * (5 + 2 * 1.5), surging.quote("SUV", 100.0, MONDAY, MONDAY.plusDays(6)));
+	}
+
+	@Test
+	void extensionKeepsBookedDaysAndUsesTheWholeRentalTier() {
+		PricingRule week = new PricingRule("Week", PricingRuleKind.LONG_RENTAL, null, 0.5);
+		week.setMinDays(7);
+		when(repository.findByActiveTrue()).thenReturn(List.of(week));
+		Vehicle vehicle = new Vehicle("Toyota", "Axio", 2020, "EXT-1", 100.0, "Sedan");
+
+		assertEquals(100.0, engine.quoteExtension(vehicle, MONDAY, MONDAY.plusDays(5), MONDAY.plusDays(6)));
+		assertEquals(200.0, engine.quoteExtension(vehicle, MONDAY, MONDAY.plusDays(3), MONDAY.plusDays(6)));
+	}
+
+	@Test
+	void rejectsReversedDates() {
+		assertThrows(IllegalArgumentException.class,
+				() -> engine.quote("Sedan", 10.0, MONDAY, MONDAY.minusDays(1)));
+	}
+}
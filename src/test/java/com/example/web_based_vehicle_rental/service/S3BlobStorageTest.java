@@ -0,0 +1,353 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.StorageConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs S3BlobStorage, built the way StorageConfig builds it, against a small
+ * in-process stand-in for MinIO that speaks the path-style S3 calls it uses.
+ */
+class S3BlobStorageTest {
+
+	private static final int PART_SIZE = 1024;
+
+	@TempDir
+	Path tempDir;
+
+	private FakeS3 fakeS3;
+	private S3Client s3;
+	private S3Presigner presigner;
+	private S3BlobStorage storage;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		fakeS3 = new FakeS3();
+		StorageConfig config = new StorageConfig();
+		s3 = config.s3Client(fakeS3.endpoint(), "us-east-1", true, "minio", "minio-secret");
+		presigner = config.s3Presigner(fakeS3.endpoint(), "us-east-1", true, "minio", "minio-secret");
+		storage = new S3BlobStorage(s3, presigner, "rentals", "", Duration.ofMinutes(10), PART_SIZE);
+	}
+
+	@AfterEach
+	void tearDown() {
+		s3.close();
+		presigner.close();
+		fakeS3.stop();
+	}
+
+	@Test
+	void storesReadsAndDeletesObjects() throws IOException {
+		Path file = Files.writeString(tempDir.resolve("car.jpg"), "red car");
+
+		storage.put("images/cas/ab/ab12.jpg", file, "image/jpeg");
+
+		assertTrue(storage.exists("images/cas/ab/ab12.jpg"));
+		assertEquals("red car", read("images/cas/ab/ab12.jpg"));
+		assertEquals("image/jpeg", fakeS3.contentTypes.get("rentals/images/cas/ab/ab12.jpg"));
+		assertEquals(0, fakeS3.multipartUploads.get());
+
+		storage.delete("images/cas/ab/ab12.jpg");
+		storage.delete("images/cas/ab/ab12.jpg");
+		assertFalse(storage.exists("images/cas/ab/ab12.jpg"));
+		assertThrows(NoSuchFileException.class, () -> storage.open("images/cas/ab/ab12.jpg"));
+	}
+
+	@Test
+	void streamsLargeUploadsInParts() throws IOException {
+		byte[] bytes = new byte[PART_SIZE * 2 + 500];
+		new Random(7).nextBytes(bytes);
+
+		storage.put("uploads/support-screenshots/shot.png", new ByteArrayInputStream(bytes), "image/png");
+		Path file = Files.write(tempDir.resolve("photo.jpg"), bytes);
+		storage.put("images/cas/cd/cd34.jpg", file, "image/jpeg");
+
+		assertEquals(2, fakeS3.multipartUploads.get());
+		assertEquals(6, fakeS3.partsUploaded.get());
+		assertArrayEquals(bytes, fakeS3.objects.get("rentals/uploads/support-screenshots/shot.png"));
+		assertArrayEquals(bytes, fakeS3.objects.get("rentals/images/cas/cd/cd34.jpg"));
+		assertEquals("image/png", fakeS3.contentTypes.get("rentals/uploads/support-screenshots/shot.png"));
+	}
+
+	@Test
+	void abortsAnUploadWhoseStreamFails() {
+		InputStream failing = new SequenceInputStream(new ByteArrayInputStream(new byte[PART_SIZE + 10]),
+				new InputStream() {
+					@Override
+					public int read() throws IOException {
+						throw new IOException("client went away");
+					}
+				});
+
+		assertThrows(IOException.class, () -> storage.put("images/cas/ef/ef56.jpg", failing, "image/jpeg"));
+		assertEquals(1, fakeS3.abortedUploads.get());
+		assertFalse(fakeS3.objects.containsKey("rentals/images/cas/ef/ef56.jpg"));
+	}
+
+	@Test
+	void presignsUrlsBrowsersCanFetchDirectly() throws Exception {
+		storage.put("images/cas/ab/ab12.jpg", new ByteArrayInputStream("red car".getBytes(StandardCharsets.UTF_8)),
+				"image/jpeg");
+
+		URI url = storage.directUrl("images/cas/ab/ab12.jpg");
+
+		assertTrue(url.toString().startsWith(fakeS3.endpoint() + "/rentals/images/cas/ab/ab12.jpg?"), url.toString());
+		assertTrue(url.getQuery().contains("X-Amz-Expires=600"), url.toString());
+		assertTrue(url.getQuery().contains("X-Amz-Signature="), url.toString());
+		HttpResponse<String> response = HttpClient.newHttpClient()
+				.send(HttpRequest.newBuilder(url).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals("red car", response.body());
+		assertNull(storage.localFile("images/cas/ab/ab12.jpg"));
+	}
+
+	@Test
+	void linksToAPublicBucketWithoutSigning() {
+		S3BlobStorage publicStorage = new S3BlobStorage(s3, presigner, "rentals", "https://cdn.example.com/",
+				Duration.ofMinutes(10), PART_SIZE);
+
+		assertEquals(URI.create("https://cdn.example.com/images/vehicles/red%20car.jpg"),
+				publicStorage.directUrl("images/vehicles/red car.jpg"));
+		assertThrows(IllegalArgumentException.class, () -> publicStorage.directUrl("images/../secrets"));
+	}
+
+	@Test
+	void listsObjectsUnderAPrefix() throws IOException {
+		storage.put("images/cas/ab/ab12.jpg", new ByteArrayInputStream(new byte[7]), "image/jpeg");
+		storage.put("images/vehicles/car.jpg", new ByteArrayInputStream(new byte[3]), "image/jpeg");
+		storage.put("uploads/support-screenshots/shot.png", new ByteArrayInputStream(new byte[5]), "image/png");
+
+		List<BlobStorage.BlobInfo> listed = new ArrayList<>();
+		storage.list("images/", listed::add);
+
+		assertEquals(List.of("images/cas/ab/ab12.jpg", "images/vehicles/car.jpg"),
+				listed.stream().map(BlobStorage.BlobInfo::key).toList());
+		assertEquals(7, listed.get(0).size());
+		assertTrue(Duration.between(listed.get(0).lastModified(), Instant.now()).abs().toMinutes() < 1);
+	}
+
+	private String read(String key) throws IOException {
+		try (InputStream in = storage.open(key)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Just enough of S3 for S3BlobStorage: object PUT/GET/HEAD/DELETE, listing and multipart uploads,
+	 * path-style, without checking signatures
+	 */
+	private static class FakeS3 {
+
+		final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+		final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+		final Map<String, Instant> lastModified = new ConcurrentHashMap<>();
+		final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+		final AtomicInteger multipartUploads = new AtomicInteger();
+		final AtomicInteger partsUploaded = new AtomicInteger();
+		final AtomicInteger abortedUploads = new AtomicInteger();
+		private final Map<String, String> uploadContentTypes = new ConcurrentHashMap<>();
+		private final HttpServer server;
+
+		FakeS3() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/", this::handle);
+			server.start();
+		}
+
+		String endpoint() {
+			return "http://localhost:" + server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			try (exchange) {
+				String object = exchange.getRequestURI().getPath().substring(1);
+				Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+				String uploadId = query.get("uploadId");
+				switch (exchange.getRequestMethod()) {
+					case "PUT" -> {
+						byte[] body = body(exchange);
+						if (uploadId != null) {
+							uploads.get(uploadId).put(Integer.parseInt(query.get("partNumber")), body);
+							partsUploaded.incrementAndGet();
+						} else {
+							objects.put(object, body);
+							contentTypes.put(object, exchange.getRequestHeaders().getFirst("Content-Type"));
+							lastModified.put(object, Instant.now());
+						}
+						exchange.getResponseHeaders().set("ETag", "\"" + Integer.toHexString(body.length) + "\"");
+						exchange.sendResponseHeaders(200, -1);
+					}
+					case "POST" -> {
+						body(exchange);
+						if (query.containsKey("uploads")) {
+							String id = "upload-" + multipartUploads.incrementAndGet();
+							uploads.put(id, new TreeMap<>());
+							uploadContentTypes.put(id, exchange.getRequestHeaders().getFirst("Content-Type"));
+							xml(exchange, "<InitiateMultipartUploadResult><Bucket>b</Bucket><Key>k</Key><UploadId>"
+									+ id + "</UploadId></InitiateMultipartUploadResult>");
+						} else {
+							ByteArrayOutputStream whole = new ByteArrayOutputStream();
+							for (byte[] part : uploads.remove(uploadId).values()) {
+								whole.writeBytes(part);
+							}
+							objects.put(object, whole.toByteArray());
+							contentTypes.put(object, uploadContentTypes.remove(uploadId));
+							lastModified.put(object, Instant.now());
+							xml(exchange, "<CompleteMultipartUploadResult><Bucket>b</Bucket><Key>k</Key>"
+									+ "<ETag>\"done\"</ETag></CompleteMultipartUploadResult>");
+						}
+					}
+					case "DELETE" -> {
+						if (uploadId != null) {
+							uploads.remove(uploadId);
+							abortedUploads.incrementAndGet();
+						} else {
+							objects.remove(object);
+						}
+						exchange.sendResponseHeaders(204, -1);
+					}
+					default -> { // GET and HEAD
+						if (query.containsKey("list-type")) {
+							list(exchange, object, query.getOrDefault("prefix", ""));
+							return;
+						}
+						byte[] bytes = objects.get(object);
+						if (bytes == null) {
+							if ("HEAD".equals(exchange.getRequestMethod())) {
+								exchange.sendResponseHeaders(404, -1);
+							} else {
+								xml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>missing</Message></Error>");
+							}
+							return;
+						}
+						exchange.getResponseHeaders().set("Content-Type", contentTypes.get(object));
+						if ("HEAD".equals(exchange.getRequestMethod())) {
+							exchange.getResponseHeaders().set("Content-Length", String.valueOf(bytes.length));
+							exchange.sendResponseHeaders(200, -1);
+						} else {
+							exchange.sendResponseHeaders(200, bytes.length);
+							exchange.getResponseBody().write(bytes);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * ListObjectsV2, all in one page
+		 */
+		private void list(HttpExchange exchange, String bucket, String prefix) throws IOException {
+			String decodedPrefix = URLDecoder.decode(prefix, StandardCharsets.UTF_8);
+			StringBuilder contents = new StringBuilder();
+			new TreeMap<>(objects).forEach((object, bytes) -> {
+				String key = object.substring(bucket.length() + 1);
+				if (object.startsWith(bucket + "/") && key.startsWith(decodedPrefix)) {
+					contents.append("<Contents><Key>").append(key).append("</Key><LastModified>")
+							.append(lastModified.get(object).truncatedTo(ChronoUnit.MILLIS))
+							.append("</LastModified><ETag>\"x\"</ETag><Size>").append(bytes.length)
+							.append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+				}
+			});
+			xml(exchange, "<ListBucketResult><Name>" + bucket + "</Name><Prefix>" + decodedPrefix
+					+ "</Prefix><IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>");
+		}
+
+		private static void xml(HttpExchange exchange, String body) throws IOException {
+			xml(exchange, 200, body);
+		}
+
+		private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+			byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/xml");
+			exchange.sendResponseHeaders(status, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		}
+
+		/**
+		 * The request body, unwrapped from aws-chunked framing when the client used it
+		 */
+		private static byte[] body(HttpExchange exchange) throws IOException {
+			byte[] raw = exchange.getRequestBody().readAllBytes();
+			String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+			if (sha256 == null || !sha256.startsWith("STREAMING-")) {
+				return raw;
+			}
+			ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+			int position = 0;
+			while (true) {
+				int lineEnd = indexOfCrlf(raw, position);
+				String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+				int size = Integer.parseInt(header.split(";")[0], 16);
+				position = lineEnd + 2;
+				if (size == 0) {
+					return decoded.toByteArray();
+				}
+				decoded.write(raw, position, size);
+				position += size + 2;
+			}
+		}
+
+		private static int indexOfCrlf(byte[] bytes, int from) {
+			for (int i = from; i < bytes.length - 1; i++) {
+				if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+					return i;
+				}
+			}
+			throw new IllegalStateException("Malformed chunked body");
+		}
+
+		private static Map<String, String> query(String rawQuery) {
+			Map<String, String> query = new HashMap<>();
+			if (rawQuery != null) {
+				for (String pair : rawQuery.split("&")) {
+					int equals = pair.indexOf('=');
+					query.put(equals < 0 ? pair : pair.substring(0, equals), equals < 0 ? "" : pair.substring(equals + 1));
+				}
+			}
+			return query;
+		}
+	}
+}
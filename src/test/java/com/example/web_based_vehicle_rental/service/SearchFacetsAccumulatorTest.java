@@ -0,0 +1,51 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.SearchFacets;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SearchFacetsAccumulatorTest {
+
+	@Test
+	void vehiclesAndAggregatedGroupsProduceTheSameFacets() {
+		SearchFacets perVehicle = new SearchFacetsAccumulator(1000)
+				.add(vehicle(1, "SUV", 2019, 4500.0))
+				.add(vehicle(2, "SUV", 2022, 4500.0))
+				.add(vehicle(3, "Sedan", 2016, 3000.0))
+				.build();
+		SearchFacets grouped = new SearchFacetsAccumulator(1000)
+				.add("SUV", 4500.0, 2, 2019, 2022)
+				.add("Sedan", 3000.0, 1, 2016, 2016)
+				.build();
+
+		for (SearchFacets facets : new SearchFacets[] { perVehicle, grouped }) {
+			assertEquals(3, facets.getTotal());
+			assertEquals(Map.of("SUV", 2L, "Sedan", 1L), facets.getTypes());
+			assertEquals(2, facets.getPriceHistogram().size());
+			assertEquals(3000.0, facets.getPriceHistogram().get(0).getFrom());
+			assertEquals(4000.0, facets.getPriceHistogram().get(0).getTo());
+			assertEquals(2, facets.getPriceHistogram().get(1).getCount());
+			assertEquals(2016, facets.getMinYear());
+			assertEquals(2022, facets.getMaxYear());
+		}
+	}
+
+	@Test
+	void emptyResultHasNoYearRange() {
+		SearchFacets facets = new SearchFacetsAccumulator(1000).build();
+
+		assertEquals(0, facets.getTotal());
+		assertNull(facets.getMinYear());
+		assertNull(facets.getMaxYear());
+	}
+
+	private static VehicleSummary vehicle(long id, String type, int year, double price) {
+		return new VehicleSummary(id, "Brand", "Model" + id, year, type, price, VehicleStatus.AVAILABLE, null);
+	}
+}
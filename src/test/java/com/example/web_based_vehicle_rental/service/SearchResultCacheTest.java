@@ -0,0 +1,75 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.config.CacheConfig;
+import com.example.web_based_vehicle_rental.model.Reservation;
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.model.Vehicle;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchResultCacheTest {
+
+	private static final LocalDate START = LocalDate.now().plusDays(5);
+
+	private final SearchResultCache cache = new SearchResultCache(cacheManager(), new SimpleMeterRegistry());
+	private final SearchResultCache.SearchKey key = new SearchResultCache.SearchKey(START, START.plusDays(2), null,
+			null, null);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void overlappingReservationInvalidatesTheEntry() {
+		load();
+		load();
+		assertEquals(1, loads.get());
+
+		cache.onReservationChanged(ReservationChangedEvent.created(confirmed()));
+		load();
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void aResultLoadedDuringAReservationChangeIsNotKept() {
+		// The change lands while the search is still reading availability
+		cache.get(key, k -> {
+			cache.onReservationChanged(ReservationChangedEvent.created(confirmed()));
+			loads.incrementAndGet();
+			return result();
+		});
+		load();
+
+		assertEquals(2, loads.get());
+	}
+
+	private void load() {
+		cache.get(key, k -> {
+			loads.incrementAndGet();
+			return result();
+		});
+	}
+
+	private static SearchResultCache.CachedSearch result() {
+		return new SearchResultCache.CachedSearch(List.of(), null);
+	}
+
+	private static Reservation confirmed() {
+		Reservation reservation = new Reservation(null, new Vehicle("Toyota", "Axio", 2020, "SRC-1", 100.0, "Sedan"),
+				START.plusDays(1), START.plusDays(1), 100.0);
+		reservation.setStatus(ReservationStatus.CONFIRMED);
+		return reservation;
+	}
+
+	private static CaffeineCacheManager cacheManager() {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		cacheManager.registerCustomCache(CacheConfig.AVAILABLE_VEHICLES, Caffeine.newBuilder().recordStats().build());
+		return cacheManager;
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSuggestion;
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VehicleAutocompleteTest {
+
+	private final VehicleCatalogService catalogService = mock(VehicleCatalogService.class);
+	private final VehicleAutocomplete autocomplete = new VehicleAutocomplete(catalogService);
+
+	@Test
+	void suggestsBrandsAndModelsWithTheirCountsMostCommonFirst() {
+		load(vehicle(1L, "Toyota", "Prius"), vehicle(2L, "Toyota", "Prius"), vehicle(3L, "toyota", "Corolla"),
+				vehicle(4L, "Tesla", "Model 3"), vehicle(5L, "Honda", "Civic"));
+
+		assertEquals(List.of("Toyota=3", "Toyota Prius=2", "Tesla=1", "Tesla Model 3=1", "Toyota Corolla=1"),
+				texts(autocomplete.suggest("T", 10)));
+		assertEquals(List.of("Toyota=3", "Toyota Prius=2"), texts(autocomplete.suggest("t", 2)));
+		assertEquals(List.of("Toyota Prius=2"), texts(autocomplete.suggest("TOYOTA P", 10)));
+	}
+
+	@Test
+	void findsModelsWithoutTheirBrandOnce() {
+		load(vehicle(1L, "Toyota", "Prius"), vehicle(2L, "Land Rover", "Defender"));
+
+		assertEquals(List.of("Toyota Prius=1"), texts(autocomplete.suggest("pri", 10)));
+		assertEquals(List.of("Land Rover Defender=1"), texts(autocomplete.suggest("def", 10)));
+		assertEquals(List.of("Land Rover=1", "Land Rover Defender=1"), texts(autocomplete.suggest("land", 10)));
+		assertEquals(List.of(), texts(autocomplete.suggest("x", 10)));
+		assertEquals(List.of(), texts(autocomplete.suggest("", 10)));
+	}
+
+	@Test
+	void countsOnlyRentableVehiclesAndFollowsRebuilds() {
+		VehicleSummary inMaintenance = new VehicleSummary(3L, "Toyota", "Prius", 2020, "Sedan", 50.0,
+				VehicleStatus.MAINTENANCE, null);
+		load(vehicle(1L, "Toyota", "Prius"), inMaintenance);
+		assertEquals(List.of("Toyota=1", "Toyota Prius=1"), texts(autocomplete.suggest("toy", 10)));
+
+		load(vehicle(1L, "Toyota", "Prius"), vehicle(2L, "Toyota", "Yaris"));
+		assertEquals(List.of("Toyota=2", "Toyota Prius=1", "Toyota Yaris=1"),
+				texts(autocomplete.suggest("toy", 10)));
+	}
+
+	private void load(VehicleSummary... vehicles) {
+		when(catalogService.loadCatalog()).thenReturn(new ArrayList<>(List.of(vehicles)));
+		autocomplete.rebuild();
+	}
+
+	private static List<String> texts(List<VehicleSuggestion> suggestions) {
+		return suggestions.stream().map(s -> s.getText() + "=" + s.getCount()).collect(Collectors.toList());
+	}
+
+	private static VehicleSummary vehicle(Long id, String brand, String model) {
+		return new VehicleSummary(id, brand, model, 2020, "Sedan", 50.0, VehicleStatus.AVAILABLE, null);
+	}
+}
@@ -0,0 +1,47 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.model.ReservationStatus;
+import com.example.web_based_vehicle_rental.repository.ReservationInterval;
+import com.example.web_based_vehicle_rental.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VehicleAvailabilityIndexTest {
+
+	private static final LocalDate START = LocalDate.now().plusDays(3);
+
+	private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+	private final VehicleAvailabilityIndex index = new VehicleAvailabilityIndex(reservationRepository);
+
+	@Test
+	void aFailedLoadIsRetriedUntilItSucceeds() {
+		ReservationInterval booked = mock(ReservationInterval.class);
+		when(booked.getId()).thenReturn(1L);
+		when(booked.getVehicleId()).thenReturn(7L);
+		when(booked.getStartDate()).thenReturn(START);
+		when(booked.getEndDate()).thenReturn(START.plusDays(1));
+		when(reservationRepository.findIntervalsByStatus(ReservationStatus.CONFIRMED))
+				.thenThrow(new QueryTimeoutException("timed out"))
+				.thenReturn(List.of(booked));
+
+		index.rebuild();
+		assertFalse(index.isReady());
+
+		index.rebuildIfNotReady();
+		assertTrue(index.isReady());
+		assertTrue(index.isBooked(7L, START.plusDays(1), START.plusDays(4)));
+
+		index.rebuildIfNotReady();
+		verify(reservationRepository, times(2)).findIntervalsByStatus(ReservationStatus.CONFIRMED);
+	}
+}
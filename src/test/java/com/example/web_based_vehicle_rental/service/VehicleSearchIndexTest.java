@@ -0,0 +1,83 @@
+package com.example.web_based_vehicle_rental.service;
+
+import com.example.web_based_vehicle_rental.dto.VehicleSummary;
+import com.example.web_based_vehicle_rental.model.VehicleStatus;
+import com.example.web_based_vehicle_rental.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VehicleSearchIndexTest {
+
+	private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+	private final VehicleCatalogService catalogService = mock(VehicleCatalogService.class);
+	private final VehicleSearchIndex index = new VehicleSearchIndex(vehicleRepository, catalogService, 0.25);
+
+	@BeforeEach
+	void loadCatalog() {
+		when(catalogService.loadCatalog()).thenReturn(new ArrayList<>(List.of(
+				vehicle(1L, "Toyota", "Prius", 2020, "Sedan", VehicleStatus.AVAILABLE),
+				vehicle(2L, "Toyota", "Land Cruiser", 2018, "SUV", VehicleStatus.AVAILABLE),
+				vehicle(3L, "Honda", "Civic", 2019, "Sedan", VehicleStatus.AVAILABLE),
+				vehicle(4L, "Toyota", "Corolla", 2021, "Sedan", VehicleStatus.MAINTENANCE))));
+		when(catalogService.withPrimaryImages(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		index.rebuild();
+	}
+
+	@Test
+	void misspeltQueriesRankTheIntendedVehicleFirst() {
+		List<VehicleSummary> matches = index.search("toyta prius");
+
+		assertEquals(List.of(1L, 2L), ids(matches));
+		assertTrue(matches.get(0).getRelevance() > matches.get(1).getRelevance());
+		assertEquals(List.of(3L), ids(index.search("Civc")));
+	}
+
+	@Test
+	void matchesPrefixesTypesAndExactYears() {
+		assertEquals(List.of(2L), ids(index.search("land cru")));
+		assertEquals(List.of(1L, 3L), ids(index.search("sedan")));
+		assertEquals(List.of(3L), ids(index.search("2019")));
+		assertEquals(List.of(), ids(index.search("2017")));
+		assertEquals(List.of(), ids(index.search("  ,  ")));
+	}
+
+	@Test
+	void leavesOutVehiclesThatCannotBeRented() {
+		assertEquals(List.of(), ids(index.search("corolla")));
+	}
+
+	@Test
+	void reindexesOnlyTheChangedVehicle() {
+		when(vehicleRepository.findSummariesByIds(List.of(3L))).thenReturn(new ArrayList<>(List.of(
+				vehicle(3L, "Honda", "Accord", 2019, "Sedan", VehicleStatus.AVAILABLE))));
+		index.onCatalogChanged(new CatalogChangedEvent(1, 3L));
+
+		assertEquals(List.of(), ids(index.search("civic")));
+		assertEquals(List.of(3L), ids(index.search("acord")));
+
+		when(vehicleRepository.findSummariesByIds(List.of(1L))).thenReturn(new ArrayList<>());
+		index.onCatalogChanged(new CatalogChangedEvent(2, 1L));
+
+		assertEquals(List.of(), ids(index.search("prius")));
+		assertEquals(List.of(2L), ids(index.search("toyota")));
+	}
+
+	private static List<Long> ids(List<VehicleSummary> vehicles) {
+		return vehicles.stream().map(VehicleSummary::getId).collect(Collectors.toList());
+	}
+
+	private static VehicleSummary vehicle(Long id, String brand, String model, int year, String type,
+			VehicleStatus status) {
+		return new VehicleSummary(id, brand, model, year, type, 50.0, status, null);
+	}
+}